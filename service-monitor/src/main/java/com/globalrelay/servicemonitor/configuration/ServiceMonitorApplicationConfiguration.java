@@ -1,16 +1,23 @@
 package com.globalrelay.servicemonitor.configuration;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.globalrelay.servicemonitor.job.impl.CachingJobFactory;
 import com.globalrelay.servicemonitor.job.impl.RouterJob;
+import com.globalrelay.servicemonitor.util.CronCache;
 
 /**
  * A configuration file currently support making Spring applicationContext to be
  * available for the {@linkplain RouterJob} to implement routing using the
- * ApplicationContextAware aware feature
+ * ApplicationContextAware aware feature, and registers the
+ * {@linkplain CachingJobFactory} with the Quartz scheduler and the
+ * {@linkplain CronCache} shared by listing and scheduling
  * <p>
  * Also see: {@linkplain RouterJob}
  * 
@@ -30,4 +37,25 @@ public class ServiceMonitorApplicationConfiguration implements ApplicationContex
 		return applicationContext;
 	}
 
+	/**
+	 * Makes Quartz create its jobs through the {@linkplain CachingJobFactory}, so
+	 * a job class is instantiated and wired once instead of on every fire
+	 * 
+	 * @param jobFactory - Job factory caching the wired job instances
+	 * @return - Customizer setting the job factory of the scheduler
+	 */
+	@Bean
+	public SchedulerFactoryBeanCustomizer jobFactoryCustomizer(CachingJobFactory jobFactory) {
+		return schedulerFactoryBean -> schedulerFactoryBean.setJobFactory(jobFactory);
+	}
+
+	/**
+	 * @param maxSize - Maximum number of cached cron expressions
+	 * @return - Cache of parsed cron expressions
+	 */
+	@Bean
+	public CronCache cronCache(@Value("${servicemonitor.cron.cache-size:1024}") int maxSize) {
+		return new CronCache(maxSize);
+	}
+
 }
@@ -0,0 +1,15 @@
+package com.globalrelay.servicemonitor.constant;
+
+/**
+ * Enumerator for the outcome of a single service probe.
+ * 
+ * @author Ravikiran Butti
+ */
+public enum ProbeOutcome {
+
+	UP, // connection was established
+	REFUSED, // connection was actively refused by the host
+	TIMEOUT, // connection was not established before the probe deadline
+	DNS_FAILURE, // host name could not be resolved
+	UNREACHABLE; // host or network could not be reached
+}
@@ -18,4 +18,10 @@ public interface ServiceMonitorJobConstant {
 	 * needs to be executed by while running a job by the scheduler
 	 */
 	String TASK_ID_KEY = "taskId";
+
+	/**
+	 * The key that will be used to store and retrieve the CRON expression shared
+	 * by all the tasks of a grouped job
+	 */
+	String CRON_EXPRESSION_KEY = "cronExpression";
 }
@@ -1,14 +1,12 @@
 package com.globalrelay.servicemonitor.controller;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,6 +16,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.globalrelay.servicemonitor.domain.ServiceMonitorResponse;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.domain.TaskSummary;
 import com.globalrelay.servicemonitor.service.SchedulerService;
 
 /**
@@ -27,6 +26,7 @@ import com.globalrelay.servicemonitor.service.SchedulerService;
  * services. This class has the  endpoints for following features:
  * <ul>
  * <li>Create a Service Monitoring task
+ * <li>Create Service Monitoring tasks in bulk
  * <li>Schedule a Service Monitoring task
  * <li>Start a Service Monitoring task
  * <li>Stop a Service Monitoring task
@@ -78,6 +78,38 @@ public class ServiceMonitorController {
 
 	}
 
+	/**
+	 * A resource Endpoint to create and schedule Service Monitoring tasks in bulk
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /create/bulk
+	 * <li>HTTP Method: POST
+	 * <li>Consumes : JSON
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @param tasks - tasks that need to be created and scheduled
+	 * @return - {@linkplain ServiceMonitorResponse} object containing a success or
+	 *         failure response for every input task
+	 */
+	@PostMapping(path = "create/bulk", consumes = {
+			MediaType.APPLICATION_JSON_VALUE }, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ServiceMonitorResponse createTasks(@RequestBody List<ServiceMonitorTask> tasks) {
+
+		LOG.debug("Started to create tasks | Number of tasks : {}", tasks.size());
+		List<ServiceMonitorResponse> results = null;
+		try {
+			results = taskService.createTasks(tasks);
+		} catch (Exception e) {
+			LOG.error("Failed to create tasks | Number of tasks : {}", tasks.size(), e);
+			return ServiceMonitorResponse.error("Failed to create tasks");
+		}
+
+		LOG.info("Tasks created successfully | Number of tasks : {}", tasks.size());
+		return ServiceMonitorResponse.success("ServiceMonitorTasks are processed", results);
+	}
+
 	/**
 	 * A resource Endpoint to retrieve a Service Monitoring task
 	 * <p>
@@ -201,6 +233,11 @@ public class ServiceMonitorController {
 	/**
 	 * A resource Endpoint to list all the Service Monitoring tasks
 	 * <p>
+	 * Pages are located by the Id of the last task of the previous page, passed
+	 * as "after" and returned as "next", so every page is equally cheap to read.
+	 * A row "offset" is still accepted when no "after" is given. The total is the
+	 * number of tasks, which may be cached for a short time.
+	 * <p>
 	 * Service details
 	 * <ul>
 	 * <li>Path : /list
@@ -215,23 +252,25 @@ public class ServiceMonitorController {
 	 */
 	@PostMapping(path = "list", consumes = {
 			MediaType.APPLICATION_JSON_VALUE }, produces = MediaType.APPLICATION_JSON_VALUE)
-	@SuppressWarnings("deprecation")
 	public ServiceMonitorResponse getTasks(@RequestBody HashMap<String, Object> param) {
 
 		LOG.debug("Started to retrieve tasks | search criteria : {}", param);
 		Map<String, Object> resp = new HashMap<String, Object>();
 		try {
 
-			// Set page limit and offsets
-			Pageable pageAble = new PageRequest(Integer.valueOf(param.get("offset").toString()),
-					Integer.valueOf(param.get("limit").toString()));
+			// Set page limit and the Id the page starts after
+			int limit = Integer.valueOf(param.get("limit").toString());
+			Long after = param.get("after") != null ? Long.valueOf(param.get("after").toString())
+					: taskService.getTaskIdBefore(
+							param.get("offset") != null ? Integer.valueOf(param.get("offset").toString()) : 0);
 
 			// retrieve the records
-			Page<ServiceMonitorTask> page = taskService.getTasks(pageAble);
+			List<TaskSummary> rows = taskService.getTasks(after, limit);
 
-			// return current page number and total number of records
-			resp.put("total", page.getTotalPages());
-			resp.put("rows", page.getContent());
+			// return the records, the total number of records and the cursor of the next page
+			resp.put("total", taskService.getTaskCount());
+			resp.put("rows", rows);
+			resp.put("next", rows.size() < limit ? null : rows.get(rows.size() - 1).getId());
 		} catch (Exception e) {
 			LOG.error("Failed to retrieve tasks | search criteria : {}", param, e);
 			return ServiceMonitorResponse.error("Failed to find tasks with criteria: " + param);
@@ -0,0 +1,383 @@
+package com.globalrelay.servicemonitor.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.globalrelay.servicemonitor.domain.LatencyPercentiles;
+import com.globalrelay.servicemonitor.domain.ProbeRecord;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorResponse;
+import com.globalrelay.servicemonitor.domain.UptimeReport;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
+import com.globalrelay.servicemonitor.service.UptimeService;
+import com.globalrelay.servicemonitor.service.impl.ProbeArchive;
+import com.globalrelay.servicemonitor.service.impl.ProbeHistoryServiceImpl;
+import com.globalrelay.servicemonitor.service.impl.RecentSampleStore;
+import com.globalrelay.servicemonitor.service.impl.ScheduleRehydrator;
+import com.globalrelay.servicemonitor.service.impl.StatusWriteBuffer;
+import com.globalrelay.servicemonitor.service.impl.TaskSnapshotCache;
+import com.globalrelay.servicemonitor.strategy.impl.DnsResolverCache;
+
+/**
+ * REST Endpoints controller for Service Monitoring metrics
+ * <p>
+ * This class has the endpoints for following features:
+ * <ul>
+ * <li>Retrieve connect latency percentiles of a monitored service
+ * <li>Retrieve the availability of a monitored service or of all of them
+ * <li>Retrieve host name resolution cache statistics
+ * <li>Retrieve the startup schedule rehydration statistics
+ * <li>Retrieve the write-behind statistics of the probe outcomes
+ * <li>Retrieve the task cache statistics
+ * <li>Retrieve the probe history of a monitored service and its statistics
+ * <li>Retrieve the most recent probe samples of a monitored service
+ * </ul>
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@RestController
+public class ServiceMonitorMetricsController {
+
+	private static Logger LOG = LoggerFactory.getLogger(ServiceMonitorMetricsController.class);
+
+	@Autowired
+	private LatencyMetricsService latencyMetricsService;
+
+	@Autowired
+	private UptimeService uptimeService;
+
+	@Autowired
+	private DnsResolverCache resolverCache;
+
+	@Autowired
+	private ScheduleRehydrator scheduleRehydrator;
+
+	@Autowired
+	private StatusWriteBuffer statusWriteBuffer;
+
+	@Autowired
+	private TaskSnapshotCache taskSnapshotCache;
+
+	@Autowired
+	private ProbeHistoryServiceImpl probeHistoryService;
+
+	@Autowired
+	private ProbeArchive probeArchive;
+
+	@Autowired
+	private RecentSampleStore recentSampleStore;
+
+	/**
+	 * A resource Endpoint to retrieve the connect latency percentiles (p50, p95,
+	 * p99 and max, in microseconds) of a monitored service
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /latency/{host}/{port}
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @param host - Host name of the monitored service
+	 * @param port - Port number of the monitored service
+	 * @return - {@linkplain ServiceMonitorResponse} object containing success or
+	 *         failure response
+	 */
+	@GetMapping(path = "latency/{host}/{port}")
+	public ServiceMonitorResponse getLatency(@PathVariable("host") String host, @PathVariable("port") int port) {
+
+		LOG.debug("Started to retrieve latency | host : {}, port : {}", host, port);
+		LatencyPercentiles percentiles = null;
+		try {
+			percentiles = latencyMetricsService.getLatencyPercentiles(ServiceEndpoint.of(host, port));
+		} catch (Exception e) {
+			LOG.error("Failed to retrieve latency | host : {}, port : {}", host, port, e);
+			return ServiceMonitorResponse.error("Failed to find latency for host: " + host + " and port: " + port);
+		}
+
+		LOG.debug("Latency retrieved successfully | percentiles : {}", percentiles);
+		return ServiceMonitorResponse.success("data found", percentiles);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the availability of a monitored service over
+	 * the last 1 hour, 24 hours, 7 days and 30 days
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /uptime/{host}/{port}
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @param host - Host name of the monitored service
+	 * @param port - Port number of the monitored service
+	 * @return - {@linkplain ServiceMonitorResponse} object containing success or
+	 *         failure response
+	 */
+	@GetMapping(path = "uptime/{host}/{port}")
+	public ServiceMonitorResponse getUptime(@PathVariable("host") String host, @PathVariable("port") int port) {
+
+		LOG.debug("Started to retrieve uptime | host : {}, port : {}", host, port);
+		UptimeReport report = null;
+		try {
+			report = uptimeService.getUptime(ServiceEndpoint.of(host, port));
+		} catch (Exception e) {
+			LOG.error("Failed to retrieve uptime | host : {}, port : {}", host, port, e);
+			return ServiceMonitorResponse.error("Failed to find uptime for host: " + host + " and port: " + port);
+		}
+
+		LOG.debug("Uptime retrieved successfully | report : {}", report);
+		return ServiceMonitorResponse.success("data found", report);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the availability of all monitored services
+	 * together over the last 1 hour, 24 hours, 7 days and 30 days
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /uptime
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @return - {@linkplain ServiceMonitorResponse} object containing the fleet
+	 *         availability
+	 */
+	@GetMapping(path = "uptime")
+	public ServiceMonitorResponse getFleetUptime() {
+
+		UptimeReport report = uptimeService.getFleetUptime();
+
+		LOG.debug("Fleet uptime retrieved successfully | report : {}", report);
+		return ServiceMonitorResponse.success("data found", report);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the hit and miss counters of the host name
+	 * resolution cache
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /dns
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @return - {@linkplain ServiceMonitorResponse} object containing the cache
+	 *         statistics
+	 */
+	@GetMapping(path = "dns")
+	public ServiceMonitorResponse getResolverStatistics() {
+
+		Map<String, Object> resp = new LinkedHashMap<String, Object>();
+		resp.put("hits", resolverCache.getHitCount());
+		resp.put("misses", resolverCache.getMissCount());
+		resp.put("refreshes", resolverCache.getRefreshCount());
+		resp.put("size", resolverCache.size());
+
+		LOG.debug("Resolver statistics retrieved successfully | response : {}", resp);
+		return ServiceMonitorResponse.success("data found", resp);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the statistics of the schedule rehydration
+	 * run at startup, including the time until every task was scheduled again
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /rehydration
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @return - {@linkplain ServiceMonitorResponse} object containing the
+	 *         rehydration statistics
+	 */
+	@GetMapping(path = "rehydration")
+	public ServiceMonitorResponse getRehydrationStatistics() {
+
+		Map<String, Object> resp = new LinkedHashMap<String, Object>();
+		resp.put("scheduled", scheduleRehydrator.getScheduledCount());
+		resp.put("failed", scheduleRehydrator.getFailedCount());
+		resp.put("coverageMillis", scheduleRehydrator.getCoverageMillis());
+
+		LOG.debug("Rehydration statistics retrieved successfully | response : {}", resp);
+		return ServiceMonitorResponse.success("data found", resp);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the statistics of the write-behind buffer of
+	 * the probe outcomes
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /writebehind
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @return - {@linkplain ServiceMonitorResponse} object containing the
+	 *         write-behind statistics
+	 */
+	@GetMapping(path = "writebehind")
+	public ServiceMonitorResponse getWriteBehindStatistics() {
+
+		Map<String, Object> resp = new LinkedHashMap<String, Object>();
+		resp.put("enabled", statusWriteBuffer.isEnabled());
+		resp.put("pending", statusWriteBuffer.getPendingCount());
+		resp.put("written", statusWriteBuffer.getWrittenCount());
+		resp.put("batches", statusWriteBuffer.getBatchCount());
+
+		LOG.debug("Write-behind statistics retrieved successfully | response : {}", resp);
+		return ServiceMonitorResponse.success("data found", resp);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the statistics of the cache of tasks read
+	 * by the monitor
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /taskcache
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @return - {@linkplain ServiceMonitorResponse} object containing the task
+	 *         cache statistics
+	 */
+	@GetMapping(path = "taskcache")
+	public ServiceMonitorResponse getTaskCacheStatistics() {
+
+		long hits = taskSnapshotCache.getHitCount();
+		long lookups = hits + taskSnapshotCache.getMissCount();
+
+		Map<String, Object> resp = new LinkedHashMap<String, Object>();
+		resp.put("hits", hits);
+		resp.put("misses", taskSnapshotCache.getMissCount());
+		resp.put("hitRate", lookups == 0 ? 0d : (double) hits / lookups);
+		resp.put("size", taskSnapshotCache.size());
+
+		LOG.debug("Task cache statistics retrieved successfully | response : {}", resp);
+		return ServiceMonitorResponse.success("data found", resp);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the probe history of a monitored service
+	 * within a time range, ordered by time. The range defaults to the last 24
+	 * hours.
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /history/{host}/{port}?from={from}&amp;to={to}
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @param host - Host name of the monitored service
+	 * @param port - Port number of the monitored service
+	 * @param from - Start of the range in epoch milliseconds, inclusive
+	 * @param to   - End of the range in epoch milliseconds, exclusive
+	 * @return - {@linkplain ServiceMonitorResponse} object containing success or
+	 *         failure response
+	 */
+	@GetMapping(path = "history/{host}/{port}")
+	public ServiceMonitorResponse getHistory(@PathVariable("host") String host, @PathVariable("port") int port,
+			@RequestParam(name = "from", required = false) Long from,
+			@RequestParam(name = "to", required = false) Long to) {
+
+		long end = to == null ? System.currentTimeMillis() : to;
+		long start = from == null ? end - TimeUnit.DAYS.toMillis(1) : from;
+		LOG.debug("Started to retrieve probe history | host : {}, port : {}, from : {}, to : {}", host, port, start,
+				end);
+		List<ProbeRecord> records = null;
+		try {
+			records = probeHistoryService.getHistory(ServiceEndpoint.of(host, port), start, end);
+		} catch (Exception e) {
+			LOG.error("Failed to retrieve probe history | host : {}, port : {}", host, port, e);
+			return ServiceMonitorResponse
+					.error("Failed to find probe history for host: " + host + " and port: " + port);
+		}
+
+		LOG.debug("Probe history retrieved successfully | records : {}", records.size());
+		return ServiceMonitorResponse.success("data found", records);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the statistics of the probe history writer
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /history
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @return - {@linkplain ServiceMonitorResponse} object containing the probe
+	 *         history statistics
+	 */
+	@GetMapping(path = "history")
+	public ServiceMonitorResponse getHistoryStatistics() {
+
+		Map<String, Object> resp = new LinkedHashMap<String, Object>();
+		resp.put("queued", probeHistoryService.getQueuedCount());
+		resp.put("written", probeHistoryService.getWrittenCount());
+		resp.put("dropped", probeHistoryService.getDroppedCount());
+		resp.put("partitions", probeHistoryService.getPartitionCount());
+		resp.put("droppedPartitions", probeHistoryService.getDroppedPartitionCount());
+		resp.put("compactedPartitions", probeHistoryService.getCompactedPartitionCount());
+		resp.put("archivedRecords", probeArchive.getArchivedRecords());
+		resp.put("archivedBytes", probeArchive.getArchivedBytes());
+
+		LOG.debug("Probe history statistics retrieved successfully | response : {}", resp);
+		return ServiceMonitorResponse.success("data found", resp);
+	}
+
+	/**
+	 * A resource Endpoint to retrieve the most recent probe samples of a monitored
+	 * service, newest first
+	 * <p>
+	 * Service details
+	 * <ul>
+	 * <li>Path : /samples/{host}/{port}?limit={limit}
+	 * <li>HTTP Method: GET
+	 * <li>Produces : JSON
+	 * </ul>
+	 * 
+	 * @param host  - Host name of the monitored service
+	 * @param port  - Port number of the monitored service
+	 * @param limit - Maximum number of samples to return
+	 * @return - {@linkplain ServiceMonitorResponse} object containing success or
+	 *         failure response
+	 */
+	@GetMapping(path = "samples/{host}/{port}")
+	public ServiceMonitorResponse getSamples(@PathVariable("host") String host, @PathVariable("port") int port,
+			@RequestParam(name = "limit", defaultValue = "100") int limit) {
+
+		LOG.debug("Started to retrieve recent samples | host : {}, port : {}, limit : {}", host, port, limit);
+		List<ProbeRecord> samples = null;
+		try {
+			samples = recentSampleStore.getRecent(ServiceEndpoint.of(host, port), limit);
+		} catch (Exception e) {
+			LOG.error("Failed to retrieve recent samples | host : {}, port : {}", host, port, e);
+			return ServiceMonitorResponse
+					.error("Failed to find recent samples for host: " + host + " and port: " + port);
+		}
+
+		LOG.debug("Recent samples retrieved successfully | samples : {}", samples.size());
+		return ServiceMonitorResponse.success("data found", samples);
+	}
+}
@@ -0,0 +1,85 @@
+package com.globalrelay.servicemonitor.domain;
+
+/**
+ * A domain class holding the probe outcome counters and the availability of a
+ * monitored service, or of all monitored services, over one time window.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public class Availability {
+
+	private String window;
+	private long total;
+	private long up;
+	private long down;
+	private long timeout;
+	private long refused;
+	private Double availability;
+
+	public String getWindow() {
+		return window;
+	}
+
+	public void setWindow(String window) {
+		this.window = window;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+
+	public long getUp() {
+		return up;
+	}
+
+	public void setUp(long up) {
+		this.up = up;
+	}
+
+	public long getDown() {
+		return down;
+	}
+
+	public void setDown(long down) {
+		this.down = down;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public long getRefused() {
+		return refused;
+	}
+
+	public void setRefused(long refused) {
+		this.refused = refused;
+	}
+
+	/**
+	 * @return - Percentage of the probes that found the service up, or null if
+	 *         there was no probe in the window
+	 */
+	public Double getAvailability() {
+		return availability;
+	}
+
+	public void setAvailability(Double availability) {
+		this.availability = availability;
+	}
+
+	@Override
+	public String toString() {
+		return "Availability [window=" + window + ", total=" + total + ", up=" + up + ", down=" + down + ", timeout="
+				+ timeout + ", refused=" + refused + ", availability=" + availability + "]";
+	}
+}
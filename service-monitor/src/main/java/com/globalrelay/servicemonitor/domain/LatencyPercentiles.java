@@ -0,0 +1,81 @@
+package com.globalrelay.servicemonitor.domain;
+
+/**
+ * A domain class holding the connect latency percentiles of a monitored
+ * service. All latencies are in microseconds.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public class LatencyPercentiles {
+
+	private String hostName;
+	private int port;
+	private long count;
+	private long p50;
+	private long p95;
+	private long p99;
+	private long max;
+
+	public String getHostName() {
+		return hostName;
+	}
+
+	public void setHostName(String hostName) {
+		this.hostName = hostName;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public void setP50(long p50) {
+		this.p50 = p50;
+	}
+
+	public long getP95() {
+		return p95;
+	}
+
+	public void setP95(long p95) {
+		this.p95 = p95;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+
+	public void setP99(long p99) {
+		this.p99 = p99;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public void setMax(long max) {
+		this.max = max;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyPercentiles [hostName=" + hostName + ", port=" + port + ", count=" + count + ", p50=" + p50
+				+ ", p95=" + p95 + ", p99=" + p99 + ", max=" + max + "]";
+	}
+}
@@ -0,0 +1,95 @@
+package com.globalrelay.servicemonitor.domain;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A domain class to store the membership lease of a monitor node running in
+ * cluster mode.
+ * <p>
+ * This domain class also acts as a entity for database table "monitor_node"
+ * and participates in ORM mapping. A node is a live member of the cluster
+ * while its lease has not expired; every node renews its own lease
+ * periodically and the endpoints are split between the live nodes.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Entity
+@Table(name = "monitor_node")
+public class MonitorNode extends AbstractDomainObject {
+
+	private static final long serialVersionUID = 3911712040873626047L;
+
+	@Id
+	@Column(name = "node_id")
+	private String nodeId;
+
+	@Column(name = "lease_expires_at", nullable = false)
+	private LocalDateTime leaseExpiresAt;
+
+	public MonitorNode() {
+	}
+
+	public MonitorNode(String nodeId, LocalDateTime leaseExpiresAt) {
+		this.nodeId = nodeId;
+		this.leaseExpiresAt = leaseExpiresAt;
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	public void setNodeId(String nodeId) {
+		this.nodeId = nodeId;
+	}
+
+	public LocalDateTime getLeaseExpiresAt() {
+		return leaseExpiresAt;
+	}
+
+	public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+		this.leaseExpiresAt = leaseExpiresAt;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((leaseExpiresAt == null) ? 0 : leaseExpiresAt.hashCode());
+		result = prime * result + ((nodeId == null) ? 0 : nodeId.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		MonitorNode other = (MonitorNode) obj;
+		if (leaseExpiresAt == null) {
+			if (other.leaseExpiresAt != null)
+				return false;
+		} else if (!leaseExpiresAt.equals(other.leaseExpiresAt))
+			return false;
+		if (nodeId == null) {
+			if (other.nodeId != null)
+				return false;
+		} else if (!nodeId.equals(other.nodeId))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "MonitorNode [nodeId=" + nodeId + ", leaseExpiresAt=" + leaseExpiresAt + "]";
+	}
+
+}
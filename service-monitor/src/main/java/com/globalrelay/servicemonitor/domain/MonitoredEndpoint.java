@@ -0,0 +1,116 @@
+package com.globalrelay.servicemonitor.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * A domain class to store a monitored host and port once, no matter how many
+ * tasks monitor it.
+ * <p>
+ * This domain class also acts as a entity for database table "endpoint" and
+ * participates in ORM mapping. The table has a unique index on the host name
+ * and port, so looking an endpoint up and deduplicating it are single indexed
+ * operations.
+ * <p>
+ * This class has one to many relationship with {@linkplain ServiceMonitorStatus}
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Entity
+@Table(name = "endpoint", uniqueConstraints = @UniqueConstraint(name = "uk_endpoint_host_port", columnNames = {
+		"host_name", "port" }))
+public class MonitoredEndpoint extends AbstractDomainObject {
+
+	private static final long serialVersionUID = -2279104436364791862L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "endpoint_seq")
+	@SequenceGenerator(name = "endpoint_seq", sequenceName = "endpoint_seq", allocationSize = 50)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "host_name", nullable = false)
+	private String hostName;
+
+	@Column(name = "port", nullable = false)
+	private int port;
+
+	public MonitoredEndpoint() {
+	}
+
+	public MonitoredEndpoint(String hostName, int port) {
+		this.hostName = hostName;
+		this.port = port;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getHostName() {
+		return hostName;
+	}
+
+	public void setHostName(String hostName) {
+		this.hostName = hostName;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((hostName == null) ? 0 : hostName.hashCode());
+		result = prime * result + ((id == null) ? 0 : id.hashCode());
+		result = prime * result + port;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		MonitoredEndpoint other = (MonitoredEndpoint) obj;
+		if (hostName == null) {
+			if (other.hostName != null)
+				return false;
+		} else if (!hostName.equals(other.hostName))
+			return false;
+		if (id == null) {
+			if (other.id != null)
+				return false;
+		} else if (!id.equals(other.id))
+			return false;
+		if (port != other.port)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "MonitoredEndpoint [id=" + id + ", hostName=" + hostName + ", port=" + port + "]";
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.globalrelay.servicemonitor.domain;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A domain class holding a batch of tasks whose services are being probed.
+ * <p>
+ * A batch is returned once the probes of all its tasks are in flight, and
+ * completed later, so the probes of many batches can run at the same time.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+public class MonitoringBatch {
+
+	private final int requested;
+	private final List<ServiceMonitorTask> tasks;
+	private final List<ServiceEndpoint> endpoints;
+	private final List<CompletableFuture<ProbeResult>> probes;
+	private final long startedAt;
+
+	public MonitoringBatch(int requested, List<ServiceMonitorTask> tasks, List<ServiceEndpoint> endpoints,
+			List<CompletableFuture<ProbeResult>> probes, long startedAt) {
+		this.requested = requested;
+		this.tasks = tasks;
+		this.endpoints = endpoints;
+		this.probes = probes;
+		this.startedAt = startedAt;
+	}
+
+	/**
+	 * @return - Number of tasks requested, including the tasks not monitored now
+	 */
+	public int getRequested() {
+		return requested;
+	}
+
+	/**
+	 * @return - Tasks being monitored
+	 */
+	public List<ServiceMonitorTask> getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * @return - Endpoints being probed, in the order of the tasks
+	 */
+	public List<ServiceEndpoint> getEndpoints() {
+		return endpoints;
+	}
+
+	/**
+	 * @return - Futures of the probes, in the order of the tasks
+	 */
+	public List<CompletableFuture<ProbeResult>> getProbes() {
+		return probes;
+	}
+
+	/**
+	 * @return - Time the probes were started in epoch milliseconds
+	 */
+	public long getStartedAt() {
+		return startedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "MonitoringBatch [requested=" + requested + ", tasks=" + tasks.size() + ", startedAt=" + startedAt
+				+ "]";
+	}
+}
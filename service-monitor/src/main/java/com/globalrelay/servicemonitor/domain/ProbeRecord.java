@@ -0,0 +1,89 @@
+package com.globalrelay.servicemonitor.domain;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+
+/**
+ * A value class holding one entry of the probe history of a
+ * {@linkplain MonitoredEndpoint}.
+ * <p>
+ * Records are only ever appended to the history, so the class is immutable and
+ * only holds the endpoint Id, the time the probe completed, its outcome and
+ * its connect latency.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public final class ProbeRecord {
+
+	private final long endpointId;
+	private final long timestamp;
+	private final ProbeOutcome outcome;
+	private final long latencyNanos;
+
+	public ProbeRecord(long endpointId, long timestamp, ProbeOutcome outcome, long latencyNanos) {
+		this.endpointId = endpointId;
+		this.timestamp = timestamp;
+		this.outcome = outcome;
+		this.latencyNanos = latencyNanos;
+	}
+
+	public long getEndpointId() {
+		return endpointId;
+	}
+
+	/**
+	 * @return - Time in epoch milliseconds at which the probe completed
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public ProbeOutcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return - Time in nanoseconds from starting the connect until the outcome
+	 *         was known
+	 */
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (endpointId ^ (endpointId >>> 32));
+		result = prime * result + (int) (latencyNanos ^ (latencyNanos >>> 32));
+		result = prime * result + ((outcome == null) ? 0 : outcome.hashCode());
+		result = prime * result + (int) (timestamp ^ (timestamp >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ProbeRecord other = (ProbeRecord) obj;
+		if (endpointId != other.endpointId)
+			return false;
+		if (latencyNanos != other.latencyNanos)
+			return false;
+		if (outcome != other.outcome)
+			return false;
+		if (timestamp != other.timestamp)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "ProbeRecord [endpointId=" + endpointId + ", timestamp=" + timestamp + ", outcome=" + outcome
+				+ ", latencyNanos=" + latencyNanos + "]";
+	}
+}
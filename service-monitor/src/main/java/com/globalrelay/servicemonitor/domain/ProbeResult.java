@@ -0,0 +1,76 @@
+package com.globalrelay.servicemonitor.domain;
+
+import java.net.InetAddress;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+
+/**
+ * A value class holding the result of probing a single
+ * {@linkplain ServiceEndpoint}.
+ * <p>
+ * Along with the outcome, the result records the connect latency in
+ * nanoseconds, the address the host name resolved to and the time the probe
+ * completed. The class only holds references and primitives so that it can be
+ * created once per probe on the I/O thread without further allocation.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public final class ProbeResult {
+
+	private final ServiceEndpoint endpoint;
+	private final ProbeOutcome outcome;
+	private final long latencyNanos;
+	private final InetAddress address;
+	private final long timestamp;
+
+	public ProbeResult(ServiceEndpoint endpoint, ProbeOutcome outcome, long latencyNanos, InetAddress address,
+			long timestamp) {
+		this.endpoint = endpoint;
+		this.outcome = outcome;
+		this.latencyNanos = latencyNanos;
+		this.address = address;
+		this.timestamp = timestamp;
+	}
+
+	public ServiceEndpoint getEndpoint() {
+		return endpoint;
+	}
+
+	public ProbeOutcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return - Time in nanoseconds from starting the connect until the outcome
+	 *         was known
+	 */
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	/**
+	 * @return - Address the host name resolved to, or null if the host name could
+	 *         not be resolved
+	 */
+	public InetAddress getAddress() {
+		return address;
+	}
+
+	/**
+	 * @return - Time in epoch milliseconds at which the probe completed
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public boolean isUp() {
+		return outcome == ProbeOutcome.UP;
+	}
+
+	@Override
+	public String toString() {
+		return "ProbeResult [endpoint=" + endpoint + ", outcome=" + outcome + ", latencyNanos=" + latencyNanos
+				+ ", address=" + address + ", timestamp=" + timestamp + "]";
+	}
+}
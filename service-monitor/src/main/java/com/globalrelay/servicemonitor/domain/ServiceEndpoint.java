@@ -0,0 +1,121 @@
+package com.globalrelay.servicemonitor.domain;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * A value class describing a service endpoint that needs to be probed. A
+ * service is defined as a host/port combination.
+ * <p>
+ * Two endpoints are equal when they share the same host name and port; the
+ * connect timeout is a parameter of the probe and the Id of the stored
+ * {@linkplain MonitoredEndpoint} is carried along so probe results can be
+ * recorded against it, and neither takes part in the identity of the endpoint.
+ * <p>
+ * Host names are stored trimmed and in lower case. Endpoints built from user
+ * input, such as a request path, must be created with
+ * {@link #of(String, int)} so they match the stored ones.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public final class ServiceEndpoint implements Serializable {
+
+	private static final long serialVersionUID = 2815397405012262135L;
+
+	private final String hostName;
+	private final int port;
+	private final int connectTimeout;
+	private final Long endpointId;
+
+	public ServiceEndpoint(String hostName, int port) {
+		this(hostName, port, 0);
+	}
+
+	public ServiceEndpoint(String hostName, int port, int connectTimeout) {
+		this(hostName, port, connectTimeout, null);
+	}
+
+	public ServiceEndpoint(String hostName, int port, int connectTimeout, Long endpointId) {
+		this.hostName = hostName;
+		this.port = port;
+		this.connectTimeout = connectTimeout;
+		this.endpointId = endpointId;
+	}
+
+	/**
+	 * Creates an endpoint with a normalized host name, to look up a service
+	 * given by the user
+	 * 
+	 * @param hostName - Host name of the service, in any case
+	 * @param port     - Port of the service
+	 * @return - Endpoint of the service
+	 */
+	public static ServiceEndpoint of(String hostName, int port) {
+		return new ServiceEndpoint(normalizeHostName(hostName), port);
+	}
+
+	/**
+	 * Normalizes a host name the way host names of monitored services are stored
+	 * 
+	 * @param hostName - Host name to be normalized
+	 * @return - Trimmed, lower case host name, or null if the host name is null
+	 */
+	public static String normalizeHostName(String hostName) {
+		return hostName == null ? null : hostName.trim().toLowerCase(Locale.ROOT);
+	}
+
+	public String getHostName() {
+		return hostName;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * @return - Id of the stored {@linkplain MonitoredEndpoint}, or null if the
+	 *         endpoint is not stored
+	 */
+	public Long getEndpointId() {
+		return endpointId;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((hostName == null) ? 0 : hostName.hashCode());
+		result = prime * result + port;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ServiceEndpoint other = (ServiceEndpoint) obj;
+		if (hostName == null) {
+			if (other.hostName != null)
+				return false;
+		} else if (!hostName.equals(other.hostName))
+			return false;
+		if (port != other.port)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "ServiceEndpoint [hostName=" + hostName + ", port=" + port + ", connectTimeout=" + connectTimeout
+				+ ", endpointId=" + endpointId + "]";
+	}
+}
@@ -7,9 +7,15 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * A domain class to store the current status and execution details of a service
  * monitoring job.
@@ -21,25 +27,35 @@ import javax.persistence.Transient;
  * features to track records created and updated timestamps
  * <p>
  * This class has many to one relationship with {@linkplain ServiceMonitorTask}
+ * <p>
+ * The host name and port are stored once per host and port in
+ * {@linkplain MonitoredEndpoint}, which every status monitoring it references.
+ * They can still be set on the status directly, and are resolved to the shared
+ * endpoint when the task is created.
  * 
  * @author Ravikiran Butti
  *
  */
 @Entity
-@Table(name = "task_status")
+@Table(name = "task_status", indexes = @Index(name = "idx_task_status_endpoint", columnList = "endpoint_id"))
 public class ServiceMonitorStatus extends AbstractDomainObject {
 
 	private static final long serialVersionUID = -1301831279801111878L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_status_seq")
+	@SequenceGenerator(name = "task_status_seq", sequenceName = "task_status_seq", allocationSize = 50)
 	@Column(name = "id")
 	private Long id;
 
-	@Column(name = "host_name")
+	@ManyToOne
+	@JoinColumn(name = "endpoint_id")
+	private MonitoredEndpoint endpoint;
+
+	@Transient
 	private String hostName;
 
-	@Column(name = "port")
+	@Transient
 	private int port;
 
 	@Column(name = "status_cd")
@@ -51,9 +67,21 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 	@Column(name = "cronexpression")
 	private String cronExpression;
 
+	@Column(name = "connect_timeout")
+	private int connectTimeout;
+
+	@Column(name = "last_outcome")
+	private String lastOutcome;
+
+	@Column(name = "last_latency_nanos")
+	private Long lastLatency;
+
 	@Transient
 	private String cronHumanExpression;
 
+	@Transient
+	private LocalDateTime lastProbeTime;
+
 	public Long getId() {
 		return id;
 	}
@@ -62,8 +90,21 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 		this.id = id;
 	}
 
+	@JsonIgnore
+	public MonitoredEndpoint getEndpoint() {
+		return endpoint;
+	}
+
+	public void setEndpoint(MonitoredEndpoint endpoint) {
+		this.endpoint = endpoint;
+		if (endpoint != null) {
+			this.hostName = endpoint.getHostName();
+			this.port = endpoint.getPort();
+		}
+	}
+
 	public String getHostName() {
-		return hostName;
+		return hostName != null || endpoint == null ? hostName : endpoint.getHostName();
 	}
 
 	public void setHostName(String hostName) {
@@ -71,7 +112,7 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 	}
 
 	public int getPort() {
-		return port;
+		return port != 0 || endpoint == null ? port : endpoint.getPort();
 	}
 
 	public void setPort(int port) {
@@ -102,6 +143,38 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 		this.cronExpression = cronExpression;
 	}
 
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public String getLastOutcome() {
+		return lastOutcome;
+	}
+
+	public void setLastOutcome(String lastOutcome) {
+		this.lastOutcome = lastOutcome;
+	}
+
+	public Long getLastLatency() {
+		return lastLatency;
+	}
+
+	public void setLastLatency(Long lastLatency) {
+		this.lastLatency = lastLatency;
+	}
+
+	public LocalDateTime getLastProbeTime() {
+		return lastProbeTime;
+	}
+
+	public void setLastProbeTime(LocalDateTime lastProbeTime) {
+		this.lastProbeTime = lastProbeTime;
+	}
+
 	public String getCronHumanExpression() {
 		return cronHumanExpression;
 	}
@@ -114,11 +187,15 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result + connectTimeout;
 		result = prime * result + ((cronExpression == null) ? 0 : cronExpression.hashCode());
 		result = prime * result + ((cronHumanExpression == null) ? 0 : cronHumanExpression.hashCode());
 		result = prime * result + ((hostName == null) ? 0 : hostName.hashCode());
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((lastFailedTime == null) ? 0 : lastFailedTime.hashCode());
+		result = prime * result + ((lastLatency == null) ? 0 : lastLatency.hashCode());
+		result = prime * result + ((lastOutcome == null) ? 0 : lastOutcome.hashCode());
+		result = prime * result + ((lastProbeTime == null) ? 0 : lastProbeTime.hashCode());
 		result = prime * result + port;
 		result = prime * result + ((statusCd == null) ? 0 : statusCd.hashCode());
 		return result;
@@ -133,6 +210,8 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 		if (getClass() != obj.getClass())
 			return false;
 		ServiceMonitorStatus other = (ServiceMonitorStatus) obj;
+		if (connectTimeout != other.connectTimeout)
+			return false;
 		if (cronExpression == null) {
 			if (other.cronExpression != null)
 				return false;
@@ -158,6 +237,21 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 				return false;
 		} else if (!lastFailedTime.equals(other.lastFailedTime))
 			return false;
+		if (lastLatency == null) {
+			if (other.lastLatency != null)
+				return false;
+		} else if (!lastLatency.equals(other.lastLatency))
+			return false;
+		if (lastOutcome == null) {
+			if (other.lastOutcome != null)
+				return false;
+		} else if (!lastOutcome.equals(other.lastOutcome))
+			return false;
+		if (lastProbeTime == null) {
+			if (other.lastProbeTime != null)
+				return false;
+		} else if (!lastProbeTime.equals(other.lastProbeTime))
+			return false;
 		if (port != other.port)
 			return false;
 		if (statusCd == null) {
@@ -171,8 +265,9 @@ public class ServiceMonitorStatus extends AbstractDomainObject {
 	@Override
 	public String toString() {
 		return "ServiceMonitorStatus [id=" + id + ", hostName=" + hostName + ", port=" + port + ", statusCd=" + statusCd
-				+ ", lastFailedTime=" + lastFailedTime + ", cronExpression=" + cronExpression + ", cronHumanExpression="
-				+ cronHumanExpression + "]";
+				+ ", lastFailedTime=" + lastFailedTime + ", cronExpression=" + cronExpression + ", connectTimeout="
+				+ connectTimeout + ", lastOutcome=" + lastOutcome + ", lastLatency=" + lastLatency
+				+ ", lastProbeTime=" + lastProbeTime + ", cronHumanExpression=" + cronHumanExpression + "]";
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
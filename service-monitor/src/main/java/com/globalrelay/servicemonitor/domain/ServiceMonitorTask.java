@@ -10,6 +10,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
@@ -43,7 +44,8 @@ public class ServiceMonitorTask extends AbstractDomainObject {
 	private static final long serialVersionUID = -8630782409450154412L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+	@SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
 	@Column(name = "id")
 	private Long id;
 
@@ -56,6 +58,9 @@ public class ServiceMonitorTask extends AbstractDomainObject {
 	@Transient
 	private boolean active;
 
+	@Column(name = "stopped")
+	private boolean stopped;
+
 	@Column(name = "email")
 	private String email;
 
@@ -85,6 +90,14 @@ public class ServiceMonitorTask extends AbstractDomainObject {
 		this.active = active;
 	}
 
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public void setStopped(boolean stopped) {
+		this.stopped = stopped;
+	}
+
 	public Long getId() {
 		return id;
 	}
@@ -162,6 +175,7 @@ public class ServiceMonitorTask extends AbstractDomainObject {
 		result = prime * result + ((outageFrom == null) ? 0 : outageFrom.hashCode());
 		result = prime * result + ((outageTo == null) ? 0 : outageTo.hashCode());
 		result = prime * result + ((status == null) ? 0 : status.hashCode());
+		result = prime * result + (stopped ? 1231 : 1237);
 		return result;
 	}
 
@@ -213,6 +227,8 @@ public class ServiceMonitorTask extends AbstractDomainObject {
 				return false;
 		} else if (!status.equals(other.status))
 			return false;
+		if (stopped != other.stopped)
+			return false;
 		return true;
 	}
 
@@ -220,7 +236,7 @@ public class ServiceMonitorTask extends AbstractDomainObject {
 	public String toString() {
 		return "ServiceMonitorTask [id=" + id + ", name=" + name + ", jobClass=" + jobClass + ", active=" + active
 				+ ", email=" + email + ", graceTime=" + graceTime + ", outageFrom=" + outageFrom + ", outageTo="
-				+ outageTo + ", status=" + status + "]";
+				+ outageTo + ", stopped=" + stopped + ", status=" + status + "]";
 	}
 
 }
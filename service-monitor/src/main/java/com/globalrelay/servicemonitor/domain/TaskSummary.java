@@ -0,0 +1,147 @@
+package com.globalrelay.servicemonitor.domain;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * A domain class holding one row of the task listing.
+ * <p>
+ * Instances are created directly by a projection query over the "task",
+ * "task_status" and "endpoint" tables, so listing tasks reads only the listed
+ * columns and never loads or tracks the entities. The status is a detached
+ * {@linkplain ServiceMonitorStatus} that is never persisted, so the listing
+ * keeps the shape of {@linkplain ServiceMonitorTask}.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+public class TaskSummary {
+
+	private Long id;
+	private String name;
+	private boolean active;
+	private boolean stopped;
+	private String email;
+	private int graceTime;
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy/MM/dd HH:mm")
+	private LocalDateTime outageFrom;
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy/MM/dd HH:mm")
+	private LocalDateTime outageTo;
+
+	private ServiceMonitorStatus status;
+
+	public TaskSummary() {
+	}
+
+	/**
+	 * Constructor used by the projection query. The status columns are null for a
+	 * task without a status.
+	 */
+	public TaskSummary(Long id, String name, boolean stopped, String email, int graceTime, LocalDateTime outageFrom,
+			LocalDateTime outageTo, Long statusId, String hostName, Integer port, String statusCd,
+			LocalDateTime lastFailedTime, String cronExpression, Integer connectTimeout, String lastOutcome,
+			Long lastLatency) {
+
+		this.id = id;
+		this.name = name;
+		this.stopped = stopped;
+		this.email = email;
+		this.graceTime = graceTime;
+		this.outageFrom = outageFrom;
+		this.outageTo = outageTo;
+		if (statusId != null) {
+			status = new ServiceMonitorStatus();
+			status.setId(statusId);
+			status.setHostName(hostName);
+			status.setPort(port == null ? 0 : port);
+			status.setStatusCd(statusCd);
+			status.setLastFailedTime(lastFailedTime);
+			status.setCronExpression(cronExpression);
+			status.setConnectTimeout(connectTimeout == null ? 0 : connectTimeout);
+			status.setLastOutcome(lastOutcome);
+			status.setLastLatency(lastLatency);
+		}
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public void setStopped(boolean stopped) {
+		this.stopped = stopped;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public void setEmail(String email) {
+		this.email = email;
+	}
+
+	public int getGraceTime() {
+		return graceTime;
+	}
+
+	public void setGraceTime(int graceTime) {
+		this.graceTime = graceTime;
+	}
+
+	public LocalDateTime getOutageFrom() {
+		return outageFrom;
+	}
+
+	public void setOutageFrom(LocalDateTime outageFrom) {
+		this.outageFrom = outageFrom;
+	}
+
+	public LocalDateTime getOutageTo() {
+		return outageTo;
+	}
+
+	public void setOutageTo(LocalDateTime outageTo) {
+		this.outageTo = outageTo;
+	}
+
+	public ServiceMonitorStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(ServiceMonitorStatus status) {
+		this.status = status;
+	}
+
+	@Override
+	public String toString() {
+		return "TaskSummary [id=" + id + ", name=" + name + ", active=" + active + ", stopped=" + stopped + ", email="
+				+ email + ", graceTime=" + graceTime + ", outageFrom=" + outageFrom + ", outageTo=" + outageTo
+				+ ", status=" + status + "]";
+	}
+}
@@ -0,0 +1,60 @@
+package com.globalrelay.servicemonitor.domain;
+
+import java.util.List;
+
+/**
+ * A domain class holding the availability of a monitored service, or of all
+ * monitored services when the host name is not set, over the 1 hour, 24 hour,
+ * 7 day and 30 day windows.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public class UptimeReport {
+
+	private String hostName;
+	private int port;
+	private int endpoints;
+	private List<Availability> windows;
+
+	public String getHostName() {
+		return hostName;
+	}
+
+	public void setHostName(String hostName) {
+		this.hostName = hostName;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	/**
+	 * @return - Number of monitored services the report covers
+	 */
+	public int getEndpoints() {
+		return endpoints;
+	}
+
+	public void setEndpoints(int endpoints) {
+		this.endpoints = endpoints;
+	}
+
+	public List<Availability> getWindows() {
+		return windows;
+	}
+
+	public void setWindows(List<Availability> windows) {
+		this.windows = windows;
+	}
+
+	@Override
+	public String toString() {
+		return "UptimeReport [hostName=" + hostName + ", port=" + port + ", endpoints=" + endpoints + ", windows="
+				+ windows + "]";
+	}
+}
@@ -1,5 +1,9 @@
 package com.globalrelay.servicemonitor.facade;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
 
@@ -25,6 +29,31 @@ public interface SchedulerFacade {
 	 */
 	public void createJob(ServiceMonitorTask task) throws ServiceMonitorFacadeException;
 
+	/**
+	 * Concrete implementation should create a Job for every input task and
+	 * schedule them as per their CRON expressions, registering all of them with
+	 * the scheduler in as few calls as possible
+	 * 
+	 * @param tasks - Tasks for which jobs need to be created
+	 * @throws ServiceMonitorFacadeException - Exception thrown if creating and
+	 *                                       scheduling the Jobs fails
+	 */
+	public void createJobs(List<ServiceMonitorTask> tasks) throws ServiceMonitorFacadeException;
+
+	/**
+	 * Concrete implementation should create a Job for every input task like
+	 * {@link #createJobs(List)}, but not fire any of them before the given delay
+	 * has passed
+	 * 
+	 * @param tasks            - Tasks for which jobs need to be created
+	 * @param startDelayMillis - Delay in milliseconds before the first fire of the
+	 *                         jobs
+	 * @throws ServiceMonitorFacadeException - Exception thrown if creating and
+	 *                                       scheduling the Jobs fails
+	 */
+	public void createJobs(List<ServiceMonitorTask> tasks, long startDelayMillis)
+			throws ServiceMonitorFacadeException;
+
 	/**
 	 * Concrete implementation should stop a Job based on the input Job/Task Id
 	 * 
@@ -45,4 +74,25 @@ public interface SchedulerFacade {
 	 *                                       to retrieve the job
 	 */
 	public boolean getJobStatus(String id) throws ServiceMonitorFacadeException;
+
+	/**
+	 * Concrete implementation should return which of the input Jobs are
+	 * scheduled, looking all of them up in one pass
+	 * 
+	 * @param ids - Identifiers of the Jobs/Tasks to be looked up
+	 * @return - Identifiers of the Jobs that are scheduled
+	 * @throws ServiceMonitorFacadeException - Exception thrown if there a failure
+	 *                                       to look up the jobs
+	 */
+	public Set<String> getActiveJobs(Collection<String> ids) throws ServiceMonitorFacadeException;
+
+	/**
+	 * Concrete implementation should return the Ids of all the Jobs scheduled by
+	 * this instance of the application
+	 * 
+	 * @return - Identifiers of the scheduled Jobs
+	 * @throws ServiceMonitorFacadeException - Exception thrown if there a failure
+	 *                                       to list the jobs
+	 */
+	public Set<String> getJobIds() throws ServiceMonitorFacadeException;
 }
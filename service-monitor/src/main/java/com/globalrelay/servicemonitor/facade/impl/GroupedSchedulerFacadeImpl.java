@@ -0,0 +1,257 @@
+package com.globalrelay.servicemonitor.facade.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.constant.ServiceMonitorJobConstant;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.job.impl.CronGroupJob;
+
+/**
+ * An implementation of {@linkplain SchedulerFacade} that registers one Quartz
+ * job and trigger per distinct CRON expression instead of one per task. Tasks
+ * are grouped by their expression, and every fire of a group monitors all of
+ * its tasks as a batch through the {@linkplain CronGroupJob}. Since most tasks
+ * share a handful of expressions, the scheduler holds a handful of triggers no
+ * matter how many tasks there are. Enabled with
+ * {@code servicemonitor.scheduler.type=grouped}.
+ * <p>
+ * The members of every group are kept in memory. The trigger of a group is
+ * created with its first task and removed with its last one. A start delay only
+ * applies to groups created by the call, as the trigger of an existing group
+ * keeps firing on its schedule. The Job class of a task is not used, every
+ * member is monitored by the {@linkplain CronGroupJob}.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "servicemonitor.scheduler.type", havingValue = "grouped")
+public class GroupedSchedulerFacadeImpl implements SchedulerFacade {
+
+	private static final String GROUP = "CRON_GROUP";
+	private static Logger LOG = LoggerFactory.getLogger(GroupedSchedulerFacadeImpl.class);
+
+	@Autowired
+	private Scheduler scheduler;
+
+	// CRON expression to Ids of its tasks
+	private final ConcurrentMap<String, Set<Long>> groups = new ConcurrentHashMap<String, Set<Long>>();
+
+	// Id of a task to its CRON expression
+	private final ConcurrentMap<Long, String> members = new ConcurrentHashMap<Long, String>();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJob(com.
+	 * globalrelay.servicemonitor.domain.ServiceMonitorTask)
+	 */
+	public void createJob(ServiceMonitorTask task) throws ServiceMonitorFacadeException {
+		createJobs(Collections.singletonList(task), 0L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJobs(java.util.
+	 * List)
+	 */
+	public void createJobs(List<ServiceMonitorTask> tasks) throws ServiceMonitorFacadeException {
+		createJobs(tasks, 0L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJobs(java.util.
+	 * List, long)
+	 */
+	public synchronized void createJobs(List<ServiceMonitorTask> tasks, long startDelayMillis)
+			throws ServiceMonitorFacadeException {
+
+		LOG.debug("Started to group and schedule tasks | Number of tasks : {}, start delay : {}", tasks.size(),
+				startDelayMillis);
+		try {
+			// register a job and trigger for every expression without a group yet
+			Date startAt = new Date(System.currentTimeMillis() + startDelayMillis);
+			Map<JobDetail, Set<? extends Trigger>> jobs = new LinkedHashMap<JobDetail, Set<? extends Trigger>>();
+			Set<String> created = new HashSet<String>();
+			for (ServiceMonitorTask task : tasks) {
+
+				String cronExpression = task.getStatus().getCronExpression();
+				if (groups.containsKey(cronExpression) || !created.add(cronExpression)) {
+					continue;
+				}
+
+				Trigger trigger = org.quartz.TriggerBuilder.newTrigger().withIdentity(cronExpression, GROUP)
+						.withSchedule(org.quartz.CronScheduleBuilder.cronSchedule(cronExpression)).startAt(startAt)
+						.build();
+
+				JobDetail job = org.quartz.JobBuilder.newJob(CronGroupJob.class).withIdentity(cronExpression, GROUP)
+						.usingJobData(ServiceMonitorJobConstant.CRON_EXPRESSION_KEY, cronExpression).build();
+
+				jobs.put(job, Collections.singleton(trigger));
+			}
+			if (!jobs.isEmpty()) {
+				scheduler.scheduleJobs(jobs, true);
+			}
+
+			for (String cronExpression : created) {
+				groups.put(cronExpression, ConcurrentHashMap.<Long>newKeySet());
+			}
+			for (ServiceMonitorTask task : tasks) {
+
+				String cronExpression = task.getStatus().getCronExpression();
+				String previous = members.put(task.getId(), cronExpression);
+				if (previous != null && !previous.equals(cronExpression)) {
+					leaveGroup(task.getId(), previous);
+				}
+				groups.get(cronExpression).add(task.getId());
+			}
+
+			LOG.info("Successfully grouped and scheduled tasks | Number of tasks : {}, new groups : {}",
+					tasks.size(), created.size());
+		} catch (Exception e) {
+			throw new ServiceMonitorFacadeException("Failed to group and schedule " + tasks.size() + " tasks", e,
+					ErrorCode.FACADE_ERROR);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.facade.SchedulerFacade#stopJob(java.lang.
+	 * String)
+	 */
+	public synchronized void stopJob(String id) throws ServiceMonitorFacadeException {
+
+		LOG.debug("Started to stop a Job | Job Id : {}", id);
+		try {
+			Long taskId = Long.valueOf(id);
+			String cronExpression = members.remove(taskId);
+			if (cronExpression != null) {
+				leaveGroup(taskId, cronExpression);
+			}
+
+			LOG.debug("Successfully stopped a Job | Job Id : {}", id);
+		} catch (Exception e) {
+			throw new ServiceMonitorFacadeException("Failed to stop the task with Id :" + id, e,
+					ErrorCode.FACADE_ERROR);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#getJobStatus(java.lang.
+	 * String)
+	 */
+	public boolean getJobStatus(String id) throws ServiceMonitorFacadeException {
+		return members.containsKey(Long.valueOf(id));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#getActiveJobs(java.util
+	 * .Collection)
+	 */
+	public Set<String> getActiveJobs(Collection<String> ids) throws ServiceMonitorFacadeException {
+
+		Set<String> active = new HashSet<String>();
+		for (String id : ids) {
+			if (members.containsKey(Long.valueOf(id))) {
+				active.add(id);
+			}
+		}
+		return active;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.facade.SchedulerFacade#getJobIds()
+	 */
+	public Set<String> getJobIds() throws ServiceMonitorFacadeException {
+
+		Set<String> ids = new HashSet<String>();
+		for (Long taskId : members.keySet()) {
+			ids.add(taskId.toString());
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns the Ids of the tasks currently grouped under the given expression
+	 * 
+	 * @param cronExpression - CRON expression of the group
+	 * @return - Ids of the tasks of the group, empty if there is no such group
+	 */
+	public List<Long> getGroupMembers(String cronExpression) {
+
+		Set<Long> group = groups.get(cronExpression);
+		return group == null ? Collections.<Long>emptyList() : new ArrayList<Long>(group);
+	}
+
+	/**
+	 * @return - Number of groups, which is the number of triggers registered with
+	 *         the scheduler
+	 */
+	public int getGroupCount() {
+		return groups.size();
+	}
+
+	/**
+	 * Private method to remove a task from its group, removing the job and trigger
+	 * of the group once it is empty
+	 * 
+	 * @param taskId         - Id of the task
+	 * @param cronExpression - CRON expression of the group
+	 * @throws Exception - Exception thrown if the job of the group could not be
+	 *                   removed
+	 */
+	private void leaveGroup(Long taskId, String cronExpression) throws Exception {
+
+		Set<Long> group = groups.get(cronExpression);
+		if (group == null) {
+			return;
+		}
+		group.remove(taskId);
+		if (group.isEmpty()) {
+
+			groups.remove(cronExpression);
+			scheduler.unscheduleJob(TriggerKey.triggerKey(cronExpression, GROUP));
+			scheduler.deleteJob(JobKey.jobKey(cronExpression, GROUP));
+			LOG.info("Removed the job of an empty group | CRON expression : {}", cronExpression);
+		}
+	}
+}
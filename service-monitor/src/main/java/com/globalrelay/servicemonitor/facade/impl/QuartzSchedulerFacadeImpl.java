@@ -1,13 +1,32 @@
 package com.globalrelay.servicemonitor.facade.impl;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import com.globalrelay.servicemonitor.constant.ServiceMonitorJobConstant;
@@ -21,11 +40,19 @@ import com.globalrelay.servicemonitor.job.impl.RouterJob;
  * An implementation of {@linkplain SchedulerFacade}. This implementation uses
  * Quartz Scheduler API to create, start, stop and retrieve Jobs using an
  * scheduler
+ * <p>
+ * The Ids of the scheduled Jobs are also kept in an in-process registry,
+ * updated by every Job created or stopped through this facade, so the status
+ * of a whole page of tasks is looked up without a call to the job store per
+ * task. The registry is reconciled against the scheduler periodically, which
+ * picks up Jobs that were changed outside this facade, such as a trigger that
+ * completed.
  * 
  * @author Ravikiran Butti
  *
  */
 @Component
+@ConditionalOnProperty(name = "servicemonitor.scheduler.type", havingValue = "quartz", matchIfMissing = true)
 public class QuartzSchedulerFacadeImpl implements SchedulerFacade {
 
 	private static final String GROUP = "GROUP";
@@ -34,6 +61,39 @@ public class QuartzSchedulerFacadeImpl implements SchedulerFacade {
 	@Autowired
 	private Scheduler scheduler;
 
+	@Value("${servicemonitor.scheduler.reconcile-millis:300000}")
+	private long reconcileMillis = 300000L;
+
+	private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+
+	private ScheduledExecutorService reconciler;
+
+	/**
+	 * Starts the periodic reconciliation of the registry of active Jobs, filling
+	 * it right away
+	 */
+	@PostConstruct
+	public void start() {
+
+		reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "scheduler-reconcile");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reconciler.scheduleWithFixedDelay(this::reconcile, 0L, reconcileMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the reconciliation of the registry of active Jobs
+	 */
+	@PreDestroy
+	public void stop() {
+
+		if (reconciler != null) {
+			reconciler.shutdownNow();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -53,6 +113,7 @@ public class QuartzSchedulerFacadeImpl implements SchedulerFacade {
 			TriggerKey existTg = org.quartz.TriggerKey.triggerKey(task.getId().toString(), GROUP);
 
 			if (scheduler.checkExists(existTg)) {
+				activeJobs.remove(task.getId().toString());
 				scheduler.unscheduleJob(existTg);
 				scheduler.deleteJob(org.quartz.JobKey.jobKey(task.getId().toString(), GROUP));
 			}
@@ -62,6 +123,7 @@ public class QuartzSchedulerFacadeImpl implements SchedulerFacade {
 					.usingJobData(ServiceMonitorJobConstant.TASK_ID_KEY, task.getId()).build();
 
 			scheduler.scheduleJob(job, trigger);
+			activeJobs.add(task.getId().toString());
 
 			LOG.info("Successfully created and scheduled a Job | Input task ", task);
 		} catch (Exception e) {
@@ -71,6 +133,57 @@ public class QuartzSchedulerFacadeImpl implements SchedulerFacade {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJobs(java.util.
+	 * List)
+	 */
+	public void createJobs(List<ServiceMonitorTask> tasks) throws ServiceMonitorFacadeException {
+		createJobs(tasks, 0L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJobs(java.util.
+	 * List, long)
+	 */
+	public void createJobs(List<ServiceMonitorTask> tasks, long startDelayMillis)
+			throws ServiceMonitorFacadeException {
+
+		LOG.debug("Started to create and schedule Jobs | Number of tasks : {}, start delay : {}", tasks.size(),
+				startDelayMillis);
+		try {
+			Date startAt = new Date(System.currentTimeMillis() + startDelayMillis);
+			Map<JobDetail, Set<? extends Trigger>> jobs = new LinkedHashMap<JobDetail, Set<? extends Trigger>>();
+			for (ServiceMonitorTask task : tasks) {
+
+				Trigger trigger = org.quartz.TriggerBuilder.newTrigger().withIdentity(task.getId().toString(), GROUP)
+						.withSchedule(org.quartz.CronScheduleBuilder.cronSchedule(task.getStatus().getCronExpression()))
+						.startAt(startAt).build();
+
+				JobDetail job = org.quartz.JobBuilder.newJob(RouterJob.class)
+						.withIdentity(task.getId().toString(), GROUP)
+						.usingJobData(ServiceMonitorJobConstant.JOB_CLASS_KEY, task.getJobClass())
+						.usingJobData(ServiceMonitorJobConstant.TASK_ID_KEY, task.getId()).build();
+
+				jobs.put(job, Collections.singleton(trigger));
+			}
+
+			// existing jobs and triggers with the same identity are replaced
+			scheduler.scheduleJobs(jobs, true);
+			tasks.forEach(task -> activeJobs.add(task.getId().toString()));
+
+			LOG.info("Successfully created and scheduled Jobs | Number of tasks : {}", tasks.size());
+		} catch (Exception e) {
+			throw new ServiceMonitorFacadeException("Failed to create and schedule " + tasks.size() + " tasks", e,
+					ErrorCode.FACADE_ERROR);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -88,6 +201,7 @@ public class QuartzSchedulerFacadeImpl implements SchedulerFacade {
 				scheduler.unscheduleJob(tg);
 				scheduler.deleteJob(key);
 			}
+			activeJobs.remove(id);
 
 			LOG.debug("Successfully stopped a Job | Job Id ", id);
 		} catch (Exception e) {
@@ -118,4 +232,72 @@ public class QuartzSchedulerFacadeImpl implements SchedulerFacade {
 		}
 
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#getActiveJobs(java.util
+	 * .Collection)
+	 */
+	public Set<String> getActiveJobs(Collection<String> ids) throws ServiceMonitorFacadeException {
+
+		Set<String> active = new HashSet<String>();
+		for (String id : ids) {
+			if (activeJobs.contains(id)) {
+				active.add(id);
+			}
+		}
+		return active;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.facade.SchedulerFacade#getJobIds()
+	 */
+	public Set<String> getJobIds() throws ServiceMonitorFacadeException {
+		return new HashSet<String>(activeJobs);
+	}
+
+	/**
+	 * Brings the registry of active Jobs in line with the triggers of the
+	 * scheduler. A Job that differs from the listed triggers is checked once
+	 * more before it is corrected, since it may have been created or stopped
+	 * while the triggers were listed.
+	 * 
+	 * @return - Number of Jobs whose registration was corrected
+	 */
+	public synchronized int reconcile() {
+
+		int corrected = 0;
+		try {
+			Set<String> scheduled = new HashSet<String>();
+			for (TriggerKey key : scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(GROUP))) {
+				scheduled.add(key.getName());
+			}
+
+			Set<String> mismatched = new HashSet<String>(scheduled);
+			mismatched.removeAll(activeJobs);
+			for (String id : activeJobs) {
+				if (!scheduled.contains(id)) {
+					mismatched.add(id);
+				}
+			}
+
+			for (String id : mismatched) {
+				boolean exists = scheduler.checkExists(org.quartz.TriggerKey.triggerKey(id, GROUP));
+				if (exists ? activeJobs.add(id) : activeJobs.remove(id)) {
+					corrected++;
+				}
+			}
+			if (corrected > 0) {
+				LOG.info("Reconciled active Jobs with the scheduler | corrected : {}, active : {}", corrected,
+						activeJobs.size());
+			}
+		} catch (Exception e) {
+			LOG.error("Failed to reconcile active Jobs with the scheduler", e);
+		}
+		return corrected;
+	}
 }
@@ -0,0 +1,396 @@
+package com.globalrelay.servicemonitor.facade.impl;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.cronutils.model.time.ExecutionTime;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.service.ServiceMonitorService;
+import com.globalrelay.servicemonitor.util.CronCache;
+import com.globalrelay.servicemonitor.util.HashedTimingWheel;
+
+/**
+ * An implementation of {@linkplain SchedulerFacade} built on a
+ * {@linkplain HashedTimingWheel} instead of one Quartz job and trigger per
+ * task. Scheduling, stopping and firing a job are constant time, which keeps
+ * the scheduler flat when the number of tasks grows into the hundreds of
+ * thousands. Enabled with {@code servicemonitor.scheduler.type=wheel}.
+ * <p>
+ * Every job keeps a single timeout on the wheel. When it fires, the next fire
+ * time is scheduled before the task runs on the worker pool. Cron expressions
+ * that describe a fixed interval of seconds or minutes are evaluated once to
+ * find the first fire time and then advance by simple addition; any other
+ * expression is evaluated with cron-utils on every fire. Parsed expressions
+ * are shared with the task listing through the {@linkplain CronCache}. As with the Quartz
+ * implementation, a job never runs concurrently with itself: a fire that
+ * arrives while the previous run is still in progress is skipped.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "servicemonitor.scheduler.type", havingValue = "wheel")
+public class TimingWheelSchedulerFacadeImpl implements SchedulerFacade {
+
+	private static Logger LOG = LoggerFactory.getLogger(TimingWheelSchedulerFacadeImpl.class);
+
+	@Value("${servicemonitor.scheduler.tick-millis:100}")
+	private long tickMillis = 100L;
+
+	@Value("${servicemonitor.scheduler.wheel-size:512}")
+	private int wheelSize = 512;
+
+	@Value("${servicemonitor.scheduler.worker-threads:8}")
+	private int workerThreads = 8;
+
+	@Autowired
+	private ServiceMonitorService monitorService;
+
+	@Autowired
+	private CronCache cronCache;
+
+	private final ConcurrentMap<String, WheelJob> jobs = new ConcurrentHashMap<String, WheelJob>();
+
+	private ExecutorService workers;
+
+	private HashedTimingWheel wheel;
+
+	/**
+	 * Starts the worker pool and the wheel thread
+	 */
+	@PostConstruct
+	public void start() {
+
+		AtomicInteger threadCount = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), r -> {
+			Thread thread = new Thread(r, "scheduler-worker-" + threadCount.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		wheel = new HashedTimingWheel("scheduler-wheel", tickMillis, wheelSize, workers);
+		wheel.start();
+	}
+
+	/**
+	 * Stops the wheel thread and the worker pool
+	 */
+	@PreDestroy
+	public void stop() {
+
+		wheel.stop();
+		workers.shutdown();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJob(com.
+	 * globalrelay.servicemonitor.domain.ServiceMonitorTask)
+	 */
+	public void createJob(ServiceMonitorTask task) throws ServiceMonitorFacadeException {
+		createJob(task, 0L);
+	}
+
+	/**
+	 * Private method to create a job whose first fire is no earlier than the given
+	 * delay
+	 *
+	 * @param task             - Task for which a job needs to be created
+	 * @param startDelayMillis - Delay in milliseconds before the first fire
+	 * @throws ServiceMonitorFacadeException - Exception thrown if the cron
+	 *                                       expression of the task is invalid
+	 */
+	private void createJob(ServiceMonitorTask task, long startDelayMillis) throws ServiceMonitorFacadeException {
+
+		LOG.debug("Started to create and schedule a Job | Input task : {}", task);
+		try {
+			String cronExpression = task.getStatus().getCronExpression();
+			WheelJob job = new WheelJob(task.getId(), cronCache.get(cronExpression).getExecutionTime(),
+					fixedIntervalMillis(cronExpression));
+
+			WheelJob existing = jobs.put(job.id, job);
+			if (existing != null) {
+				existing.cancel();
+			}
+			job.scheduleFirst(startDelayMillis);
+
+			LOG.info("Successfully created and scheduled a Job | Input task : {}", task);
+		} catch (Exception e) {
+			throw new ServiceMonitorFacadeException("Failed to create and schedule the task :" + task, e,
+					ErrorCode.FACADE_ERROR);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJobs(java.util.
+	 * List)
+	 */
+	public void createJobs(List<ServiceMonitorTask> tasks) throws ServiceMonitorFacadeException {
+		createJobs(tasks, 0L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#createJobs(java.util.
+	 * List, long)
+	 */
+	public void createJobs(List<ServiceMonitorTask> tasks, long startDelayMillis)
+			throws ServiceMonitorFacadeException {
+
+		// adding a timeout to the wheel is already constant time, no batching needed
+		for (ServiceMonitorTask task : tasks) {
+			createJob(task, startDelayMillis);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.globalrelay.servicemonitor.facade.SchedulerFacade#stopJob(java.lang.
+	 * String)
+	 */
+	public void stopJob(String id) throws ServiceMonitorFacadeException {
+
+		LOG.debug("Started to stop a Job | Job Id : {}", id);
+		WheelJob job = jobs.remove(id);
+		if (job != null) {
+			job.cancel();
+		}
+		LOG.debug("Successfully stopped a Job | Job Id : {}", id);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#getJobStatus(java.lang.
+	 * String)
+	 */
+	public boolean getJobStatus(String id) throws ServiceMonitorFacadeException {
+		return jobs.containsKey(id);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.facade.SchedulerFacade#getActiveJobs(java.util
+	 * .Collection)
+	 */
+	public Set<String> getActiveJobs(Collection<String> ids) throws ServiceMonitorFacadeException {
+
+		Set<String> active = new HashSet<String>();
+		for (String id : ids) {
+			if (jobs.containsKey(id)) {
+				active.add(id);
+			}
+		}
+		return active;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.facade.SchedulerFacade#getJobIds()
+	 */
+	public Set<String> getJobIds() throws ServiceMonitorFacadeException {
+		return new HashSet<String>(jobs.keySet());
+	}
+
+	/**
+	 * Returns the interval of a Quartz cron expression that fires every N seconds
+	 * or every N minutes, where N divides 60 so that the interval between any two
+	 * consecutive fires is the same
+	 *
+	 * @param cronExpression - Quartz cron expression
+	 * @return - Interval in milliseconds, or 0 if the expression is not a fixed
+	 *         interval
+	 */
+	static long fixedIntervalMillis(String cronExpression) {
+
+		String[] fields = cronExpression.trim().split("\\s+");
+		if (fields.length < 6 || fields.length > 7) {
+			return 0L;
+		}
+		// day of month, month, day of week and year must match every value
+		if (!isEvery(fields[3], 1) || !isEvery(fields[4], 1) || !isEvery(fields[5], 1)
+				|| (fields.length == 7 && !isEvery(fields[6], 1970))) {
+			return 0L;
+		}
+
+		if (!isEvery(fields[2], 0)) {
+			return 0L;
+		}
+		if (isSingleValue(fields[0])) {
+			// every N minutes
+			return TimeUnit.MINUTES.toMillis(step(fields[1]));
+		}
+		if (isEvery(fields[1], 0)) {
+			// every N seconds
+			return TimeUnit.SECONDS.toMillis(step(fields[0]));
+		}
+		return 0L;
+	}
+
+	private static boolean isEvery(String field, int first) {
+		return "*".equals(field) || "?".equals(field) || "*/1".equals(field) || (first + "/1").equals(field);
+	}
+
+	private static boolean isSingleValue(String field) {
+		return field.matches("\\d{1,2}");
+	}
+
+	/**
+	 * Returns N for a field of the form "*", "0/N" or "*&#47;N" when N divides 60,
+	 * or 0 otherwise
+	 */
+	private static long step(String field) {
+
+		if ("*".equals(field)) {
+			return 1L;
+		}
+		int slash = field.indexOf('/');
+		if (slash < 0) {
+			return 0L;
+		}
+		String start = field.substring(0, slash);
+		if (!"*".equals(start) && !"0".equals(start)) {
+			return 0L;
+		}
+		try {
+			int step = Integer.parseInt(field.substring(slash + 1));
+			return step > 0 && 60 % step == 0 ? step : 0L;
+		} catch (NumberFormatException e) {
+			return 0L;
+		}
+	}
+
+	/**
+	 * A job scheduled on the wheel. Holds the timeout of its next fire.
+	 */
+	private final class WheelJob implements Runnable {
+
+		private final Long taskId;
+		private final String id;
+		private final ExecutionTime executionTime;
+		private final long intervalMillis;
+		private final AtomicBoolean running = new AtomicBoolean();
+
+		private volatile HashedTimingWheel.Timeout timeout;
+		private volatile boolean cancelled;
+		private long nextFireMillis;
+
+		private WheelJob(Long taskId, ExecutionTime executionTime, long intervalMillis) {
+			this.taskId = taskId;
+			this.id = taskId.toString();
+			this.executionTime = executionTime;
+			this.intervalMillis = intervalMillis;
+		}
+
+		private void scheduleFirst(long startDelayMillis) {
+
+			Optional<ZonedDateTime> first = executionTime.nextExecution(ZonedDateTime.now().plus(startDelayMillis,
+					ChronoUnit.MILLIS));
+			if (!first.isPresent()) {
+				LOG.warn("Cron expression has no future fire time | Task Id : {}", taskId);
+				jobs.remove(id, this);
+				return;
+			}
+			schedule(first.get().toInstant().toEpochMilli());
+		}
+
+		private void scheduleNext() {
+
+			long now = System.currentTimeMillis();
+			if (intervalMillis > 0) {
+				// fast path, skipping fires that were missed while the wheel was behind
+				long next = nextFireMillis + intervalMillis;
+				if (next <= now) {
+					next += ((now - next) / intervalMillis + 1) * intervalMillis;
+				}
+				schedule(next);
+				return;
+			}
+
+			Optional<ZonedDateTime> next = executionTime
+					.nextExecution(ZonedDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()));
+			if (next.isPresent()) {
+				schedule(next.get().toInstant().toEpochMilli());
+			} else {
+				jobs.remove(id, this);
+			}
+		}
+
+		private void schedule(long fireMillis) {
+
+			nextFireMillis = fireMillis;
+			timeout = wheel.newTimeout(this, fireMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+			if (cancelled) {
+				timeout.cancel();
+			}
+		}
+
+		private void cancel() {
+
+			cancelled = true;
+			HashedTimingWheel.Timeout current = timeout;
+			if (current != null) {
+				current.cancel();
+			}
+		}
+
+		@Override
+		public void run() {
+
+			if (cancelled) {
+				return;
+			}
+			scheduleNext();
+
+			if (!running.compareAndSet(false, true)) {
+				LOG.debug("Skipped a fire while the previous run is in progress | Task Id : {}", taskId);
+				return;
+			}
+			try {
+				monitorService.monitorStatus(taskId);
+			} catch (Exception e) {
+				LOG.error("Failed to run the monitor job | Task Id : " + taskId, e);
+			} finally {
+				running.set(false);
+			}
+		}
+	}
+}
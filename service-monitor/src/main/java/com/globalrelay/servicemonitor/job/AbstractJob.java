@@ -4,7 +4,14 @@ import org.quartz.JobExecutionContext;
 
 import com.globalrelay.servicemonitor.exception.ServiceMonitorJobException;
 
-
+/**
+ * Base class of the jobs a task can be routed to by the scheduler. A single
+ * instance of each job class is created and shared by all fires, so
+ * implementations must be stateless.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
 public abstract class AbstractJob {
 	
 	public abstract void execute(JobExecutionContext context) throws ServiceMonitorJobException;
@@ -0,0 +1,107 @@
+package com.globalrelay.servicemonitor.job.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.quartz.Job;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.spi.JobFactory;
+import org.quartz.spi.TriggerFiredBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorJobException;
+import com.globalrelay.servicemonitor.job.AbstractJob;
+
+/**
+ * A job factory that resolves, instantiates and wires every job class once and
+ * then hands out the same instance on every fire.
+ * <p>
+ * It is used both as the Quartz {@linkplain JobFactory}, so the
+ * {@linkplain RouterJob} is not re-created and re-wired by Spring on every
+ * trigger, and by the {@linkplain RouterJob} itself to look up the
+ * {@linkplain AbstractJob} a task is routed to. Cached jobs are shared between
+ * concurrent fires of different tasks and therefore must be stateless.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class CachingJobFactory implements JobFactory {
+
+	private static Logger LOG = LoggerFactory.getLogger(CachingJobFactory.class);
+
+	@Autowired
+	private AutowireCapableBeanFactory beanFactory;
+
+	private final ConcurrentMap<Class<?>, Job> quartzJobs = new ConcurrentHashMap<Class<?>, Job>();
+
+	private final ConcurrentMap<String, AbstractJob> jobs = new ConcurrentHashMap<String, AbstractJob>();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.quartz.spi.JobFactory#newJob(org.quartz.spi.TriggerFiredBundle,
+	 * org.quartz.Scheduler)
+	 */
+	@Override
+	public Job newJob(TriggerFiredBundle bundle, Scheduler scheduler) throws SchedulerException {
+
+		Class<? extends Job> jobClass = bundle.getJobDetail().getJobClass();
+		try {
+			return quartzJobs.computeIfAbsent(jobClass, c -> (Job) beanFactory.createBean(c));
+		} catch (Exception e) {
+			throw new SchedulerException("Failed to create the Quartz job :" + jobClass, e);
+		}
+	}
+
+	/**
+	 * Returns the wired instance of the given job class, creating it on first use
+	 * 
+	 * @param jobClass - Fully qualified name of a subclass of
+	 *                 {@linkplain AbstractJob}
+	 * @return - Shared instance of the job class
+	 * @throws ServiceMonitorJobException - Exception thrown if the class cannot be
+	 *                                    found, is not a job or cannot be created
+	 */
+	public AbstractJob getJob(String jobClass) throws ServiceMonitorJobException {
+
+		AbstractJob job = jobs.get(jobClass);
+		if (job != null) {
+			return job;
+		}
+		try {
+			return jobs.computeIfAbsent(jobClass, this::createJob);
+		} catch (Exception e) {
+			throw new ServiceMonitorJobException("Failed to create the job :" + jobClass, e, ErrorCode.JOB_ERROR);
+		}
+	}
+
+	/**
+	 * Private method to load the job class and let Spring instantiate and wire it
+	 * 
+	 * @param jobClass - Fully qualified name of the job class
+	 * @return - New wired instance of the job class
+	 */
+	private AbstractJob createJob(String jobClass) {
+
+		LOG.debug("Started to create a job instance | Job class : {}", jobClass);
+		try {
+			Class<?> type = Class.forName(jobClass);
+			if (!AbstractJob.class.isAssignableFrom(type)) {
+				throw new IllegalArgumentException(jobClass + " is not a subclass of " + AbstractJob.class.getName());
+			}
+			AbstractJob job = (AbstractJob) beanFactory.createBean(type);
+
+			LOG.info("Successfully created a job instance | Job class : {}", jobClass);
+			return job;
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Job class not found :" + jobClass, e);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.globalrelay.servicemonitor.job.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.globalrelay.servicemonitor.constant.ServiceMonitorJobConstant;
+import com.globalrelay.servicemonitor.domain.MonitoringBatch;
+import com.globalrelay.servicemonitor.facade.impl.GroupedSchedulerFacadeImpl;
+import com.globalrelay.servicemonitor.service.ServiceMonitorService;
+
+/**
+ * The Quartz job scheduled once for every distinct CRON expression by the
+ * {@linkplain GroupedSchedulerFacadeImpl}. Every fire monitors all the tasks
+ * currently grouped under the expression, handing them to the
+ * {@linkplain ServiceMonitorService} in batches so that each batch is loaded
+ * with one query. The probes of all batches are started before the first batch
+ * is awaited, so a fire takes about one connect timeout however many batches
+ * the group has.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@DisallowConcurrentExecution
+public class CronGroupJob implements Job {
+
+	private static Logger LOG = LoggerFactory.getLogger(CronGroupJob.class);
+
+	@Autowired
+	private GroupedSchedulerFacadeImpl schedulerFacade;
+
+	@Autowired
+	private ServiceMonitorService monitorService;
+
+	@Value("${servicemonitor.scheduler.group-batch-size:500}")
+	private int batchSize = 500;
+
+	@Override
+	public void execute(JobExecutionContext context) throws JobExecutionException {
+
+		String cronExpression = context.getJobDetail().getJobDataMap()
+				.getString(ServiceMonitorJobConstant.CRON_EXPRESSION_KEY);
+		List<Long> taskIds = schedulerFacade.getGroupMembers(cronExpression);
+		LOG.debug("Stated running the grouped Job | CRON expression : {}, Number of tasks : {}", cronExpression,
+				taskIds.size());
+
+		// a failing batch does not keep the other batches from being monitored
+		int failed = 0;
+		List<MonitoringBatch> inFlight = new ArrayList<MonitoringBatch>();
+		for (int from = 0; from < taskIds.size(); from += batchSize) {
+
+			List<Long> batch = taskIds.subList(from, Math.min(from + batchSize, taskIds.size()));
+			try {
+				inFlight.add(monitorService.startMonitoring(batch));
+			} catch (Exception e) {
+				failed += batch.size();
+				LOG.error("Failed to monitor a batch of tasks | CRON expression : " + cronExpression, e);
+			}
+		}
+
+		for (MonitoringBatch batch : inFlight) {
+			try {
+				monitorService.completeMonitoring(batch);
+			} catch (Exception e) {
+				failed += batch.getRequested();
+				LOG.error("Failed to monitor a batch of tasks | CRON expression : " + cronExpression, e);
+			}
+		}
+
+		if (failed > 0) {
+			throw new JobExecutionException(
+					"Failed to monitor " + failed + " tasks of the grouped job :" + cronExpression);
+		}
+		LOG.debug("Successfully executed the grouped Job | CRON expression : {}", cronExpression);
+	}
+}
@@ -0,0 +1,156 @@
+package com.globalrelay.servicemonitor.job.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.util.HashedTimingWheel;
+
+/**
+ * Schedules the extra checks of a service that failed while it is within the
+ * grace time of its task.
+ * <p>
+ * When the grace time is shorter than the polling interval of a task, waiting
+ * for the next regular fire would delay the failure notification by up to a
+ * whole interval. The monitor therefore asks this scheduler for a one-off
+ * recheck, which runs on a {@linkplain HashedTimingWheel} instead of adding
+ * Quartz jobs. At most one recheck is pending per task; once the service
+ * recovers or the grace time expires no further recheck is requested and the
+ * task falls back to its regular schedule.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class GraceRecheckScheduler {
+
+	private static Logger LOG = LoggerFactory.getLogger(GraceRecheckScheduler.class);
+
+	@Value("${servicemonitor.recheck.min-interval-millis:1000}")
+	private long minIntervalMillis = 1000L;
+
+	@Value("${servicemonitor.recheck.max-interval-millis:5000}")
+	private long maxIntervalMillis = 5000L;
+
+	@Value("${servicemonitor.recheck.worker-threads:2}")
+	private int workerThreads = 2;
+
+	private final ConcurrentMap<Long, RecheckTask> pending = new ConcurrentHashMap<Long, RecheckTask>();
+
+	private ExecutorService workers;
+
+	private HashedTimingWheel wheel;
+
+	/**
+	 * Starts the worker pool and the wheel thread
+	 */
+	@PostConstruct
+	public void start() {
+
+		AtomicInteger threadCount = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), r -> {
+			Thread thread = new Thread(r, "recheck-worker-" + threadCount.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		wheel = new HashedTimingWheel("recheck-wheel", 100L, 128, workers);
+		wheel.start();
+	}
+
+	/**
+	 * Stops the wheel thread and the worker pool. Pending rechecks are dropped.
+	 */
+	@PreDestroy
+	public void stop() {
+
+		wheel.stop();
+		workers.shutdown();
+		pending.clear();
+	}
+
+	/**
+	 * Schedules a recheck of a task whose service is failing within its grace
+	 * time. The recheck runs after the remaining grace time, but no later than the
+	 * maximum recheck interval and no sooner than the minimum recheck interval.
+	 * Does nothing if a recheck of the task is already pending.
+	 *
+	 * @param taskId               - Id of the task to be rechecked
+	 * @param remainingGraceMillis - Time left until the grace time of the task
+	 *                             expires
+	 * @param recheck              - Recheck to run
+	 * @return - True if a new recheck was scheduled
+	 */
+	public boolean scheduleRecheck(Long taskId, long remainingGraceMillis, Runnable recheck) {
+
+		RecheckTask task = new RecheckTask(taskId, recheck);
+		if (pending.putIfAbsent(taskId, task) != null) {
+			return false;
+		}
+
+		long delay = Math.max(minIntervalMillis, Math.min(remainingGraceMillis, maxIntervalMillis));
+		task.timeout = wheel.newTimeout(task, delay, TimeUnit.MILLISECONDS);
+		LOG.debug("Scheduled a grace time recheck | Task Id : {}, delay : {}", taskId, delay);
+		return true;
+	}
+
+	/**
+	 * Cancels the pending recheck of a task, if any
+	 *
+	 * @param taskId - Id of the task
+	 */
+	public void cancelRecheck(Long taskId) {
+
+		RecheckTask task = pending.remove(taskId);
+		if (task != null && task.timeout != null) {
+			task.timeout.cancel();
+		}
+	}
+
+	/**
+	 * @return - Number of rechecks currently pending
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * A recheck that releases the pending slot of its task before running, so the
+	 * recheck itself can request the next one
+	 */
+	private final class RecheckTask implements Runnable {
+
+		private final Long taskId;
+		private final Runnable recheck;
+		private volatile HashedTimingWheel.Timeout timeout;
+
+		private RecheckTask(Long taskId, Runnable recheck) {
+			this.taskId = taskId;
+			this.recheck = recheck;
+		}
+
+		@Override
+		public void run() {
+
+			// a cancelled recheck is no longer pending
+			if (!pending.remove(taskId, this)) {
+				return;
+			}
+			try {
+				recheck.run();
+			} catch (Exception e) {
+				LOG.error("Failed to run the grace time recheck | Task Id : " + taskId, e);
+			}
+		}
+	}
+}
@@ -6,28 +6,37 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
-import com.globalrelay.servicemonitor.configuration.ServiceMonitorApplicationConfiguration;
+import com.globalrelay.servicemonitor.constant.ServiceMonitorJobConstant;
 import com.globalrelay.servicemonitor.job.AbstractJob;
 
+/**
+ * The Quartz job scheduled for every task. It routes each fire to the
+ * {@linkplain AbstractJob} named in the job data, using the pre-wired instance
+ * held by the {@linkplain CachingJobFactory}.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
 @DisallowConcurrentExecution
 public class RouterJob implements Job {
 
 	private static Logger LOG = LoggerFactory.getLogger(RouterJob.class);
 
-	@SuppressWarnings("deprecation")
+	@Autowired
+	private CachingJobFactory jobFactory;
+
 	@Override
 	public void execute(JobExecutionContext context) throws JobExecutionException {
 
 		LOG.debug("Stated running the Job | Job context : {}", context);
-		String jobClass = context.getJobDetail().getJobDataMap().getString("jobClass");
+		String jobClass = context.getJobDetail().getJobDataMap().getString(ServiceMonitorJobConstant.JOB_CLASS_KEY);
 
 		try {
 
-			AbstractJob b = (AbstractJob) Class.forName(jobClass).newInstance();
-			ServiceMonitorApplicationConfiguration.getApplicationContext().getAutowireCapableBeanFactory()
-					.autowireBean(b);
-			b.execute(context);
+			AbstractJob job = jobFactory.getJob(jobClass);
+			job.execute(context);
 
 			LOG.debug("Successfully executed the Job | Job context : {}", context);
 
@@ -0,0 +1,43 @@
+package com.globalrelay.servicemonitor.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.globalrelay.servicemonitor.domain.MonitorNode;
+
+/**
+ * An JPA repository interface to perform CRUD operations on the MONITOR_NODE
+ * table. This class extends {@linkplain JpaRepository} and provides ORM
+ * mapping between database MONITOR_NODE table and MonitorNode java class.
+ * <p>
+ * During compile time Spring-JPA will automatically generates an implementation
+ * of this interface.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public interface MonitorNodeRepository extends JpaRepository<MonitorNode, String> {
+
+	/**
+	 * @param now - Current time
+	 * @return - Nodes whose lease has not expired
+	 */
+	public List<MonitorNode> findByLeaseExpiresAtAfter(LocalDateTime now);
+
+	/**
+	 * Removes the nodes whose lease expired before the given time
+	 * 
+	 * @param expiredBefore - Time before which the leases expired
+	 * @return - Number of nodes removed
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM MonitorNode n WHERE n.leaseExpiresAt < :expiredBefore")
+	public int deleteExpired(@Param("expiredBefore") LocalDateTime expiredBefore);
+}
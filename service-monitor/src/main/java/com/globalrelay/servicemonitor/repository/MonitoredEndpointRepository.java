@@ -0,0 +1,41 @@
+package com.globalrelay.servicemonitor.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+
+/**
+ * An JPA repository interface to perform CRUD operations on the ENDPOINT table.
+ * This class extends {@linkplain JpaRepository} and provides ORM mapping
+ * between database ENDPOINT table and MonitoredEndpoint java class.
+ * <p>
+ * During compile time Spring-JPA will automatically generates an implementation
+ * of this interface.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public interface MonitoredEndpointRepository extends JpaRepository<MonitoredEndpoint, Long> {
+
+	/**
+	 * Looks an endpoint up through the unique index on host name and port
+	 * 
+	 * @param hostName - Host name of the endpoint
+	 * @param port     - Port of the endpoint
+	 * @return - The endpoint, empty if it is not stored yet
+	 */
+	public Optional<MonitoredEndpoint> findByHostNameAndPort(String hostName, int port);
+
+	/**
+	 * Looks the endpoints of several hosts up in one query through the unique
+	 * index, whose leading column is the host name
+	 * 
+	 * @param hostNames - Host names of the endpoints
+	 * @return - The stored endpoints of those hosts, on any port
+	 */
+	public List<MonitoredEndpoint> findByHostNameIn(Collection<String> hostNames);
+}
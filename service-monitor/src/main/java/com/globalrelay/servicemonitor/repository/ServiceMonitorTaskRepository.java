@@ -1,12 +1,15 @@
 package com.globalrelay.servicemonitor.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.domain.TaskSummary;
 
 /**
  * An JPA repository interface to perform CRUD operations on the TASK
@@ -21,7 +24,70 @@ import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
  */
 public interface ServiceMonitorTaskRepository extends JpaRepository<ServiceMonitorTask, Long> {
 
-	@Query("SELECT t FROM ServiceMonitorTask t  WHERE t.status.hostName = :hostName and t.status.port = :port")
+	@Query("SELECT t FROM ServiceMonitorTask t JOIN t.status s JOIN s.endpoint e WHERE e.hostName = :hostName and e.port = :port")
 	public List<ServiceMonitorTask> findByHostNameAndPort(@Param("hostName") String hostName, @Param("port") int port);
 
+	/**
+	 * @param hostName - Host name of the endpoint
+	 * @param port     - Port of the endpoint
+	 * @return - Number of tasks monitoring the endpoint, stopped or not
+	 */
+	@Query("SELECT COUNT(t) FROM ServiceMonitorTask t JOIN t.status s JOIN s.endpoint e WHERE e.hostName = :hostName and e.port = :port")
+	public long countByHostNameAndPort(@Param("hostName") String hostName, @Param("port") int port);
+
+	/**
+	 * @return - Number of tasks that were not stopped
+	 */
+	public long countByStoppedFalse();
+
+	/**
+	 * Returns the next page of tasks that were not stopped, ordered by Id and
+	 * starting after the given Id. Paging on the Id instead of an offset keeps
+	 * every page equally cheap to read, and no count query is issued.
+	 * 
+	 * @param lastId   - Id of the last task of the previous page, or 0 for the
+	 *                 first page
+	 * @param pageable - Page size, always requesting the first page
+	 * @return - Next page of tasks
+	 */
+	@Query("SELECT t FROM ServiceMonitorTask t JOIN FETCH t.status s LEFT JOIN FETCH s.endpoint WHERE t.stopped = false AND t.id > :lastId ORDER BY t.id")
+	public List<ServiceMonitorTask> findScheduledAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+	/**
+	 * Returns the tasks with the given Ids together with their status and endpoint
+	 * in a single query
+	 * 
+	 * @param ids - Ids of the tasks
+	 * @return - Tasks found, in no particular order
+	 */
+	@Query("SELECT t FROM ServiceMonitorTask t JOIN FETCH t.status s LEFT JOIN FETCH s.endpoint WHERE t.id IN :ids")
+	public List<ServiceMonitorTask> findWithStatusByIdIn(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Returns the next page of the task listing, ordered by Id and starting after
+	 * the given Id. Only the listed columns of the task, its status and endpoint
+	 * are read, in a single query, and the page is located through the primary
+	 * key instead of an offset, so every page is equally cheap to read.
+	 * 
+	 * @param lastId   - Id of the last task of the previous page, or 0 for the
+	 *                 first page
+	 * @param pageable - Page size, always requesting the first page
+	 * @return - Next page of the listing
+	 */
+	@Query("SELECT new com.globalrelay.servicemonitor.domain.TaskSummary(t.id, t.name, t.stopped, t.email, t.graceTime, "
+			+ "t.outageFrom, t.outageTo, s.id, e.hostName, e.port, s.statusCd, s.lastFailedTime, s.cronExpression, "
+			+ "s.connectTimeout, s.lastOutcome, s.lastLatency) FROM ServiceMonitorTask t LEFT JOIN t.status s "
+			+ "LEFT JOIN s.endpoint e WHERE t.id > :lastId ORDER BY t.id")
+	public List<TaskSummary> findSummariesAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+	/**
+	 * Returns the Ids of the tasks ordered by Id, used to turn a row offset into
+	 * the Id a keyset page starts after. Only the primary key index is read.
+	 * 
+	 * @param pageable - Offset and number of Ids to read
+	 * @return - Ids of the tasks
+	 */
+	@Query("SELECT t.id FROM ServiceMonitorTask t ORDER BY t.id")
+	public List<Long> findIds(Pageable pageable);
+
 }
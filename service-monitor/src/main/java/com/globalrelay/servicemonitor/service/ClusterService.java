@@ -0,0 +1,39 @@
+package com.globalrelay.servicemonitor.service;
+
+import java.util.Set;
+
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+
+/**
+ * Service interface for running several monitor nodes as a cluster.
+ * <p>
+ * Concrete implementation of this interface should implement logic to track
+ * the live nodes of the cluster and split the monitored endpoints between them,
+ * so that every endpoint is probed, and its notifications are sent, by exactly
+ * one node
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public interface ClusterService {
+
+	/**
+	 * Concrete implementation of this method should return true if this node is
+	 * responsible for monitoring the given endpoint. Always true when cluster mode
+	 * is disabled
+	 * 
+	 * @param endpoint - Endpoint of a monitored service
+	 * @return - True if this node owns the endpoint
+	 */
+	public boolean isOwner(ServiceEndpoint endpoint);
+
+	/**
+	 * @return - Identifier of this node
+	 */
+	public String getNodeId();
+
+	/**
+	 * @return - Identifiers of the live nodes of the cluster
+	 */
+	public Set<String> getMembers();
+}
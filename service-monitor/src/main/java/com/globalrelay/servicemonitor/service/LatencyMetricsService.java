@@ -0,0 +1,46 @@
+package com.globalrelay.servicemonitor.service;
+
+import com.globalrelay.servicemonitor.domain.LatencyPercentiles;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+
+/**
+ * Service interface for connect latency metrics.
+ * <p>
+ * Concrete implementation of this interface should implement logic to record
+ * the connect latency of every probe and report latency percentiles per
+ * monitored service
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public interface LatencyMetricsService {
+
+	/**
+	 * Concrete implementation of this method should record the connect latency
+	 * of the given probe result against its endpoint
+	 * 
+	 * @param result - Result of a probe
+	 */
+	public void recordLatency(ProbeResult result);
+
+	/**
+	 * Concrete implementation of this method should drop the latencies recorded
+	 * for the given endpoint, once no task monitors it anymore
+	 * 
+	 * @param endpoint - Endpoint of the service no longer monitored
+	 */
+	public void forget(ServiceEndpoint endpoint);
+
+	/**
+	 * Concrete implementation of this method should return the latency
+	 * percentiles recorded for the given endpoint
+	 * 
+	 * @param endpoint - Endpoint of the monitored service
+	 * @return - Latency percentiles of the endpoint
+	 * @throws ServiceMonitorServiceException - Exception thrown if no latency has
+	 *                                        been recorded for the endpoint
+	 */
+	public LatencyPercentiles getLatencyPercentiles(ServiceEndpoint endpoint) throws ServiceMonitorServiceException;
+}
@@ -0,0 +1,45 @@
+package com.globalrelay.servicemonitor.service;
+
+import java.util.List;
+
+import com.globalrelay.servicemonitor.domain.ProbeRecord;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+
+/**
+ * Service interface for the probe history.
+ * <p>
+ * Concrete implementation of this interface should append the outcome of every
+ * probe to an append-only history without slowing down the probe, and return
+ * the history of a monitored service for a time range
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public interface ProbeHistoryService {
+
+	/**
+	 * Concrete implementation of this method should append the given probe result
+	 * to the history of the given endpoint. The method must not block the caller.
+	 * 
+	 * @param endpointId - Id of the monitored endpoint
+	 * @param result     - Result of a probe
+	 */
+	public void record(Long endpointId, ProbeResult result);
+
+	/**
+	 * Concrete implementation of this method should return the probe history of
+	 * the given endpoint within the given time range, ordered by time
+	 * 
+	 * @param endpoint - Endpoint of the monitored service
+	 * @param from     - Start of the range in epoch milliseconds, inclusive
+	 * @param to       - End of the range in epoch milliseconds, exclusive
+	 * @return - Probe records of the endpoint
+	 * @throws ServiceMonitorServiceException - Exception thrown if the endpoint is
+	 *                                        not monitored or the history could
+	 *                                        not be read
+	 */
+	public List<ProbeRecord> getHistory(ServiceEndpoint endpoint, long from, long to)
+			throws ServiceMonitorServiceException;
+}
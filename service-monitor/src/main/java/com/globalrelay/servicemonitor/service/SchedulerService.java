@@ -1,9 +1,10 @@
 package com.globalrelay.servicemonitor.service;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import java.util.List;
 
+import com.globalrelay.servicemonitor.domain.ServiceMonitorResponse;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.domain.TaskSummary;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
 
 /**
@@ -29,6 +30,19 @@ public interface SchedulerService {
 	 */
 	public ServiceMonitorTask createTask(ServiceMonitorTask task) throws ServiceMonitorServiceException;
 
+	/**
+	 * Concrete implementation of this method should create ServiceMonitorTask records in the
+	 * database using batched inserts and schedule all of them using a scheduler. Invalid
+	 * tasks are reported without failing the rest of the batch
+	 * 
+	 * @param tasks - ServiceMonitorTasks that need to be scheduled
+	 * @return Result of every input task, in the order of the input
+	 * @throws ServiceMonitorServiceException - Exception thrown if an error occurs
+	 *                                        while persisting or scheduling the valid tasks
+	 */
+	public List<ServiceMonitorResponse> createTasks(List<ServiceMonitorTask> tasks)
+			throws ServiceMonitorServiceException;
+
 	/**
 	 * Concrete implementation of this method should start a ServiceMonitorTask identified by the
 	 * input TaskId
@@ -74,14 +88,36 @@ public interface SchedulerService {
 	public ServiceMonitorTask getTask(Long taskId) throws ServiceMonitorServiceException;
 
 	/**
-	 * Concrete implementation of this method should search for Tasks identified by
-	 * the input Pageable criteria
+	 * Concrete implementation of this method should return the page of the task
+	 * listing that follows the given task Id, ordered by Id
 	 * 
-	 * @param pageAble - criteria to retrieve the records
+	 * @param afterId - Id of the last task of the previous page, or 0 for the
+	 *                first page
+	 * @param limit   - Maximum number of tasks of the page
 	 * @return Page of tasks
 	 * @throws ServiceMonitorServiceException - Exception thrown if an error occurs
-	 *                                        while searching for tasks based on
-	 *                                        input criteria
+	 *                                        while searching for tasks
+	 */
+	public List<TaskSummary> getTasks(Long afterId, int limit) throws ServiceMonitorServiceException;
+
+	/**
+	 * Concrete implementation of this method should return the Id a page starting
+	 * at the given row offset follows, for clients that page by offset
+	 * 
+	 * @param offset - Row offset of the page
+	 * @return Id of the task before the offset, or 0 for the first page
+	 * @throws ServiceMonitorServiceException - Exception thrown if an error occurs
+	 *                                        while searching for the task
+	 */
+	public Long getTaskIdBefore(int offset) throws ServiceMonitorServiceException;
+
+	/**
+	 * Concrete implementation of this method should return the number of tasks.
+	 * The number may be cached for a short time.
+	 * 
+	 * @return Number of tasks
+	 * @throws ServiceMonitorServiceException - Exception thrown if an error occurs
+	 *                                        while counting the tasks
 	 */
-	public Page<ServiceMonitorTask> getTasks(Pageable pageAble) throws ServiceMonitorServiceException;
+	public long getTaskCount() throws ServiceMonitorServiceException;
 }
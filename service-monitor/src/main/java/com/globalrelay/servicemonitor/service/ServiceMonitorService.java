@@ -1,5 +1,9 @@
 package com.globalrelay.servicemonitor.service;
 
+import java.util.Collection;
+import java.util.List;
+
+import com.globalrelay.servicemonitor.domain.MonitoringBatch;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
 
@@ -27,4 +31,43 @@ public interface ServiceMonitorService {
 	 *                                        while monitoring the service
 	 */
 	public ServiceMonitorStatus monitorStatus(Long taskId) throws ServiceMonitorServiceException;
+
+	/**
+	 * Concrete implementation of this method should monitor the services of all
+	 * the given tasks as one batch, loading the tasks together and probing their
+	 * services concurrently
+	 * 
+	 * @param taskIds - Ids of the tasks that contain the details of the services
+	 *                to be monitored
+	 * @return : Statuses of the services that were monitored
+	 * @throws ServiceMonitorServiceException : Exception thrown if there is failure
+	 *                                        while monitoring the services
+	 */
+	public List<ServiceMonitorStatus> monitorStatuses(Collection<Long> taskIds) throws ServiceMonitorServiceException;
+
+	/**
+	 * Concrete implementation of this method should load the given tasks and
+	 * start probing their services like {@link #monitorStatuses(Collection)}, but
+	 * return as soon as every probe is in flight. The batch must be passed to
+	 * {@link #completeMonitoring(MonitoringBatch)}.
+	 * 
+	 * @param taskIds - Ids of the tasks that contain the details of the services
+	 *                to be monitored
+	 * @return : Batch of tasks being monitored
+	 * @throws ServiceMonitorServiceException : Exception thrown if there is failure
+	 *                                        while starting to monitor the services
+	 */
+	public MonitoringBatch startMonitoring(Collection<Long> taskIds) throws ServiceMonitorServiceException;
+
+	/**
+	 * Concrete implementation of this method should wait for the probes of a
+	 * batch, no longer than their connect timeout, and update the statuses of its
+	 * tasks
+	 * 
+	 * @param batch - Batch returned by {@link #startMonitoring(Collection)}
+	 * @return : Statuses of the services that were monitored
+	 * @throws ServiceMonitorServiceException : Exception thrown if there is failure
+	 *                                        while monitoring the services
+	 */
+	public List<ServiceMonitorStatus> completeMonitoring(MonitoringBatch batch) throws ServiceMonitorServiceException;
 }
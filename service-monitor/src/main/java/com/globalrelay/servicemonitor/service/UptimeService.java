@@ -0,0 +1,57 @@
+package com.globalrelay.servicemonitor.service;
+
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.UptimeReport;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+
+/**
+ * Service interface for uptime and availability reporting.
+ * <p>
+ * Concrete implementation of this interface should maintain rolling counters
+ * of the probe outcomes incrementally, so the availability of a monitored
+ * service or of all monitored services is reported without reading the probe
+ * history
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public interface UptimeService {
+
+	/**
+	 * Concrete implementation of this method should count the outcome of the
+	 * given probe result against its endpoint and the whole fleet
+	 * 
+	 * @param result - Result of a probe
+	 */
+	public void recordOutcome(ProbeResult result);
+
+	/**
+	 * Concrete implementation of this method should drop the counters of the
+	 * given endpoint, once no task monitors it anymore. The outcomes already
+	 * counted against the fleet are kept.
+	 * 
+	 * @param endpoint - Endpoint of the service no longer monitored
+	 */
+	public void forget(ServiceEndpoint endpoint);
+
+	/**
+	 * Concrete implementation of this method should return the availability of
+	 * the given endpoint over the 1 hour, 24 hour, 7 day and 30 day windows
+	 * 
+	 * @param endpoint - Endpoint of the monitored service
+	 * @return - Availability of the endpoint
+	 * @throws ServiceMonitorServiceException - Exception thrown if no outcome has
+	 *                                        been recorded for the endpoint
+	 */
+	public UptimeReport getUptime(ServiceEndpoint endpoint) throws ServiceMonitorServiceException;
+
+	/**
+	 * Concrete implementation of this method should return the availability of
+	 * all monitored services together over the 1 hour, 24 hour, 7 day and 30 day
+	 * windows
+	 * 
+	 * @return - Availability of the fleet
+	 */
+	public UptimeReport getFleetUptime();
+}
@@ -0,0 +1,321 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.globalrelay.servicemonitor.domain.MonitorNode;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.repository.MonitorNodeRepository;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+import com.globalrelay.servicemonitor.service.ClusterService;
+import com.globalrelay.servicemonitor.util.ConsistentHashRing;
+
+/**
+ * An implementation of {@linkplain ClusterService} interface. Membership is
+ * kept as leases in the shared "monitor_node" table, and endpoints are split
+ * between the live nodes with a {@linkplain ConsistentHashRing}, so a node
+ * joining or leaving only moves the endpoints of its own slice.
+ * <p>
+ * Every node renews its lease on a fixed heartbeat and rebuilds its ring when
+ * the set of live nodes changes. Ownership is derived from the membership
+ * alone, so every node computes the same owner for an endpoint without further
+ * coordination. A node that fails to renew its own lease stops claiming any
+ * endpoint until it renews it again, and a node shutting down removes its
+ * lease so that its slice moves on the next heartbeat of the others. Changes
+ * take effect within one heartbeat, during which an endpoint may be probed by
+ * both its old and new owner.
+ * <p>
+ * The scheduler keeps its jobs in memory, so a task created, started, stopped
+ * or deleted through one node is not known to the schedulers of the others.
+ * Every node therefore synchronizes its schedule with the task table whenever
+ * the membership changes and on a fixed interval: the tasks are scanned in
+ * pages ordered by Id, jobs are created for the owned tasks that have none,
+ * and the jobs of tasks that are owned by other nodes, stopped or deleted are
+ * stopped. The synchronization runs on its own thread so that a long scan
+ * never delays the renewal of the lease.
+ * <p>
+ * Cluster mode is enabled with {@code servicemonitor.cluster.enabled=true}, and
+ * requires all nodes to share one database and to have clocks in sync well
+ * within the lease time.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Service
+public class ClusterServiceImpl implements ClusterService {
+
+	private static Logger LOG = LoggerFactory.getLogger(ClusterServiceImpl.class);
+
+	@Value("${servicemonitor.cluster.enabled:false}")
+	private boolean enabled;
+
+	@Value("${servicemonitor.cluster.node-id:}")
+	private String nodeId;
+
+	@Value("${servicemonitor.cluster.lease-millis:15000}")
+	private long leaseMillis = 15000L;
+
+	@Value("${servicemonitor.cluster.heartbeat-millis:5000}")
+	private long heartbeatMillis = 5000L;
+
+	@Value("${servicemonitor.cluster.virtual-nodes:128}")
+	private int virtualNodes = 128;
+
+	@Value("${servicemonitor.cluster.sync-millis:30000}")
+	private long syncMillis = 30000L;
+
+	@Value("${servicemonitor.cluster.sync-page-size:500}")
+	private int syncPageSize = 500;
+
+	@Resource
+	private MonitorNodeRepository nodeRepository;
+
+	@Resource
+	private ServiceMonitorTaskRepository taskRepository;
+
+	@Resource
+	private SchedulerFacade schedulerFacade;
+
+	private volatile ConsistentHashRing ring;
+
+	private volatile long renewedAt;
+
+	private volatile long syncedAt;
+
+	private final AtomicBoolean syncRequested = new AtomicBoolean();
+
+	private ScheduledExecutorService heartbeat;
+
+	private ScheduledExecutorService synchronizer;
+
+	/**
+	 * Joins the cluster and starts the heartbeat, if cluster mode is enabled
+	 */
+	@PostConstruct
+	public void start() {
+
+		if (!enabled) {
+			return;
+		}
+		if (StringUtils.isEmpty(nodeId)) {
+			// pid@hostname, unique for several JVMs on one machine
+			nodeId = ManagementFactory.getRuntimeMXBean().getName();
+		}
+
+		heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "cluster-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeat.scheduleWithFixedDelay(this::heartbeat, 0L, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+		synchronizer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "cluster-schedule-sync");
+			thread.setDaemon(true);
+			return thread;
+		});
+		synchronizer.scheduleWithFixedDelay(this::synchronizeIfDue, heartbeatMillis, heartbeatMillis,
+				TimeUnit.MILLISECONDS);
+		LOG.info("Started cluster membership | node : {}", nodeId);
+	}
+
+	/**
+	 * Stops the heartbeat and leaves the cluster
+	 */
+	@PreDestroy
+	public void stop() {
+
+		if (heartbeat == null) {
+			return;
+		}
+		heartbeat.shutdownNow();
+		synchronizer.shutdownNow();
+		try {
+			nodeRepository.deleteById(nodeId);
+			LOG.info("Left the cluster | node : {}", nodeId);
+		} catch (Exception e) {
+			LOG.warn("Failed to remove the cluster lease, it will expire | node : " + nodeId, e);
+		}
+	}
+
+	/**
+	 * Renews the lease of this node, removes long expired nodes and rebuilds the
+	 * ring if the set of live nodes changed
+	 */
+	void heartbeat() {
+
+		try {
+			long started = System.nanoTime();
+			LocalDateTime now = LocalDateTime.now();
+
+			Optional<MonitorNode> existing = nodeRepository.findById(nodeId);
+			MonitorNode node = existing.isPresent() ? existing.get() : new MonitorNode(nodeId, null);
+			node.setLeaseExpiresAt(now.plus(leaseMillis, ChronoUnit.MILLIS));
+			nodeRepository.save(node);
+			renewedAt = started;
+
+			nodeRepository.deleteExpired(now.minus(leaseMillis, ChronoUnit.MILLIS));
+
+			Set<String> members = new TreeSet<String>();
+			for (MonitorNode member : nodeRepository.findByLeaseExpiresAtAfter(now)) {
+				members.add(member.getNodeId());
+			}
+			members.add(nodeId);
+
+			ConsistentHashRing current = ring;
+			if (current == null || !current.getNodes().equals(members)) {
+				ring = new ConsistentHashRing(members, virtualNodes);
+				syncRequested.set(true);
+				LOG.info("Cluster membership changed | node : {}, members : {}", nodeId, members);
+			}
+		} catch (Exception e) {
+			LOG.error("Failed to renew the cluster lease | node : " + nodeId, e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.ClusterService#isOwner(com.globalrelay
+	 * .servicemonitor.domain.ServiceEndpoint)
+	 */
+	@Override
+	public boolean isOwner(ServiceEndpoint endpoint) {
+
+		if (!enabled) {
+			return true;
+		}
+		ConsistentHashRing current = ring;
+		if (current == null || !hasLease()) {
+			// without a valid lease other nodes may already own the slice
+			return false;
+		}
+		return nodeId.equals(current.getOwner(endpoint.getHostName() + ":" + endpoint.getPort()));
+	}
+
+	/**
+	 * Synchronizes the schedule if the membership changed since the last
+	 * synchronization or the synchronization interval has passed
+	 */
+	private void synchronizeIfDue() {
+
+		if (syncRequested.getAndSet(false)
+				|| System.nanoTime() - syncedAt >= TimeUnit.MILLISECONDS.toNanos(syncMillis)) {
+			synchronizeSchedule();
+		}
+	}
+
+	/**
+	 * Brings the jobs of this node in line with the slice of tasks it owns. Jobs
+	 * are created for owned tasks that have none, and stopped for tasks owned by
+	 * other nodes, stopped or deleted. A task changed while it is scanned is
+	 * corrected by the next synchronization.
+	 * 
+	 * @return - Number of jobs created or stopped
+	 */
+	int synchronizeSchedule() {
+
+		if (ring == null || !hasLease()) {
+			// without a valid lease the owned slice is unknown, keep the jobs as they are
+			return 0;
+		}
+		syncedAt = System.nanoTime();
+		int created = 0;
+		int stopped = 0;
+		try {
+			Set<String> unowned = new HashSet<String>(schedulerFacade.getJobIds());
+
+			Long lastId = 0L;
+			List<ServiceMonitorTask> page;
+			do {
+				page = taskRepository.findScheduledAfter(lastId, PageRequest.of(0, syncPageSize));
+				if (page.isEmpty()) {
+					break;
+				}
+				lastId = page.get(page.size() - 1).getId();
+
+				List<ServiceMonitorTask> missing = new ArrayList<ServiceMonitorTask>();
+				for (ServiceMonitorTask task : page) {
+					ServiceMonitorStatus status = task.getStatus();
+					if (isOwner(new ServiceEndpoint(status.getHostName(), status.getPort()))
+							&& !unowned.remove(task.getId().toString())) {
+						missing.add(task);
+					}
+				}
+				if (!missing.isEmpty()) {
+					schedulerFacade.createJobs(missing);
+					created += missing.size();
+				}
+			} while (page.size() == syncPageSize);
+
+			for (String id : unowned) {
+				schedulerFacade.stopJob(id);
+				stopped++;
+			}
+		} catch (Exception e) {
+			LOG.error("Failed to synchronize the schedule with the owned tasks | node : " + nodeId, e);
+		}
+
+		if (created + stopped > 0) {
+			LOG.info("Synchronized the schedule with the owned tasks | node : {}, created : {}, stopped : {}", nodeId,
+					created, stopped);
+		}
+		return created + stopped;
+	}
+
+	/**
+	 * @return - True if the lease of this node was renewed within the lease time
+	 */
+	private boolean hasLease() {
+		return System.nanoTime() - renewedAt <= TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.service.ClusterService#getNodeId()
+	 */
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.service.ClusterService#getMembers()
+	 */
+	@Override
+	public Set<String> getMembers() {
+
+		ConsistentHashRing current = ring;
+		return current == null ? Collections.<String>emptySet() : current.getNodes();
+	}
+}
@@ -0,0 +1,102 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.globalrelay.servicemonitor.domain.LatencyPercentiles;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
+import com.globalrelay.servicemonitor.util.LatencyHistogram;
+
+/**
+ * An implementation of {@linkplain LatencyMetricsService} interface. This class
+ * keeps one fixed memory {@linkplain LatencyHistogram} per monitored host and
+ * port.
+ * <p>
+ * Only successful connects are recorded, as the time taken by a refused or
+ * timed out connect says little about the health of a service.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Service
+public class LatencyMetricsServiceImpl implements LatencyMetricsService {
+
+	private static Logger LOG = LoggerFactory.getLogger(LatencyMetricsServiceImpl.class);
+
+	private final ConcurrentMap<ServiceEndpoint, LatencyHistogram> histograms = new ConcurrentHashMap<ServiceEndpoint, LatencyHistogram>();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.LatencyMetricsService#recordLatency(
+	 * com.globalrelay.servicemonitor.domain.ProbeResult)
+	 */
+	@Override
+	public void recordLatency(ProbeResult result) {
+
+		if (!result.isUp()) {
+			return;
+		}
+
+		LatencyHistogram histogram = histograms.get(result.getEndpoint());
+		if (histogram == null) {
+			histogram = histograms.computeIfAbsent(result.getEndpoint(), e -> new LatencyHistogram());
+		}
+		histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(result.getLatencyNanos()));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.LatencyMetricsService#forget(com.
+	 * globalrelay.servicemonitor.domain.ServiceEndpoint)
+	 */
+	@Override
+	public void forget(ServiceEndpoint endpoint) {
+
+		if (histograms.remove(endpoint) != null) {
+			LOG.debug("Dropped latency histogram | endpoint : {}", endpoint);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.service.LatencyMetricsService#
+	 * getLatencyPercentiles(com.globalrelay.servicemonitor.domain.ServiceEndpoint)
+	 */
+	@Override
+	public LatencyPercentiles getLatencyPercentiles(ServiceEndpoint endpoint) throws ServiceMonitorServiceException {
+
+		LOG.debug("Started to retrieve latency percentiles | endpoint : {}", endpoint);
+
+		LatencyHistogram histogram = histograms.get(endpoint);
+		if (histogram == null) {
+			throw new ServiceMonitorServiceException("No latency recorded for endpoint " + endpoint,
+					ErrorCode.SERVICE_ERROR);
+		}
+
+		LatencyPercentiles percentiles = new LatencyPercentiles();
+		percentiles.setHostName(endpoint.getHostName());
+		percentiles.setPort(endpoint.getPort());
+		percentiles.setCount(histogram.getTotalCount());
+		percentiles.setP50(histogram.getValueAtPercentile(50.0d));
+		percentiles.setP95(histogram.getValueAtPercentile(95.0d));
+		percentiles.setP99(histogram.getValueAtPercentile(99.0d));
+		percentiles.setMax(histogram.getMaxValue());
+
+		LOG.debug("Successfully retrieved latency percentiles | percentiles : {}", percentiles);
+		return percentiles;
+	}
+}
@@ -0,0 +1,259 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.ProbeRecord;
+import com.globalrelay.servicemonitor.util.ProbeBlockCodec;
+
+/**
+ * The compressed archive of the probe history.
+ * <p>
+ * Once a day of the probe history is closed, its table is rolled into the
+ * "probe_archive" table: the rows of every endpoint are encoded into columnar
+ * blocks with the {@linkplain ProbeBlockCodec}, one row per block, and the
+ * daily table can then be dropped. A block holds up to one day of samples of
+ * one endpoint together with its time range, so a range scan reads only the
+ * blocks of the requested endpoint and days through the index, and decodes
+ * them one sample at a time.
+ * <p>
+ * Archiving a day replaces the blocks already archived for that day in the same
+ * transaction, so a day archived again after an interrupted compaction is not
+ * stored twice.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class ProbeArchive {
+
+	private static Logger LOG = LoggerFactory.getLogger(ProbeArchive.class);
+
+	private static final String INSERT_SQL = "INSERT INTO probe_archive (endpoint_id, archive_day, first_time, "
+			+ "last_time, record_count, data) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final int INSERT_BATCH_SIZE = 500;
+
+	@Value("${servicemonitor.history.archive-block-size:8640}")
+	private int blockSize = 8640;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final AtomicLong archivedRecords = new AtomicLong();
+	private final AtomicLong archivedBytes = new AtomicLong();
+
+	/**
+	 * Creates the archive table, if it does not exist yet
+	 */
+	@PostConstruct
+	public void start() {
+
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS probe_archive (endpoint_id BIGINT NOT NULL, "
+				+ "archive_day DATE NOT NULL, first_time TIMESTAMP NOT NULL, last_time TIMESTAMP NOT NULL, "
+				+ "record_count INT NOT NULL, data BLOB NOT NULL)");
+		jdbcTemplate.execute(
+				"CREATE INDEX IF NOT EXISTS probe_archive_idx ON probe_archive (endpoint_id, archive_day)");
+		jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS probe_archive_day_idx ON probe_archive (archive_day)");
+	}
+
+	/**
+	 * Encodes all rows of a daily table of the probe history into blocks,
+	 * replacing the blocks archived for the day before
+	 *
+	 * @param table - Name of the daily table
+	 * @param day   - UTC day of the table
+	 * @return - Number of records archived
+	 */
+	@Transactional
+	public int archive(String table, LocalDate day) {
+
+		LOG.debug("Started to archive probe history | partition : {}", table);
+		jdbcTemplate.update("DELETE FROM probe_archive WHERE archive_day = ?", Date.valueOf(day));
+
+		// blocks are written in batches as soon as they are complete, so a day is never held in memory
+		List<Block> pending = new ArrayList<Block>(INSERT_BATCH_SIZE);
+		Block[] current = new Block[1];
+		long[] totals = new long[3];
+		jdbcTemplate.query("SELECT endpoint_id, probe_time, outcome, latency_nanos FROM " + table
+				+ " ORDER BY endpoint_id, probe_time", rs -> {
+					long endpointId = rs.getLong(1);
+					if (current[0] == null || current[0].endpointId != endpointId
+							|| current[0].encoder.getCount() >= blockSize) {
+						if (current[0] != null) {
+							pending.add(current[0].complete());
+							if (pending.size() >= INSERT_BATCH_SIZE) {
+								insert(pending, day, totals);
+							}
+						}
+						current[0] = new Block(endpointId);
+					}
+					current[0].add(rs.getTimestamp(2).getTime(), ProbeOutcome.valueOf(rs.getString(3)).ordinal(),
+							rs.getLong(4));
+				});
+		if (current[0] != null) {
+			pending.add(current[0].complete());
+		}
+		insert(pending, day, totals);
+
+		archivedRecords.addAndGet(totals[0]);
+		archivedBytes.addAndGet(totals[2]);
+		LOG.info("Archived probe history | partition : {}, records : {}, blocks : {}, bytes : {}", table, totals[0],
+				totals[1], totals[2]);
+		return (int) totals[0];
+	}
+
+	/**
+	 * Private method to write and clear a batch of complete blocks
+	 *
+	 * @param blocks - Complete blocks
+	 * @param day    - UTC day of the blocks
+	 * @param totals - Number of records, blocks and bytes written, to add to
+	 */
+	private void insert(List<Block> blocks, LocalDate day, long[] totals) {
+
+		if (blocks.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				Block block = blocks.get(i);
+				ps.setLong(1, block.endpointId);
+				ps.setDate(2, Date.valueOf(day));
+				ps.setTimestamp(3, new Timestamp(block.firstTime));
+				ps.setTimestamp(4, new Timestamp(block.lastTime));
+				ps.setInt(5, block.count);
+				ps.setBytes(6, block.data);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return blocks.size();
+			}
+		});
+		for (Block block : blocks) {
+			totals[0] += block.count;
+			totals[1]++;
+			totals[2] += block.data.length;
+		}
+		blocks.clear();
+	}
+
+	/**
+	 * Decodes the archived samples of an endpoint within a time range, ordered by
+	 * time, passing them to the given visitor as the blocks are read
+	 *
+	 * @param endpointId - Id of the monitored endpoint
+	 * @param fromDay    - First UTC day to read
+	 * @param toDay      - Last UTC day to read
+	 * @param from       - Start of the range in epoch milliseconds, inclusive
+	 * @param to         - End of the range in epoch milliseconds, exclusive
+	 * @param visitor    - Visitor called for every sample within the range
+	 */
+	public void scan(long endpointId, LocalDate fromDay, LocalDate toDay, long from, long to, RecordVisitor visitor) {
+
+		ProbeOutcome[] outcomes = ProbeOutcome.values();
+		jdbcTemplate.query("SELECT data FROM probe_archive WHERE endpoint_id = ? AND archive_day BETWEEN ? AND ? "
+				+ "AND last_time >= ? AND first_time < ? ORDER BY first_time", rs -> {
+					ProbeBlockCodec.Reader reader = new ProbeBlockCodec.Reader(rs.getBytes(1));
+					while (reader.hasNext()) {
+						reader.next();
+						long timestamp = reader.getTimestamp();
+						if (timestamp >= from && timestamp < to) {
+							visitor.visit(new ProbeRecord(endpointId, timestamp, outcomes[reader.getOutcome()],
+									reader.getLatency()));
+						}
+					}
+				}, endpointId, Date.valueOf(fromDay), Date.valueOf(toDay), new Timestamp(from), new Timestamp(to));
+	}
+
+	/**
+	 * Deletes the blocks of the days before the given day
+	 *
+	 * @param day - Oldest UTC day to keep
+	 * @return - Number of blocks deleted
+	 */
+	public int deleteBefore(LocalDate day) {
+		return jdbcTemplate.update("DELETE FROM probe_archive WHERE archive_day < ?", Date.valueOf(day));
+	}
+
+	/**
+	 * @return - Number of records archived since startup
+	 */
+	public long getArchivedRecords() {
+		return archivedRecords.get();
+	}
+
+	/**
+	 * @return - Number of encoded bytes archived since startup
+	 */
+	public long getArchivedBytes() {
+		return archivedBytes.get();
+	}
+
+	/**
+	 * Callback receiving the samples of an archive scan
+	 */
+	@FunctionalInterface
+	public interface RecordVisitor {
+
+		/**
+		 * @param record - Decoded probe record
+		 */
+		void visit(ProbeRecord record);
+	}
+
+	/**
+	 * The samples of one endpoint being encoded
+	 */
+	private static final class Block {
+
+		private final long endpointId;
+		private ProbeBlockCodec.Encoder encoder = new ProbeBlockCodec.Encoder();
+		private long firstTime;
+		private long lastTime;
+		private int count;
+		private byte[] data;
+
+		private Block(long endpointId) {
+			this.endpointId = endpointId;
+		}
+
+		private void add(long timestamp, int outcome, long latency) {
+
+			if (encoder.getCount() == 0) {
+				firstTime = timestamp;
+			}
+			lastTime = timestamp;
+			encoder.add(timestamp, outcome, latency);
+		}
+
+		private Block complete() {
+
+			count = encoder.getCount();
+			data = encoder.toByteArray();
+			encoder = null;
+			return this;
+		}
+	}
+}
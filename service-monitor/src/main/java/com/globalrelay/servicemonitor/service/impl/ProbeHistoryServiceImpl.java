@@ -0,0 +1,534 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ProbeRecord;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.repository.MonitoredEndpointRepository;
+import com.globalrelay.servicemonitor.service.ProbeHistoryService;
+
+/**
+ * An implementation of {@linkplain ProbeHistoryService} that keeps the probe
+ * history in one table per day.
+ * <p>
+ * Recording a probe only offers a {@linkplain ProbeRecord} to a bounded queue,
+ * so the probe thread never waits on the database. A single writer thread
+ * drains the queue on a fixed interval, and as soon as a full batch is
+ * waiting, and appends the records to the table of the UTC day they belong to
+ * in one JDBC batch insert per day. Rows are never updated. When the queue is
+ * full the probe is not recorded and counted as dropped instead.
+ * <p>
+ * The daily tables are named "probe_history_yyyyMMdd" and are created on first
+ * use with an index on the endpoint and time. Once a day is older than the
+ * retention period its table is dropped as a whole, so expiring history costs
+ * one statement per day instead of deleting rows.
+ * <p>
+ * A day is closed once it ended longer than the compaction delay ago. The
+ * table of a closed day is rolled into the compressed {@linkplain ProbeArchive}
+ * and then dropped, and records of a closed day that arrive late are dropped
+ * instead of creating its table again. Reads take the rows of a day from its
+ * table while it exists and from the archive afterwards.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Service
+public class ProbeHistoryServiceImpl implements ProbeHistoryService {
+
+	private static Logger LOG = LoggerFactory.getLogger(ProbeHistoryServiceImpl.class);
+
+	static final String PARTITION_PREFIX = "probe_history_";
+
+	private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+	@Value("${servicemonitor.history.enabled:true}")
+	private boolean enabled = true;
+
+	@Value("${servicemonitor.history.queue-capacity:100000}")
+	private int queueCapacity = 100000;
+
+	@Value("${servicemonitor.history.batch-size:1000}")
+	private int batchSize = 1000;
+
+	@Value("${servicemonitor.history.flush-millis:1000}")
+	private long flushMillis = 1000L;
+
+	@Value("${servicemonitor.history.retention-days:30}")
+	private int retentionDays = 30;
+
+	@Value("${servicemonitor.history.retention-check-millis:3600000}")
+	private long retentionCheckMillis = 3600000L;
+
+	@Value("${servicemonitor.history.compaction-enabled:true}")
+	private boolean compactionEnabled = true;
+
+	@Value("${servicemonitor.history.compact-after-millis:3600000}")
+	private long compactAfterMillis = 3600000L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Resource
+	private MonitoredEndpointRepository endpointRepository;
+
+	@Autowired
+	private ProbeArchive probeArchive;
+
+	private final Set<LocalDate> partitions = ConcurrentHashMap.newKeySet();
+
+	// held for writing only while a table is dropped, so reads never query a table that is gone
+	private final ReadWriteLock partitionLock = new ReentrantReadWriteLock();
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong droppedPartitionCount = new AtomicLong();
+	private final AtomicLong compactedPartitionCount = new AtomicLong();
+
+	private BlockingQueue<ProbeRecord> queue;
+
+	private ScheduledExecutorService writer;
+
+	/**
+	 * Loads the existing daily tables and starts the periodic flush and
+	 * retention, if the history is enabled
+	 */
+	@PostConstruct
+	public void start() {
+
+		queue = new ArrayBlockingQueue<ProbeRecord>(Math.max(1, queueCapacity));
+		if (!enabled) {
+			return;
+		}
+		partitions.addAll(listPartitions());
+
+		writer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "probe-history-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writer.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+		writer.scheduleWithFixedDelay(this::maintain, 0L, retentionCheckMillis, TimeUnit.MILLISECONDS);
+		LOG.info("Started probe history | partitions : {}, retention days : {}", partitions.size(), retentionDays);
+	}
+
+	/**
+	 * Stops the writer thread and writes all queued records
+	 */
+	@PreDestroy
+	public void stop() {
+
+		if (writer == null) {
+			return;
+		}
+		writer.shutdown();
+		try {
+			writer.awaitTermination(flushMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		LOG.info("Flushed probe history on shutdown | written : {}, dropped : {}", writtenCount.get(),
+				droppedCount.get());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.service.ProbeHistoryService#record(java.lang.
+	 * Long, com.globalrelay.servicemonitor.domain.ProbeResult)
+	 */
+	@Override
+	public void record(Long endpointId, ProbeResult result) {
+
+		if (!enabled || endpointId == null) {
+			return;
+		}
+		if (!queue.offer(new ProbeRecord(endpointId, result.getTimestamp(), result.getOutcome(),
+				result.getLatencyNanos()))) {
+			droppedCount.incrementAndGet();
+			return;
+		}
+
+		if (queue.size() >= batchSize && writer != null && flushRequested.compareAndSet(false, true)) {
+			try {
+				writer.execute(this::flush);
+			} catch (Exception e) {
+				flushRequested.set(false);
+				LOG.warn("Failed to request an early flush of the probe history", e);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.service.ProbeHistoryService#getHistory(com.
+	 * globalrelay.servicemonitor.domain.ServiceEndpoint, long, long)
+	 */
+	@Override
+	public List<ProbeRecord> getHistory(ServiceEndpoint endpoint, long from, long to)
+			throws ServiceMonitorServiceException {
+
+		LOG.debug("Started to retrieve probe history | endpoint : {}, from : {}, to : {}", endpoint, from, to);
+		MonitoredEndpoint monitored = endpointRepository
+				.findByHostNameAndPort(ServiceEndpoint.normalizeHostName(endpoint.getHostName()), endpoint.getPort())
+				.orElseThrow(() -> new ServiceMonitorServiceException("Endpoint is not monitored : " + endpoint,
+						ErrorCode.SERVICE_ERROR));
+
+		List<ProbeRecord> records = new ArrayList<ProbeRecord>();
+		if (from >= to) {
+			return records;
+		}
+		partitionLock.readLock().lock();
+		try {
+			LocalDate last = toDay(to - 1);
+			for (LocalDate day = toDay(from); !day.isAfter(last); day = day.plusDays(1)) {
+				if (partitions.contains(day)) {
+					records.addAll(jdbcTemplate.query("SELECT endpoint_id, probe_time, outcome, latency_nanos FROM "
+							+ partitionName(day)
+							+ " WHERE endpoint_id = ? AND probe_time >= ? AND probe_time < ? ORDER BY probe_time",
+							(rs, rowNum) -> toRecord(rs), monitored.getId(), new Timestamp(from), new Timestamp(to)));
+				} else if (compactionEnabled) {
+					probeArchive.scan(monitored.getId(), day, day, from, to, records::add);
+				}
+			}
+		} catch (Exception e) {
+			throw new ServiceMonitorServiceException("Failed to read the probe history of " + endpoint, e,
+					ErrorCode.SERVICE_ERROR);
+		} finally {
+			partitionLock.readLock().unlock();
+		}
+
+		LOG.debug("Successfully retrieved probe history | endpoint : {}, records : {}", endpoint, records.size());
+		return records;
+	}
+
+	/**
+	 * Appends all queued records to their daily tables, in batches of at most the
+	 * configured batch size
+	 *
+	 * @return - Number of records written
+	 */
+	public synchronized int flush() {
+
+		flushRequested.set(false);
+		int written = 0;
+		List<ProbeRecord> batch = new ArrayList<ProbeRecord>(Math.min(batchSize, queue.size() + 1));
+		while (queue.drainTo(batch, batchSize) > 0) {
+			written += write(batch);
+			batch.clear();
+		}
+		return written;
+	}
+
+	/**
+	 * Drops the history past the retention period, then compacts the tables of
+	 * the closed days
+	 */
+	public void maintain() {
+
+		dropExpired();
+		if (compactionEnabled) {
+			compact(closedBefore(System.currentTimeMillis()));
+		}
+	}
+
+	/**
+	 * Drops the daily tables and the archived blocks that are older than the
+	 * retention period
+	 *
+	 * @return - Number of tables dropped
+	 */
+	public synchronized int dropExpired() {
+
+		LocalDate oldest = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+		int dropped = 0;
+		try {
+			for (LocalDate day : listPartitions()) {
+				if (!day.isBefore(oldest)) {
+					continue;
+				}
+				dropPartition(day);
+				dropped++;
+				LOG.info("Dropped expired probe history | partition : {}", partitionName(day));
+			}
+			if (compactionEnabled) {
+				probeArchive.deleteBefore(oldest);
+			}
+		} catch (Exception e) {
+			LOG.error("Failed to drop expired probe history", e);
+		}
+		droppedPartitionCount.addAndGet(dropped);
+		return dropped;
+	}
+
+	/**
+	 * Rolls the daily tables of the days before the given day into the archive
+	 * and drops them
+	 *
+	 * @param before - First UTC day that is not compacted
+	 * @return - Number of tables compacted
+	 */
+	public synchronized int compact(LocalDate before) {
+
+		int compacted = 0;
+		for (LocalDate day : listPartitions()) {
+			if (!day.isBefore(before)) {
+				continue;
+			}
+			try {
+				probeArchive.archive(partitionName(day), day);
+				dropPartition(day);
+				compacted++;
+			} catch (Exception e) {
+				LOG.error("Failed to compact probe history, retrying with the next run | partition : "
+						+ partitionName(day), e);
+			}
+		}
+		compactedPartitionCount.addAndGet(compacted);
+		return compacted;
+	}
+
+	/**
+	 * @return - Number of records waiting to be written
+	 */
+	public int getQueuedCount() {
+		return queue.size();
+	}
+
+	/**
+	 * @return - Number of records written since startup
+	 */
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	/**
+	 * @return - Number of records dropped since startup, because the queue was
+	 *         full or the batch could not be written
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * @return - Number of daily tables currently holding history
+	 */
+	public int getPartitionCount() {
+		return partitions.size();
+	}
+
+	/**
+	 * @return - Number of daily tables compacted into the archive since startup
+	 */
+	public long getCompactedPartitionCount() {
+		return compactedPartitionCount.get();
+	}
+
+	/**
+	 * @return - Number of daily tables dropped since startup
+	 */
+	public long getDroppedPartitionCount() {
+		return droppedPartitionCount.get();
+	}
+
+	/**
+	 * Private method to append a batch of records, grouped by the day they belong
+	 * to
+	 *
+	 * @param batch - Records to be written
+	 * @return - Number of records written
+	 */
+	private int write(List<ProbeRecord> batch) {
+
+		LocalDate closed = compactionEnabled ? closedBefore(System.currentTimeMillis()) : LocalDate.MIN;
+		Map<LocalDate, List<ProbeRecord>> byDay = new TreeMap<LocalDate, List<ProbeRecord>>();
+		int late = 0;
+		for (ProbeRecord record : batch) {
+			LocalDate day = toDay(record.getTimestamp());
+			if (day.isBefore(closed)) {
+				late++;
+				continue;
+			}
+			byDay.computeIfAbsent(day, d -> new ArrayList<ProbeRecord>()).add(record);
+		}
+		if (late > 0) {
+			droppedCount.addAndGet(late);
+			LOG.warn("Dropped probe history of closed days | records : {}", late);
+		}
+
+		int written = 0;
+		for (Map.Entry<LocalDate, List<ProbeRecord>> entry : byDay.entrySet()) {
+			List<ProbeRecord> records = entry.getValue();
+			try {
+				createPartition(entry.getKey());
+				jdbcTemplate.batchUpdate("INSERT INTO " + partitionName(entry.getKey())
+						+ " (endpoint_id, probe_time, outcome, latency_nanos) VALUES (?, ?, ?, ?)",
+						new BatchPreparedStatementSetter() {
+
+							@Override
+							public void setValues(PreparedStatement ps, int i) throws SQLException {
+								ProbeRecord record = records.get(i);
+								ps.setLong(1, record.getEndpointId());
+								ps.setTimestamp(2, new Timestamp(record.getTimestamp()));
+								ps.setString(3, record.getOutcome().name());
+								ps.setLong(4, record.getLatencyNanos());
+							}
+
+							@Override
+							public int getBatchSize() {
+								return records.size();
+							}
+						});
+				written += records.size();
+			} catch (Exception e) {
+				droppedCount.addAndGet(records.size());
+				LOG.error("Failed to write probe history | partition : " + partitionName(entry.getKey())
+						+ ", records : " + records.size(), e);
+			}
+		}
+		writtenCount.addAndGet(written);
+		LOG.debug("Wrote probe history | written : {}", written);
+		return written;
+	}
+
+	/**
+	 * Private method to create the table of a day, if it does not exist yet
+	 *
+	 * @param day - UTC day of the table
+	 */
+	private void createPartition(LocalDate day) {
+
+		if (partitions.contains(day)) {
+			return;
+		}
+		String table = partitionName(day);
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (endpoint_id BIGINT NOT NULL, "
+				+ "probe_time TIMESTAMP NOT NULL, outcome VARCHAR(16) NOT NULL, latency_nanos BIGINT NOT NULL)");
+		jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_idx ON " + table + " (endpoint_id, probe_time)");
+		partitions.add(day);
+		LOG.info("Created probe history partition | partition : {}", table);
+	}
+
+	/**
+	 * Private method to drop the table of a day
+	 *
+	 * @param day - UTC day of the table
+	 */
+	private void dropPartition(LocalDate day) {
+
+		partitionLock.writeLock().lock();
+		try {
+			partitions.remove(day);
+			jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+		} finally {
+			partitionLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return - First UTC day that is not closed at the given time
+	 */
+	private LocalDate closedBefore(long now) {
+		return toDay(now - compactAfterMillis);
+	}
+
+	/**
+	 * Private method to find the daily tables in the database
+	 *
+	 * @return - Days of the existing tables, in ascending order
+	 */
+	private Set<LocalDate> listPartitions() {
+
+		return jdbcTemplate.execute((ConnectionCallback<Set<LocalDate>>) connection -> {
+			Set<LocalDate> days = new TreeSet<LocalDate>();
+			DatabaseMetaData metaData = connection.getMetaData();
+			try (ResultSet tables = metaData.getTables(null, null, "%", new String[] { "TABLE" })) {
+				while (tables.next()) {
+					LocalDate day = toPartitionDay(tables.getString("TABLE_NAME"));
+					if (day != null) {
+						days.add(day);
+					}
+				}
+			}
+			return days;
+		});
+	}
+
+	static String partitionName(LocalDate day) {
+		return PARTITION_PREFIX + PARTITION_FORMAT.format(day);
+	}
+
+	/**
+	 * @return - Day of the given daily table, or null if the table is not a daily
+	 *         table of the probe history
+	 */
+	static LocalDate toPartitionDay(String table) {
+
+		if (table == null || !table.toLowerCase(Locale.ROOT).startsWith(PARTITION_PREFIX)) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(table.substring(PARTITION_PREFIX.length()), PARTITION_FORMAT);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private static LocalDate toDay(long epochMillis) {
+		return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC).toLocalDate();
+	}
+
+	private static ProbeRecord toRecord(ResultSet rs) throws SQLException {
+		return new ProbeRecord(rs.getLong("endpoint_id"), rs.getTimestamp("probe_time").getTime(),
+				ProbeOutcome.valueOf(rs.getString("outcome")), rs.getLong("latency_nanos"));
+	}
+}
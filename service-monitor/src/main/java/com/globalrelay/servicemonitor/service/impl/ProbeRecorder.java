@@ -0,0 +1,59 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
+import com.globalrelay.servicemonitor.service.ProbeHistoryService;
+import com.globalrelay.servicemonitor.service.UptimeService;
+import com.globalrelay.servicemonitor.strategy.ProbeListener;
+
+/**
+ * An implementation of {@linkplain ProbeListener} recording every completed
+ * probe in the latency histograms, the uptime counters, the probe history and
+ * the recent samples.
+ * <p>
+ * Results are recorded where the probe completes rather than once per task,
+ * so a probe shared by several tasks of the same endpoint is counted once.
+ * History and samples are recorded against the endpoint Id carried by the
+ * probed endpoint.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class ProbeRecorder implements ProbeListener {
+
+	@Resource
+	private LatencyMetricsService latencyMetricsService;
+
+	@Resource
+	private UptimeService uptimeService;
+
+	@Resource
+	private ProbeHistoryService probeHistoryService;
+
+	@Resource
+	private RecentSampleStore recentSampleStore;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.strategy.ProbeListener#probeCompleted(com.
+	 * globalrelay.servicemonitor.domain.ProbeResult)
+	 */
+	@Override
+	public void probeCompleted(ProbeResult result) {
+
+		latencyMetricsService.recordLatency(result);
+		uptimeService.recordOutcome(result);
+		Long endpointId = result.getEndpoint().getEndpointId();
+		if (endpointId != null) {
+			probeHistoryService.record(endpointId, result);
+			recentSampleStore.record(endpointId, result);
+		}
+	}
+}
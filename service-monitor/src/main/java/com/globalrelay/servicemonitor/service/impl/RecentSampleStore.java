@@ -0,0 +1,293 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ProbeRecord;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.repository.MonitoredEndpointRepository;
+import com.globalrelay.servicemonitor.util.ConsistentHashRing;
+import com.globalrelay.servicemonitor.util.MappedSampleRing;
+
+/**
+ * Keeps the last probe samples (outcome and latency) of every endpoint in
+ * memory-mapped files for dashboards.
+ * <p>
+ * Every {@linkplain MonitoredEndpoint} owns a fixed slot in a
+ * {@linkplain MappedSampleRing}, found directly from its Id: files are named
+ * "samples-N.dat" and each holds the slots of a fixed range of consecutive
+ * Ids, so no index has to be kept or loaded. Files are created the first time
+ * a sample of their range is recorded and mapped again on restart, which makes
+ * the recent history available immediately. Recording a sample overwrites the
+ * oldest sample of the endpoint in place, and reading visits the samples
+ * directly in the mapped file.
+ * <p>
+ * Samples are recorded on the thread completing the probe, so creating and
+ * mapping a file, which writes every slot header of a new file, is left to a
+ * dedicated thread. The samples of a range are dropped until its file is
+ * mapped, and the existing files are mapped again by that thread on start.
+ * <p>
+ * Ids are not stable across restarts while the files are, so a slot is keyed
+ * by a hash of the normalized host and port of its endpoint rather than by the
+ * Id. An endpoint given the Id of a former endpoint then starts with an empty
+ * slot instead of being served the samples of the former one.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class RecentSampleStore {
+
+	private static Logger LOG = LoggerFactory.getLogger(RecentSampleStore.class);
+
+	@Value("${servicemonitor.samples.enabled:true}")
+	private boolean enabled = true;
+
+	@Value("${servicemonitor.samples.directory:${java.io.tmpdir}/servicemonitor/samples}")
+	private String directory;
+
+	@Value("${servicemonitor.samples.per-endpoint:256}")
+	private int samplesPerEndpoint = 256;
+
+	@Value("${servicemonitor.samples.endpoints-per-file:16384}")
+	private int endpointsPerFile = 16384;
+
+	@Resource
+	private MonitoredEndpointRepository endpointRepository;
+
+	private static final Pattern FILE_NAME = Pattern.compile("samples-(\\d+)\\.dat");
+
+	private final ConcurrentMap<Long, MappedSampleRing> files = new ConcurrentHashMap<Long, MappedSampleRing>();
+
+	// indexes of the files waiting to be mapped by the mapper thread
+	private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+	private ExecutorService mapper;
+
+	/**
+	 * Starts the thread mapping the sample files and maps the existing files
+	 * again, if the store is enabled
+	 */
+	@PostConstruct
+	public void start() {
+
+		if (!enabled) {
+			return;
+		}
+		mapper = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "sample-file-mapper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		File[] existing = new File(directory).listFiles();
+		if (existing != null) {
+			for (File file : existing) {
+				Matcher matcher = FILE_NAME.matcher(file.getName());
+				if (matcher.matches()) {
+					requestMapping(Long.parseLong(matcher.group(1)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the mapper thread and unmaps all files after writing their changes
+	 */
+	@PreDestroy
+	public void stop() {
+
+		if (mapper != null) {
+			mapper.shutdownNow();
+			try {
+				mapper.awaitTermination(5L, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			mapper = null;
+		}
+		pending.clear();
+		files.values().forEach(MappedSampleRing::close);
+		files.clear();
+	}
+
+	/**
+	 * Records the outcome and latency of a probe as the newest sample of an
+	 * endpoint. The sample is dropped if the file of the endpoint is not mapped
+	 * yet, and the file is then mapped in the background.
+	 *
+	 * @param endpointId - Id of the monitored endpoint
+	 * @param result     - Result of a probe of the endpoint
+	 */
+	public void record(Long endpointId, ProbeResult result) {
+
+		if (!enabled || endpointId == null || endpointId <= 0) {
+			return;
+		}
+		long index = index(endpointId);
+		MappedSampleRing ring = files.get(index);
+		if (ring == null) {
+			requestMapping(index);
+			return;
+		}
+		ServiceEndpoint endpoint = result.getEndpoint();
+		ring.append(slot(endpointId), key(endpoint.getHostName(), endpoint.getPort()), result.getTimestamp(),
+				result.getOutcome().ordinal(), result.getLatencyNanos());
+	}
+
+	/**
+	 * Visits the most recent samples of an endpoint directly in the mapped file,
+	 * newest first. The type of every sample is the ordinal of its
+	 * {@linkplain ProbeOutcome} and its value the latency in nanoseconds.
+	 *
+	 * @param endpoint - Monitored endpoint
+	 * @param limit    - Maximum number of samples to visit
+	 * @param visitor  - Visitor called for every sample
+	 * @return - Number of samples visited
+	 */
+	public int forEachRecent(MonitoredEndpoint endpoint, int limit, MappedSampleRing.SampleVisitor visitor) {
+
+		Long endpointId = endpoint.getId();
+		if (endpointId == null || endpointId <= 0) {
+			return 0;
+		}
+		MappedSampleRing ring = map(index(endpointId), false);
+		return ring == null ? 0
+				: ring.read(slot(endpointId), key(endpoint.getHostName(), endpoint.getPort()), limit, visitor);
+	}
+
+	/**
+	 * Returns the most recent samples of a monitored service, newest first
+	 *
+	 * @param endpoint - Endpoint of the monitored service
+	 * @param limit    - Maximum number of samples to return
+	 * @return - Recent samples of the endpoint
+	 * @throws ServiceMonitorServiceException - Exception thrown if the endpoint is
+	 *                                        not monitored
+	 */
+	public List<ProbeRecord> getRecent(ServiceEndpoint endpoint, int limit) throws ServiceMonitorServiceException {
+
+		MonitoredEndpoint monitored = endpointRepository
+				.findByHostNameAndPort(ServiceEndpoint.normalizeHostName(endpoint.getHostName()), endpoint.getPort())
+				.orElseThrow(() -> new ServiceMonitorServiceException("Endpoint is not monitored : " + endpoint,
+						ErrorCode.SERVICE_ERROR));
+
+		long endpointId = monitored.getId();
+		ProbeOutcome[] outcomes = ProbeOutcome.values();
+		List<ProbeRecord> samples = new ArrayList<ProbeRecord>(Math.min(Math.max(0, limit), samplesPerEndpoint));
+		forEachRecent(monitored, limit, (timestamp, type, value) -> samples
+				.add(new ProbeRecord(endpointId, timestamp, outcomes[type], value)));
+		return samples;
+	}
+
+	/**
+	 * @return - Number of sample files currently mapped
+	 */
+	public int getFileCount() {
+		return files.size();
+	}
+
+	/**
+	 * Private method to have a file created and mapped by the mapper thread,
+	 * unless it is already waiting to be mapped
+	 *
+	 * @param index - Index of the file
+	 */
+	private void requestMapping(long index) {
+
+		ExecutorService executor = mapper;
+		if (executor == null || !pending.add(index)) {
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					map(index, true);
+				} finally {
+					pending.remove(index);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			pending.remove(index);
+		}
+	}
+
+	/**
+	 * Private method to return a mapped file, mapping it if needed
+	 *
+	 * @param index  - Index of the file
+	 * @param create - True to create the file if it does not exist
+	 * @return - Mapped file, or null if it does not exist or cannot be mapped
+	 */
+	private MappedSampleRing map(long index, boolean create) {
+
+		MappedSampleRing ring = files.get(index);
+		if (ring != null) {
+			return ring;
+		}
+		File file = new File(directory, "samples-" + index + ".dat");
+		if (!create && !file.exists()) {
+			return null;
+		}
+		synchronized (files) {
+			ring = files.get(index);
+			if (ring == null) {
+				try {
+					file.getParentFile().mkdirs();
+					ring = new MappedSampleRing(file, endpointsPerFile, samplesPerEndpoint);
+					files.put(index, ring);
+					LOG.info("Mapped sample file | file : {}", file);
+				} catch (IOException e) {
+					LOG.error("Failed to map sample file | file : " + file, e);
+				}
+			}
+			return ring;
+		}
+	}
+
+	private long index(long endpointId) {
+		return (endpointId - 1) / endpointsPerFile;
+	}
+
+	private int slot(long endpointId) {
+		return (int) ((endpointId - 1) % endpointsPerFile);
+	}
+
+	/**
+	 * Method to compute the key stored with the slot of an endpoint. Zero marks an
+	 * empty slot, so it is never returned.
+	 *
+	 * @param hostName - Host name of the endpoint
+	 * @param port     - Port of the endpoint
+	 * @return - Stable hash of the normalized host name and port
+	 */
+	static long key(String hostName, int port) {
+
+		long key = ConsistentHashRing.hash(ServiceEndpoint.normalizeHostName(hostName) + ":" + port);
+		return key == 0L ? 1L : key;
+	}
+}
@@ -0,0 +1,164 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+
+/**
+ * Registers the jobs of all tasks that were not stopped once the application is
+ * ready, since the scheduler keeps its jobs in memory only.
+ * <p>
+ * The task table is read in pages ordered by Id, and every page is handed to a
+ * small pool that registers it with the scheduler as one batch while the next
+ * page is read. The first fire of each batch is delayed by its share of the
+ * stagger window, so a restart does not send every probe at once. The time
+ * until every task is scheduled again is logged and kept as a metric.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class ScheduleRehydrator {
+
+	private static Logger LOG = LoggerFactory.getLogger(ScheduleRehydrator.class);
+
+	@Value("${servicemonitor.rehydrate.enabled:true}")
+	private boolean enabled = true;
+
+	@Value("${servicemonitor.rehydrate.page-size:500}")
+	private int pageSize = 500;
+
+	@Value("${servicemonitor.rehydrate.threads:4}")
+	private int threads = 4;
+
+	@Value("${servicemonitor.rehydrate.stagger-millis:60000}")
+	private long staggerMillis = 60000L;
+
+	@Resource
+	private ServiceMonitorTaskRepository taskRepository;
+
+	@Resource
+	private SchedulerFacade schedulerFacade;
+
+	private final AtomicLong scheduledCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private volatile long coverageMillis = -1L;
+
+	/**
+	 * Rehydrates the schedules once the application is ready
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+
+		if (enabled) {
+			rehydrate();
+		}
+	}
+
+	/**
+	 * Registers the jobs of all tasks that were not stopped and blocks until all
+	 * of them are scheduled
+	 */
+	public void rehydrate() {
+
+		long start = System.nanoTime();
+		long total = taskRepository.countByStoppedFalse();
+		LOG.info("Started to rehydrate schedules | Number of tasks : {}", total);
+
+		long batchCount = Math.max(1L, (total + pageSize - 1) / pageSize);
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+			Thread thread = new Thread(r, "rehydrate-" + threadCount.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			List<Future<?>> batches = new ArrayList<Future<?>>();
+			Long lastId = 0L;
+			int batchIndex = 0;
+			List<ServiceMonitorTask> page;
+			do {
+				page = taskRepository.findScheduledAfter(lastId, PageRequest.of(0, pageSize));
+				if (page.isEmpty()) {
+					break;
+				}
+				lastId = page.get(page.size() - 1).getId();
+
+				List<ServiceMonitorTask> batch = page;
+				long startDelay = staggerMillis * Math.min(batchIndex++, batchCount - 1) / batchCount;
+				batches.add(executor.submit(() -> scheduleBatch(batch, startDelay)));
+			} while (page.size() == pageSize);
+
+			for (Future<?> batch : batches) {
+				batch.get();
+			}
+		} catch (Exception e) {
+			LOG.error("Failed to rehydrate schedules", e);
+		} finally {
+			executor.shutdown();
+		}
+
+		coverageMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		LOG.info("Completed rehydration of schedules | scheduled : {}, failed : {}, time to coverage millis : {}",
+				scheduledCount.get(), failedCount.get(), coverageMillis);
+	}
+
+	/**
+	 * Private method to register one page of tasks with the scheduler
+	 *
+	 * @param batch      - Tasks to be scheduled
+	 * @param startDelay - Delay in milliseconds before the first fire of the batch
+	 */
+	private void scheduleBatch(List<ServiceMonitorTask> batch, long startDelay) {
+
+		try {
+			schedulerFacade.createJobs(batch, startDelay);
+			scheduledCount.addAndGet(batch.size());
+		} catch (Exception e) {
+			failedCount.addAndGet(batch.size());
+			LOG.error("Failed to rehydrate a batch of schedules | first task Id : " + batch.get(0).getId(), e);
+		}
+	}
+
+	/**
+	 * @return - Number of tasks scheduled by the rehydration
+	 */
+	public long getScheduledCount() {
+		return scheduledCount.get();
+	}
+
+	/**
+	 * @return - Number of tasks that failed to be scheduled by the rehydration
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * @return - Time in milliseconds from the start of the rehydration until every
+	 *         task was scheduled, or -1 if the rehydration has not completed
+	 */
+	public long getCoverageMillis() {
+		return coverageMillis;
+	}
+}
@@ -1,30 +1,51 @@
 package com.globalrelay.servicemonitor.service.impl;
 
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
+import org.quartz.CronExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
-import com.cronutils.descriptor.CronDescriptor;
-import com.cronutils.model.CronType;
-import com.cronutils.model.definition.CronDefinition;
-import com.cronutils.model.definition.CronDefinitionBuilder;
-import com.cronutils.parser.CronParser;
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorResponse;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.domain.TaskSummary;
 import com.globalrelay.servicemonitor.exception.ErrorCode;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
-import com.globalrelay.servicemonitor.facade.impl.QuartzSchedulerFacadeImpl;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.job.impl.GraceRecheckScheduler;
 import com.globalrelay.servicemonitor.job.impl.ServiceMonitorJob;
+import com.globalrelay.servicemonitor.repository.MonitoredEndpointRepository;
 import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
 import com.globalrelay.servicemonitor.service.SchedulerService;
+import com.globalrelay.servicemonitor.service.UptimeService;
+import com.globalrelay.servicemonitor.util.CronCache;
 
 /**
  * An implementation of {@linkplain SchedulerService} interface. This class
@@ -43,7 +64,41 @@ public class SchedulerServiceImpl implements SchedulerService {
 	private ServiceMonitorTaskRepository taskRepository;
 
 	@Resource
-	private QuartzSchedulerFacadeImpl schedulerFacade;
+	private MonitoredEndpointRepository endpointRepository;
+
+	@Resource
+	private SchedulerFacade schedulerFacade;
+
+	@Resource
+	private CronCache cronCache;
+
+	@Resource
+	private StatusWriteBuffer statusWriteBuffer;
+
+	@Resource
+	private TaskSnapshotCache taskSnapshotCache;
+
+	@Resource
+	private GraceRecheckScheduler graceRecheckScheduler;
+
+	@Resource
+	private PlatformTransactionManager transactionManager;
+
+	@Resource
+	private LatencyMetricsService latencyMetricsService;
+
+	@Resource
+	private UptimeService uptimeService;
+
+	@Value("${servicemonitor.list.count-cache-millis:10000}")
+	private long countCacheMillis = 10000L;
+
+	@Value("${servicemonitor.endpoint.batch-size:500}")
+	private int endpointBatchSize = 500;
+
+	// number of tasks shown by the listing, counted again once expired or after a task was added or deleted
+	private volatile long cachedCount;
+	private volatile long countExpiry;
 
 	/*
 	 * (non-Javadoc)
@@ -52,16 +107,19 @@ public class SchedulerServiceImpl implements SchedulerService {
 	 * globalrelay.servicemonitor.scheduler.model.ServiceMonitorTask)
 	 */
 	@Override
-	@Transactional
+	@Transactional(rollbackFor = ServiceMonitorServiceException.class)
 	public synchronized ServiceMonitorTask createTask(ServiceMonitorTask task) throws ServiceMonitorServiceException {
 
 		LOG.debug("Started to create and schedule task | Input task : {}", task);
 
 		try {
 			task.setJobClass(ServiceMonitorJob.class.getName());
+			resolveEndpoints(Arrays.asList(task));
 
 			// persist the task to database
 			ServiceMonitorTask persistedTask = this.taskRepository.save(task);
+			this.taskSnapshotCache.invalidate(persistedTask.getId());
+			this.countExpiry = 0L;
 
 			// schedule the task in quartz scheduler
 			this.schedulerFacade.createJob(persistedTask);
@@ -74,6 +132,62 @@ public class SchedulerServiceImpl implements SchedulerService {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.SchedulerService#createTasks(java.util
+	 * .List)
+	 */
+	@Override
+	@Transactional(rollbackFor = ServiceMonitorServiceException.class)
+	public List<ServiceMonitorResponse> createTasks(List<ServiceMonitorTask> tasks)
+			throws ServiceMonitorServiceException {
+
+		LOG.debug("Started to create and schedule tasks | Number of tasks : {}", tasks.size());
+
+		try {
+			// validate every task up front, so that one bad task does not fail the batch
+			ServiceMonitorResponse[] results = new ServiceMonitorResponse[tasks.size()];
+			List<ServiceMonitorTask> validTasks = new ArrayList<ServiceMonitorTask>(tasks.size());
+			for (int i = 0; i < tasks.size(); i++) {
+				ServiceMonitorTask task = tasks.get(i);
+				String error = validateTask(task);
+				if (error != null) {
+					results[i] = ServiceMonitorResponse.error(error, task);
+				} else {
+					task.setJobClass(ServiceMonitorJob.class.getName());
+					validTasks.add(task);
+				}
+			}
+
+			// share one endpoint row per host and port, then persist the tasks using batched inserts. If
+			// scheduling fails below, the tasks are rolled back so that a retry does not duplicate them
+			resolveEndpoints(validTasks);
+			List<ServiceMonitorTask> persistedTasks = this.taskRepository.saveAll(validTasks);
+			persistedTasks.forEach(persistedTask -> this.taskSnapshotCache.invalidate(persistedTask.getId()));
+			this.countExpiry = 0L;
+
+			// register all the jobs with the scheduler at once
+			this.schedulerFacade.createJobs(persistedTasks);
+
+			Iterator<ServiceMonitorTask> persisted = persistedTasks.iterator();
+			for (int i = 0; i < results.length; i++) {
+				if (results[i] == null) {
+					results[i] = ServiceMonitorResponse.success("ServiceMonitorTask is created and scheduled",
+							persisted.next());
+				}
+			}
+
+			LOG.info("Successfully created and scheduled tasks | Number of tasks : {}, created : {}", tasks.size(),
+					persistedTasks.size());
+			return Arrays.asList(results);
+		} catch (Exception e) {
+			throw new ServiceMonitorServiceException("Failed to create and schedule " + tasks.size() + " tasks", e,
+					ErrorCode.SERVICE_ERROR);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -87,6 +201,13 @@ public class SchedulerServiceImpl implements SchedulerService {
 		try {
 			Optional<ServiceMonitorTask> model = findByTaskId(taskId);
 			this.schedulerFacade.createJob(model.get());
+
+			// remember the task is scheduled, so it is rehydrated after a restart
+			if (model.get().isStopped()) {
+				model.get().setStopped(false);
+				this.taskRepository.save(model.get());
+			}
+			this.taskSnapshotCache.invalidate(taskId);
 			
 			LOG.info("Successully started task | Task Id : {}", taskId);
 			return model.get();
@@ -109,6 +230,13 @@ public class SchedulerServiceImpl implements SchedulerService {
 		try {
 			Optional<ServiceMonitorTask> model = findByTaskId(taskId);
 			this.schedulerFacade.stopJob(Long.toString(taskId));
+
+			// remember the task is stopped, so it is not rehydrated after a restart
+			model.get().setStopped(true);
+			this.taskRepository.save(model.get());
+			this.taskSnapshotCache.invalidate(taskId);
+			this.graceRecheckScheduler.cancelRecheck(taskId);
+			forgetProbes(model.get());
 			
 			LOG.info("Successully stopped task | Task Id : {}", taskId);
 			return model.get();
@@ -134,6 +262,11 @@ public class SchedulerServiceImpl implements SchedulerService {
 			
 			//delete task in repository
 			this.taskRepository.deleteById(taskId);
+			this.taskSnapshotCache.invalidate(taskId);
+			this.graceRecheckScheduler.cancelRecheck(taskId);
+			forgetProbes(model.get());
+			forgetEndpoint(model.get());
+			this.countExpiry = 0L;
 			
 			//delete task in scheduler
 			this.schedulerFacade.stopJob(Long.toString(taskId));
@@ -171,51 +304,277 @@ public class SchedulerServiceImpl implements SchedulerService {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see com.globalrelay.servicemonitor.service.SchedulerService#getTasks(org.
-	 * springframework.data.domain.Pageable)
+	 * @see com.globalrelay.servicemonitor.service.SchedulerService#getTasks(java.
+	 * lang.Long, int)
 	 */
 	@Override
-	public Page<ServiceMonitorTask> getTasks(Pageable pageAble) throws ServiceMonitorServiceException {
+	public List<TaskSummary> getTasks(Long afterId, int limit) throws ServiceMonitorServiceException {
 
-		LOG.debug("Started to retrieve tasks | Criteria {}", pageAble);
+		LOG.debug("Started to retrieve tasks | After Id {}, Limit {}", afterId, limit);
 		try {
 
-			Page<ServiceMonitorTask> page = this.taskRepository.findAll(pageAble);
+			List<TaskSummary> page = this.taskRepository.findSummariesAfter(afterId == null ? 0L : afterId,
+					PageRequest.of(0, limit));
 			LOG.trace("Data from Repository | Page {}", page);
-			
-			if (CollectionUtils.isEmpty(page.getContent())) {
+
+			if (CollectionUtils.isEmpty(page)) {
 				return page;
 			}
 
-			// get a predefined instance
-			CronDefinition cronDefinition = CronDefinitionBuilder.instanceDefinitionFor(CronType.QUARTZ);
-
-			// create a parser based on provided definition
-			CronParser parser = new CronParser(cronDefinition);
-
-			// create a descriptor for a specific Locale
-			CronDescriptor descriptor = CronDescriptor.instance(Locale.UK);
+			//look up the Job status of the whole page at once
+			Set<String> activeJobs = Collections.emptySet();
+			try {
+				activeJobs = this.schedulerFacade.getActiveJobs(
+						page.stream().map(s -> s.getId().toString()).collect(Collectors.toList()));
+			} catch (Exception e) {
+				LOG.warn("Exception occured while setting the Job status",e);
+			}
 
-			//set the Human reable Cron and Job status values
-			page.getContent().stream().forEach(s -> {
-				s.getStatus()
-						.setCronHumanExpression(descriptor.describe(parser.parse(s.getStatus().getCronExpression())));
-				try {
-					s.setActive(this.schedulerFacade.getJobStatus(s.getId().toString()));
-				} catch (Exception e) {
-					LOG.warn("Exception occured while setting the Job status",e);
+			//set the Human reable Cron and Job status values, and the probe outcomes not written yet
+			for (TaskSummary s : page) {
+				if (s.getStatus() != null) {
+					statusWriteBuffer.applyPending(s.getStatus());
+					s.getStatus().setCronHumanExpression(
+							cronCache.get(s.getStatus().getCronExpression()).getDescription());
 				}
-			});
+				s.setActive(activeJobs.contains(s.getId().toString()));
+			}
 
 			LOG.debug("Successfully retrieved the tasks| Page {}", page);
 			return page;
 
 		} catch (Exception e) {
-			throw new ServiceMonitorServiceException("Failed to get the tasks for criteria :" + pageAble, e,
+			throw new ServiceMonitorServiceException(
+					"Failed to get the tasks after Id :" + afterId + ", limit :" + limit, e, ErrorCode.SERVICE_ERROR);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.SchedulerService#getTaskIdBefore(int)
+	 */
+	@Override
+	public Long getTaskIdBefore(int offset) throws ServiceMonitorServiceException {
+
+		if (offset <= 0) {
+			return 0L;
+		}
+		try {
+			List<Long> ids = this.taskRepository.findIds(PageRequest.of(offset - 1, 1));
+			return ids.isEmpty() ? Long.MAX_VALUE : ids.get(0);
+		} catch (Exception e) {
+			throw new ServiceMonitorServiceException("Failed to find the task before offset :" + offset, e,
 					ErrorCode.SERVICE_ERROR);
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.service.SchedulerService#getTaskCount()
+	 */
+	@Override
+	public long getTaskCount() throws ServiceMonitorServiceException {
+
+		long now = System.currentTimeMillis();
+		if (now < countExpiry) {
+			return cachedCount;
+		}
+		try {
+			long count = this.taskRepository.count();
+			cachedCount = count;
+			countExpiry = now + countCacheMillis;
+			return count;
+		} catch (Exception e) {
+			throw new ServiceMonitorServiceException("Failed to count the tasks", e, ErrorCode.SERVICE_ERROR);
+		}
+	}
+
+	/**
+	 * A private method to validate a task before it is created in bulk
+	 * 
+	 * @param task - Task to be validated
+	 * @return - Reason the task is invalid, or null if the task is valid
+	 */
+	private String validateTask(ServiceMonitorTask task) {
+
+		ServiceMonitorStatus status = task == null ? null : task.getStatus();
+		if (status == null) {
+			return "Service details are missing";
+		}
+		if (StringUtils.isEmpty(status.getHostName())) {
+			return "Host name is missing";
+		}
+		if (status.getPort() <= 0 || status.getPort() > 65535) {
+			return "Invalid port number: " + status.getPort();
+		}
+		if (status.getCronExpression() == null || !CronExpression.isValidExpression(status.getCronExpression())) {
+			return "Invalid CRON expression: " + status.getCronExpression();
+		}
+		return null;
+	}
+
+	/**
+	 * A private method to drop the probe state kept in memory for a task that is
+	 * no longer monitored
+	 * 
+	 * @param task - Task stopped or deleted
+	 */
+	private void forgetProbes(ServiceMonitorTask task) {
+
+		if (task.getStatus() != null) {
+			this.statusWriteBuffer.forget(task.getStatus().getId());
+		}
+	}
+
+	/**
+	 * A private method to drop the latency and uptime metrics kept in memory for
+	 * the endpoint of a deleted task, once no other task monitors it. Stopped
+	 * tasks keep their endpoint, so its metrics are still there when they are
+	 * started again.
+	 * 
+	 * @param task - Task deleted
+	 */
+	private void forgetEndpoint(ServiceMonitorTask task) {
+
+		ServiceMonitorStatus status = task.getStatus();
+		if (status == null || StringUtils.isEmpty(status.getHostName())) {
+			return;
+		}
+		ServiceEndpoint endpoint = ServiceEndpoint.of(status.getHostName(), status.getPort());
+		if (this.taskRepository.countByHostNameAndPort(endpoint.getHostName(), endpoint.getPort()) == 0L) {
+			this.latencyMetricsService.forget(endpoint);
+			this.uptimeService.forget(endpoint);
+			LOG.debug("Dropped the metrics of an endpoint no longer monitored | endpoint : {}", endpoint);
+		}
+	}
+
+	/**
+	 * A private method to point the status of every task to the shared endpoint
+	 * of its host and port. Distinct endpoints are resolved in chunks: the
+	 * existing ones of a chunk are read with one query and the missing ones are
+	 * inserted together in one batch.
+	 * <p>
+	 * Tasks of the same host and port may be created concurrently, so the missing
+	 * endpoints are inserted in their own transaction. When the batch violates the
+	 * unique index, the endpoints of that chunk are inserted one by one instead,
+	 * reading the endpoint created by the other request where needed.
+	 * 
+	 * @param tasks - Tasks whose endpoints need to be resolved
+	 */
+	private void resolveEndpoints(List<ServiceMonitorTask> tasks) {
+
+		Map<String, List<ServiceMonitorStatus>> statuses = new LinkedHashMap<String, List<ServiceMonitorStatus>>();
+		for (ServiceMonitorTask task : tasks) {
+			ServiceMonitorStatus status = task.getStatus();
+			if (status == null || StringUtils.isEmpty(status.getHostName())) {
+				continue;
+			}
+			String key = endpointKey(ServiceEndpoint.normalizeHostName(status.getHostName()), status.getPort());
+			statuses.computeIfAbsent(key, k -> new ArrayList<ServiceMonitorStatus>()).add(status);
+		}
+
+		List<String> keys = new ArrayList<String>(statuses.keySet());
+		int batchSize = Math.max(1, this.endpointBatchSize);
+		for (int from = 0; from < keys.size(); from += batchSize) {
+			List<ServiceMonitorStatus> chunk = new ArrayList<ServiceMonitorStatus>();
+			for (String key : keys.subList(from, Math.min(from + batchSize, keys.size()))) {
+				chunk.add(statuses.get(key).get(0));
+			}
+			Map<String, MonitoredEndpoint> endpoints = resolveChunk(chunk);
+			for (Map.Entry<String, MonitoredEndpoint> entry : endpoints.entrySet()) {
+				statuses.get(entry.getKey()).forEach(status -> status.setEndpoint(entry.getValue()));
+			}
+		}
+		LOG.debug("Resolved endpoints of tasks | Number of tasks : {}, endpoints : {}", tasks.size(), keys.size());
+	}
+
+	/**
+	 * A private method to resolve the endpoints of one chunk of distinct hosts
+	 * and ports, reading the existing ones with one query and inserting the
+	 * missing ones in one batch
+	 * 
+	 * @param chunk - One status of each distinct endpoint
+	 * @return - The stored endpoints mapped by host and port
+	 */
+	private Map<String, MonitoredEndpoint> resolveChunk(List<ServiceMonitorStatus> chunk) {
+
+		Set<String> hostNames = new HashSet<String>();
+		Set<String> keys = new HashSet<String>();
+		for (ServiceMonitorStatus status : chunk) {
+			String hostName = ServiceEndpoint.normalizeHostName(status.getHostName());
+			hostNames.add(hostName);
+			keys.add(endpointKey(hostName, status.getPort()));
+		}
+
+		Map<String, MonitoredEndpoint> endpoints = new HashMap<String, MonitoredEndpoint>();
+		for (MonitoredEndpoint endpoint : this.endpointRepository.findByHostNameIn(hostNames)) {
+			String key = endpointKey(endpoint.getHostName(), endpoint.getPort());
+			if (keys.contains(key)) {
+				endpoints.put(key, endpoint);
+			}
+		}
+
+		List<MonitoredEndpoint> missing = new ArrayList<MonitoredEndpoint>();
+		for (ServiceMonitorStatus status : chunk) {
+			String hostName = ServiceEndpoint.normalizeHostName(status.getHostName());
+			if (!endpoints.containsKey(endpointKey(hostName, status.getPort()))) {
+				missing.add(new MonitoredEndpoint(hostName, status.getPort()));
+			}
+		}
+		if (missing.isEmpty()) {
+			return endpoints;
+		}
+
+		TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+		transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		try {
+			List<MonitoredEndpoint> created = transaction.execute(status -> {
+				List<MonitoredEndpoint> saved = this.endpointRepository.saveAll(missing);
+				this.endpointRepository.flush();
+				return saved;
+			});
+			created.forEach(endpoint -> endpoints.put(endpointKey(endpoint.getHostName(), endpoint.getPort()), endpoint));
+		} catch (DataIntegrityViolationException e) {
+			LOG.debug("Endpoints were created concurrently, inserting them one by one | Number of endpoints : {}",
+					missing.size());
+			for (MonitoredEndpoint endpoint : missing) {
+				endpoints.put(endpointKey(endpoint.getHostName(), endpoint.getPort()),
+						createEndpoint(endpoint.getHostName(), endpoint.getPort()));
+			}
+		}
+		return endpoints;
+	}
+
+	private static String endpointKey(String hostName, int port) {
+		return hostName + ":" + port;
+	}
+
+	/**
+	 * A private method to insert an endpoint in a new transaction, reading the
+	 * endpoint created concurrently by another request if the insert violates the
+	 * unique index on host name and port
+	 * 
+	 * @param hostName - Normalized host name of the endpoint
+	 * @param port     - Port of the endpoint
+	 * @return - The stored endpoint
+	 */
+	private MonitoredEndpoint createEndpoint(String hostName, int port) {
+
+		TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+		transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		try {
+			return transaction
+					.execute(status -> this.endpointRepository.saveAndFlush(new MonitoredEndpoint(hostName, port)));
+		} catch (DataIntegrityViolationException e) {
+			LOG.debug("Endpoint was created concurrently | host : {}, port : {}", hostName, port);
+			return transaction.execute(status -> this.endpointRepository.findByHostNameAndPort(hostName, port))
+					.orElseThrow(() -> e);
+		}
+	}
+
 	/**
 	 * A private method to return task for the database using the taskId
 	 * 
@@ -2,9 +2,15 @@ package com.globalrelay.servicemonitor.service.impl;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
@@ -15,13 +21,18 @@ import org.springframework.stereotype.Service;
 
 import com.cronutils.utils.StringUtils;
 import com.globalrelay.servicemonitor.constant.ServiceMonitorStatusCode;
+import com.globalrelay.servicemonitor.domain.MonitoringBatch;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
 import com.globalrelay.servicemonitor.exception.ErrorCode;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
 import com.globalrelay.servicemonitor.facade.EmailFacade;
+import com.globalrelay.servicemonitor.job.impl.GraceRecheckScheduler;
 import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+import com.globalrelay.servicemonitor.service.ClusterService;
 import com.globalrelay.servicemonitor.service.ServiceMonitorService;
 import com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy;
 
@@ -29,6 +40,11 @@ import com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy;
  * An implementation of {@linkplain ServiceMonitorService} interface. This class
  * implements logic to retrieve task based on taskId, validate and perform
  * monitoring of the service defined in the task
+ * <p>
+ * A task is monitored by one thread at a time. Grace period rechecks run on
+ * the recheck workers and not through the job of the task, so a scheduled fire
+ * and a recheck of the same task could otherwise process the same state
+ * transition twice. A task that is already being monitored is skipped.
  * 
  * @author Ravikiran Butti
  *
@@ -47,6 +63,21 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 	@Autowired
 	private ServiceMonitorStrategy serviceMonitorStrategy;
 
+	@Autowired
+	private GraceRecheckScheduler graceRecheckScheduler;
+
+	@Autowired
+	private ClusterService clusterService;
+
+	@Autowired
+	private StatusWriteBuffer statusWriteBuffer;
+
+	@Autowired
+	private TaskSnapshotCache taskSnapshotCache;
+
+	// Ids of the tasks being monitored right now
+	private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -58,46 +89,238 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 	public ServiceMonitorStatus monitorStatus(Long taskId) throws ServiceMonitorServiceException {
 
 		LOG.debug("Started to monitor Status | Input taskId : {}", taskId);
+		boolean guarded = inProgress.add(taskId);
 		try {
 
 			// retrieve the task from database
 			ServiceMonitorTask task = findByTaskId(taskId);
+			if (!guarded) {
+				LOG.debug("Skipping task already being monitored | Input taskId : {}", taskId);
+				return task.getStatus();
+			}
 			ServiceMonitorStatus status = task.getStatus();
+			ServiceEndpoint endpoint = toEndpoint(status);
 
-			// Check for planned outage and duplicate service processing window
-			if (isOutagePeriod(task) || isduplicateServiceProcessed(status)) {
-
-				LOG.info("Cancelling Service Monitoring | Input taskId : {}", taskId);
+			if (!isMonitored(task, endpoint)) {
 				return status;
 			}
 
-			// check service status
-			if (serviceMonitorStrategy.monitorService(status.getHostName(), status.getPort())) {
-				// process record for service active
-				processServiceStatusActive(task);
+			// check service status within the configured connect timeout, a probe of
+			// the same service in flight or completed within the last second is shared
+			ProbeResult result = serviceMonitorStrategy.monitorService(endpoint);
+			boolean transition = processResult(task, result);
 
+			// update the task details
+			if (statusWriteBuffer.isTransitionsOnly() && !transition) {
+				statusWriteBuffer.recordProbe(status);
+			} else if (statusWriteBuffer.isEnabled()) {
+				statusWriteBuffer.write(status);
 			} else {
-				// process records for service inactive
-				processServiceStatusInactive(task);
+				taskRepository.save(task);
 			}
-
-			// update the task details
-			taskRepository.save(task);
-
-			LOG.info("Completed monitoring of service | Input taskId : {}, host Name : {}, port Number: {}", taskId,
-					status.getHostName(), status.getPort());
+			taskSnapshotCache.put(task);
 			return status;
 
 		} catch (Exception e) {
 			throw new ServiceMonitorServiceException("Failed monitor the status for  task  with Id:" + taskId, e,
 					ErrorCode.SERVICE_ERROR);
+		} finally {
+			if (guarded) {
+				inProgress.remove(taskId);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.ServiceMonitorService#monitorStatuses(
+	 * java.util.Collection)
+	 */
+	@Override
+	public List<ServiceMonitorStatus> monitorStatuses(Collection<Long> taskIds) throws ServiceMonitorServiceException {
+		return completeMonitoring(startMonitoring(taskIds));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.ServiceMonitorService#startMonitoring(
+	 * java.util.Collection)
+	 */
+	@Override
+	public MonitoringBatch startMonitoring(Collection<Long> taskIds) throws ServiceMonitorServiceException {
+
+		LOG.debug("Started to monitor Statuses | Number of tasks : {}", taskIds.size());
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>(taskIds.size());
+		try {
+
+			// retrieve all the tasks that are not cached with their status in one query
+			List<ServiceEndpoint> endpoints = new ArrayList<ServiceEndpoint>(taskIds.size());
+			for (ServiceMonitorTask task : taskSnapshotCache.getAll(taskIds)) {
+
+				statusWriteBuffer.applyPending(task.getStatus());
+				ServiceEndpoint endpoint = toEndpoint(task.getStatus());
+				if (isMonitored(task, endpoint) && inProgress.add(task.getId())) {
+					tasks.add(task);
+					endpoints.add(endpoint);
+				}
+			}
+
+			// every probe is in flight before the first result is awaited
+			long startedAt = System.currentTimeMillis();
+			return new MonitoringBatch(taskIds.size(), tasks, endpoints, serviceMonitorStrategy.startServices(endpoints),
+					startedAt);
+
+		} catch (Exception e) {
+			tasks.forEach(task -> inProgress.remove(task.getId()));
+			throw new ServiceMonitorServiceException("Failed monitor the status for " + taskIds.size() + " tasks", e,
+					ErrorCode.SERVICE_ERROR);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.service.ServiceMonitorService#completeMonitoring(
+	 * com.globalrelay.servicemonitor.domain.MonitoringBatch)
+	 */
+	@Override
+	public List<ServiceMonitorStatus> completeMonitoring(MonitoringBatch batch) throws ServiceMonitorServiceException {
+
+		List<ServiceMonitorTask> tasks = batch.getTasks();
+		try {
+			if (tasks.isEmpty()) {
+				return new ArrayList<ServiceMonitorStatus>();
+			}
+
+			// probes not completed within the connect timeout are reported as timed out
+			List<ProbeResult> results = serviceMonitorStrategy.awaitServices(batch.getEndpoints(), batch.getProbes(),
+					batch.getStartedAt());
+
+			List<ServiceMonitorStatus> statuses = new ArrayList<ServiceMonitorStatus>(tasks.size());
+			List<ServiceMonitorTask> changed = new ArrayList<ServiceMonitorTask>(tasks.size());
+			for (int i = 0; i < tasks.size(); i++) {
+
+				ServiceMonitorTask task = tasks.get(i);
+				boolean transition = true;
+				try {
+					transition = processResult(task, results.get(i));
+				} catch (Exception e) {
+					LOG.error("Failed to process the status of a service | Input taskId : " + task.getId(), e);
+				}
+				if (statusWriteBuffer.isTransitionsOnly() && !transition) {
+					statusWriteBuffer.recordProbe(task.getStatus());
+				} else {
+					changed.add(task);
+				}
+				statuses.add(task.getStatus());
+			}
+
+			// update the task details in one batch
+			if (statusWriteBuffer.isEnabled()) {
+				changed.forEach(task -> statusWriteBuffer.write(task.getStatus()));
+			} else if (!changed.isEmpty()) {
+				taskRepository.saveAll(changed);
+			}
+			tasks.forEach(taskSnapshotCache::put);
+
+			LOG.info("Completed monitoring of services | Number of tasks : {}, monitored : {}", batch.getRequested(),
+					tasks.size());
+			return statuses;
+
+		} catch (Exception e) {
+			throw new ServiceMonitorServiceException("Failed monitor the status for " + batch.getRequested() + " tasks",
+					e, ErrorCode.SERVICE_ERROR);
+		} finally {
+			tasks.forEach(task -> inProgress.remove(task.getId()));
+		}
+	}
+
+	/**
+	 * Private method to check whether a task is to be monitored now. A task is
+	 * skipped once it was stopped, in cluster mode if another node owns its
+	 * service, and during its planned outage
+	 * 
+	 * @param task     - Task which needs to be executed
+	 * @param endpoint - Endpoint of the service of the task
+	 * @return - True if the service of the task is to be probed
+	 */
+	private boolean isMonitored(ServiceMonitorTask task, ServiceEndpoint endpoint) {
+
+		// a grace recheck may still fire after the task was stopped
+		if (task.isStopped()) {
+
+			LOG.debug("Skipping stopped task | Input taskId : {}", task.getId());
+			return false;
+		}
+
+		// in cluster mode, only the node owning the service monitors it
+		if (!clusterService.isOwner(endpoint)) {
+
+			LOG.debug("Skipping service owned by another node | Input taskId : {}", task.getId());
+			return false;
+		}
+
+		// Check for planned outage
+		if (isOutagePeriod(task)) {
+
+			LOG.info("Cancelling Service Monitoring | Input taskId : {}", task.getId());
+			return false;
 		}
+		return true;
+	}
+
+	/**
+	 * Private method to apply the result of a probe to the status of a task. The
+	 * caller saves the task.
+	 * 
+	 * @param task   - Task which was executed
+	 * @param result - Result of the probe of the service of the task
+	 * @return - True if the probe changed the state of the service, that is its
+	 *         status code or the time it started failing
+	 * @throws ServiceMonitorFacadeException - Exception thrown if there is an error
+	 *                                       while sending a notification
+	 */
+	private boolean processResult(ServiceMonitorTask task, ProbeResult result) throws ServiceMonitorFacadeException {
+
+		ServiceMonitorStatus status = task.getStatus();
+		String previousStatusCd = status.getStatusCd();
+		LocalDateTime previousFailedTime = status.getLastFailedTime();
+
+		status.setLastOutcome(result.getOutcome().toString());
+		status.setLastLatency(result.getLatencyNanos());
+
+		if (result.isUp()) {
+			// process record for service active
+			processServiceStatusActive(task);
+
+		} else {
+			// process records for service inactive
+			processServiceStatusInactive(task);
+		}
+
+		LOG.info("Completed monitoring of service | Input taskId : {}, host Name : {}, port Number: {}, outcome : {}",
+				task.getId(), status.getHostName(), status.getPort(), result.getOutcome());
+		return !Objects.equals(previousStatusCd, status.getStatusCd())
+				|| !Objects.equals(previousFailedTime, status.getLastFailedTime());
+	}
+
+	private static ServiceEndpoint toEndpoint(ServiceMonitorStatus status) {
+		Long endpointId = status.getEndpoint() == null ? null : status.getEndpoint().getId();
+		return new ServiceEndpoint(ServiceEndpoint.normalizeHostName(status.getHostName()), status.getPort(),
+				status.getConnectTimeout(), endpointId);
 	}
 
 	/**
 	 * Private method to process the task when the service monitored is inactive.
 	 * This service also checks to see if any grace period was registered for the
-	 * user before sending out a failure notification via email
+	 * user before sending out a failure notification via email. While the grace
+	 * period is running, an extra check is scheduled so the notification does not
+	 * wait for the next regular poll
 	 * 
 	 * @param task - task which was executed
 	 * @throws ServiceMonitorFacadeException - Exception thrown if there is an error
@@ -109,7 +332,8 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 
 		// check if service has moved from active status to inactive status
 		if (StringUtils.isEmpty(status.getStatusCd())
-				|| status.getStatusCd() == ServiceMonitorStatusCode.ACTIVE.toString()) {
+				|| ServiceMonitorStatusCode.ACTIVE.toString().equals(status.getStatusCd())
+				|| status.getLastFailedTime() == null) {
 
 			status.setStatusCd(ServiceMonitorStatusCode.INACTIVE.toString());
 			status.setLastFailedTime(LocalDateTime.now());
@@ -117,10 +341,14 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 		}
 
 		// check if there is a grace period set and send the notification accordingly
-		if (status.getLastFailedTime().until(LocalDateTime.now(), ChronoUnit.SECONDS) >= task.getGraceTime()) {
+		long failedMillis = status.getLastFailedTime().until(LocalDateTime.now(), ChronoUnit.MILLIS);
+		long graceMillis = TimeUnit.SECONDS.toMillis(task.getGraceTime());
+		if (failedMillis < graceMillis) {
 
-			// TODO: If the grace time is less than the polling frequency, the monitor
-			// should schedule extra checks of the service.
+			// recheck within the grace period instead of waiting for the next poll
+			Long taskId = task.getId();
+			graceRecheckScheduler.scheduleRecheck(taskId, graceMillis - failedMillis, () -> recheck(taskId));
+		} else {
 
 			// send email notification
 			emailFacade.sendSimpleMessage(task.getEmail(), "Serivice Monitor Status INACTIVE:" + new Date(),
@@ -147,8 +375,10 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 		ServiceMonitorStatus status = task.getStatus();
 
 		// check if the service came back to active status from inactive status
+		graceRecheckScheduler.cancelRecheck(task.getId());
+
 		if (StringUtils.isEmpty(status.getStatusCd())
-				|| status.getStatusCd() == ServiceMonitorStatusCode.INACTIVE.toString()) {
+				|| ServiceMonitorStatusCode.INACTIVE.toString().equals(status.getStatusCd())) {
 
 			status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
 			status.setLastFailedTime(null);
@@ -164,28 +394,17 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 	}
 
 	/**
-	 * Private method to detect multiple callers registering interest in the same
-	 * service, and not poll any service more frequently than once a second.
+	 * Private method to run a grace period recheck of a task
 	 * 
-	 * @param status - Status containing the details of Hostname and Port number
-	 * @return - Return true if a duplicate service got executed within a second ,
-	 *         or else false.
+	 * @param taskId - Id of the task to be rechecked
 	 */
-	private boolean isduplicateServiceProcessed(ServiceMonitorStatus status) {
-
-		// retrieve the list of existing tasks from the database for same port number
-		// and host name
-		List<ServiceMonitorTask> existingTasks = taskRepository.findByHostNameAndPort(status.getHostName(),
-				status.getPort());
-
-		// check if any of these duplicate tasks was executed in last one second
-		for (ServiceMonitorTask t : existingTasks) {
-			if (t.getUpdatedAt().until(LocalDateTime.now(), ChronoUnit.SECONDS) == 0) {
-				return true;
-			}
+	private void recheck(Long taskId) {
 
+		try {
+			monitorStatus(taskId);
+		} catch (ServiceMonitorServiceException e) {
+			LOG.warn("Failed to recheck the service | Input taskId : " + taskId, e);
 		}
-		return false;
 	}
 
 	/**
@@ -216,8 +435,8 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 	 */
 	private ServiceMonitorTask findByTaskId(Long taskId) throws ServiceMonitorServiceException {
 
-		// get task from database
-		Optional<ServiceMonitorTask> model = this.taskRepository.findById(taskId);
+		// get task from the cache, reading the database on a miss
+		Optional<ServiceMonitorTask> model = this.taskSnapshotCache.get(taskId);
 
 		// if no task found , return error
 		if (!model.isPresent()) {
@@ -225,7 +444,9 @@ public class ServiceMonitorServiceImpl implements ServiceMonitorService {
 					ErrorCode.SERVICE_ERROR);
 		}
 
+		// continue from the status values that are not written yet
 		ServiceMonitorTask task = model.get();
+		statusWriteBuffer.applyPending(task.getStatus());
 		LOG.trace("Task retrieved from database |  Task : {}", task);
 		return task;
 	}
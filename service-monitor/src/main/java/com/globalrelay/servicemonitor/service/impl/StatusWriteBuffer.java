@@ -0,0 +1,352 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+
+/**
+ * A write-behind buffer for the outcome of the probes.
+ * <p>
+ * Instead of saving the task after every probe, the monitor hands the changed
+ * status to this buffer, which keeps only the latest values per status and
+ * writes them to the "task_status" table in one JDBC batch update. A flush runs
+ * on a fixed interval and as soon as the number of pending statuses reaches
+ * the size limit, and pending statuses are flushed on shutdown. Since repeated
+ * probes of a status between two flushes are written once, the number of
+ * writes grows with the elapsed time and the number of distinct statuses, not
+ * with the number of probes.
+ * <p>
+ * Only the columns changed by a probe are written. A status loaded from the
+ * database must be passed through {@link #applyPending(ServiceMonitorStatus)}
+ * so the monitor continues from the values still waiting to be written. A
+ * status stays pending until the batch that wrote it has completed, so a
+ * failed flush is retried by the next one. Setting
+ * {@code servicemonitor.write-behind.enabled=false} saves the task after every
+ * probe instead.
+ * <p>
+ * With {@code servicemonitor.persistence.transitions-only=true} a probe that
+ * leaves the state of its service unchanged is not written at all. Its
+ * outcome, latency and time are only kept in memory through
+ * {@link #recordProbe(ServiceMonitorStatus)} and applied to loaded statuses
+ * like the pending values, so steady state probes cost no database write. The
+ * last outcome and latency stored in the database are then those of the last
+ * state transition.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class StatusWriteBuffer {
+
+	private static Logger LOG = LoggerFactory.getLogger(StatusWriteBuffer.class);
+
+	private static final String UPDATE_SQL = "UPDATE task_status SET status_cd = ?, last_failed_time = ?, "
+			+ "last_outcome = ?, last_latency_nanos = ?, updated_at = ? WHERE id = ?";
+
+	@Value("${servicemonitor.write-behind.enabled:true}")
+	private boolean enabled = true;
+
+	@Value("${servicemonitor.write-behind.flush-millis:1000}")
+	private long flushMillis = 1000L;
+
+	@Value("${servicemonitor.write-behind.max-pending:1000}")
+	private int maxPending = 1000;
+
+	@Value("${servicemonitor.persistence.transitions-only:false}")
+	private boolean transitionsOnly;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final ConcurrentMap<Long, PendingStatus> pending = new ConcurrentHashMap<Long, PendingStatus>();
+
+	private final ConcurrentMap<Long, LastProbe> probes = new ConcurrentHashMap<Long, LastProbe>();
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+
+	private ScheduledExecutorService flusher;
+
+	/**
+	 * Starts the periodic flush, if the buffer is enabled
+	 */
+	@PostConstruct
+	public void start() {
+
+		if (!enabled) {
+			return;
+		}
+		flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "status-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the periodic flush and writes all pending statuses
+	 */
+	@PreDestroy
+	public void stop() {
+
+		if (flusher == null) {
+			return;
+		}
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(flushMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		LOG.info("Flushed pending statuses on shutdown | written : {}, still pending : {}", writtenCount.get(),
+				pending.size());
+	}
+
+	/**
+	 * @return - True if probe outcomes are to be written through this buffer
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return - True if only the probes changing the state of a service are to be
+	 *         written
+	 */
+	public boolean isTransitionsOnly() {
+		return transitionsOnly;
+	}
+
+	/**
+	 * Keeps the outcome, latency and time of a probe in memory only
+	 * 
+	 * @param status - Status updated by a probe
+	 */
+	public void recordProbe(ServiceMonitorStatus status) {
+
+		status.setLastProbeTime(LocalDateTime.now());
+		if (status.getId() != null) {
+			probes.put(status.getId(), new LastProbe(status));
+		}
+	}
+
+	/**
+	 * Queues the probe related values of the given status to be written by the
+	 * next flush, replacing any values of the status still pending
+	 * 
+	 * @param status - Status changed by a probe
+	 */
+	public void write(ServiceMonitorStatus status) {
+
+		recordProbe(status);
+		pending.put(status.getId(), new PendingStatus(status));
+
+		if (pending.size() >= maxPending && flusher != null && flushRequested.compareAndSet(false, true)) {
+			try {
+				flusher.execute(this::flush);
+			} catch (Exception e) {
+				flushRequested.set(false);
+				LOG.warn("Failed to request an early flush of pending statuses", e);
+			}
+		}
+	}
+
+	/**
+	 * Drops the last probe kept in memory for a status whose task is stopped or
+	 * deleted. Values still pending are left to the next flush, which writes them
+	 * for a stopped task and updates nothing for a deleted one.
+	 * 
+	 * @param statusId - Id of the status
+	 */
+	public void forget(Long statusId) {
+
+		if (statusId != null) {
+			probes.remove(statusId);
+		}
+	}
+
+	/**
+	 * @return - Number of statuses whose last probe is kept in memory
+	 */
+	public int getProbeCount() {
+		return probes.size();
+	}
+
+	/**
+	 * Copies the values still waiting to be written, and the last probe kept in
+	 * memory, onto a status loaded from the database
+	 * 
+	 * @param status - Status loaded from the database
+	 */
+	public void applyPending(ServiceMonitorStatus status) {
+
+		if (status == null || status.getId() == null) {
+			return;
+		}
+		PendingStatus values = pending.get(status.getId());
+		if (values != null) {
+			values.applyTo(status);
+		}
+		LastProbe probe = probes.get(status.getId());
+		if (probe != null) {
+			probe.applyTo(status);
+		}
+	}
+
+	/**
+	 * Writes all pending statuses in one JDBC batch update
+	 * 
+	 * @return - Number of statuses written
+	 */
+	public synchronized int flush() {
+
+		flushRequested.set(false);
+		if (pending.isEmpty()) {
+			return 0;
+		}
+
+		List<Map.Entry<Long, PendingStatus>> batch = new ArrayList<Map.Entry<Long, PendingStatus>>(pending.entrySet());
+		try {
+			jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					batch.get(i).getValue().bind(ps, batch.get(i).getKey());
+				}
+
+				@Override
+				public int getBatchSize() {
+					return batch.size();
+				}
+			});
+		} catch (Exception e) {
+			LOG.error("Failed to flush pending statuses, retrying with the next flush | pending : " + batch.size(), e);
+			return 0;
+		}
+
+		// values replaced while the batch was written stay pending
+		for (Map.Entry<Long, PendingStatus> entry : batch) {
+			pending.remove(entry.getKey(), entry.getValue());
+		}
+		writtenCount.addAndGet(batch.size());
+		batchCount.incrementAndGet();
+		LOG.debug("Flushed pending statuses | written : {}", batch.size());
+		return batch.size();
+	}
+
+	/**
+	 * @return - Number of statuses waiting to be written
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * @return - Number of statuses written since startup
+	 */
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	/**
+	 * @return - Number of batch updates executed since startup
+	 */
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	/**
+	 * The outcome of the last probe of a status, kept in memory only
+	 */
+	private static final class LastProbe {
+
+		private final String outcome;
+		private final Long latency;
+		private final LocalDateTime time;
+
+		private LastProbe(ServiceMonitorStatus status) {
+			this.outcome = status.getLastOutcome();
+			this.latency = status.getLastLatency();
+			this.time = status.getLastProbeTime();
+		}
+
+		private void applyTo(ServiceMonitorStatus status) {
+			status.setLastOutcome(outcome);
+			status.setLastLatency(latency);
+			status.setLastProbeTime(time);
+		}
+	}
+
+	/**
+	 * The probe related values of a status at the time it was queued
+	 */
+	private static final class PendingStatus {
+
+		private final String statusCd;
+		private final LocalDateTime lastFailedTime;
+		private final String lastOutcome;
+		private final Long lastLatency;
+		private final LocalDateTime updatedAt = LocalDateTime.now();
+
+		private PendingStatus(ServiceMonitorStatus status) {
+			this.statusCd = status.getStatusCd();
+			this.lastFailedTime = status.getLastFailedTime();
+			this.lastOutcome = status.getLastOutcome();
+			this.lastLatency = status.getLastLatency();
+		}
+
+		private void applyTo(ServiceMonitorStatus status) {
+			status.setStatusCd(statusCd);
+			status.setLastFailedTime(lastFailedTime);
+			status.setLastOutcome(lastOutcome);
+			status.setLastLatency(lastLatency);
+		}
+
+		private void bind(PreparedStatement ps, Long id) throws SQLException {
+
+			ps.setString(1, statusCd);
+			if (lastFailedTime == null) {
+				ps.setNull(2, Types.TIMESTAMP);
+			} else {
+				ps.setTimestamp(2, Timestamp.valueOf(lastFailedTime));
+			}
+			ps.setString(3, lastOutcome);
+			if (lastLatency == null) {
+				ps.setNull(4, Types.BIGINT);
+			} else {
+				ps.setLong(4, lastLatency);
+			}
+			ps.setTimestamp(5, Timestamp.valueOf(updatedAt));
+			ps.setLong(6, id);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Resource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+
+/**
+ * A read-through cache of the tasks monitored by this node, so that a fire
+ * does not read the "task" and "task_status" rows.
+ * <p>
+ * Every entry is an immutable snapshot of a task and its status. A lookup
+ * returns a new copy built from the snapshot, which the caller is free to
+ * change, and the monitor puts the copy back once it has processed a probe, so
+ * the cached state follows the state written by the monitor. Any change made
+ * through the scheduler service invalidates the entry of the task; when the
+ * change runs in a transaction the entry is invalidated again once the
+ * transaction completes, so a concurrent fire cannot cache the old row.
+ * <p>
+ * Changes made outside of this node, such as through another node of a
+ * cluster, are picked up once an entry is older than the configured time to
+ * live. Once the cache is full an arbitrary entry is evicted for every new
+ * one.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class TaskSnapshotCache {
+
+	@Value("${servicemonitor.task-cache.max-size:100000}")
+	private int maxSize = 100000;
+
+	@Value("${servicemonitor.task-cache.ttl-millis:300000}")
+	private long ttlMillis = 300000L;
+
+	@Resource
+	private ServiceMonitorTaskRepository taskRepository;
+
+	private final ConcurrentMap<Long, TaskSnapshot> snapshots = new ConcurrentHashMap<Long, TaskSnapshot>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Returns a copy of the task with the given Id, reading it from the database
+	 * if it is not cached
+	 * 
+	 * @param taskId - Id of the task
+	 * @return - Copy of the task, empty if there is no such task
+	 */
+	public Optional<ServiceMonitorTask> get(Long taskId) {
+
+		TaskSnapshot snapshot = lookup(taskId);
+		if (snapshot != null) {
+			return Optional.of(snapshot.toTask());
+		}
+
+		Optional<ServiceMonitorTask> task = taskRepository.findById(taskId);
+		task.ifPresent(this::put);
+		return task;
+	}
+
+	/**
+	 * Returns copies of the tasks with the given Ids, reading all the tasks that
+	 * are not cached with one query
+	 * 
+	 * @param taskIds - Ids of the tasks
+	 * @return - Copies of the tasks found, in no particular order
+	 */
+	public List<ServiceMonitorTask> getAll(Collection<Long> taskIds) {
+
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>(taskIds.size());
+		List<Long> missing = new ArrayList<Long>();
+		for (Long taskId : taskIds) {
+			TaskSnapshot snapshot = lookup(taskId);
+			if (snapshot != null) {
+				tasks.add(snapshot.toTask());
+			} else {
+				missing.add(taskId);
+			}
+		}
+
+		if (!missing.isEmpty()) {
+			for (ServiceMonitorTask task : taskRepository.findWithStatusByIdIn(missing)) {
+				put(task);
+				tasks.add(task);
+			}
+		}
+		return tasks;
+	}
+
+	/**
+	 * Replaces the snapshot of a task with its current values
+	 * 
+	 * @param task - Task to be cached
+	 */
+	public void put(ServiceMonitorTask task) {
+
+		if (task.getId() == null || task.getStatus() == null) {
+			return;
+		}
+		if (!snapshots.containsKey(task.getId())) {
+			evictIfFull();
+		}
+		snapshots.put(task.getId(), new TaskSnapshot(task));
+	}
+
+	/**
+	 * Removes the snapshot of a task. If a transaction is active, the snapshot is
+	 * removed again once the transaction completes.
+	 * 
+	 * @param taskId - Id of the task
+	 */
+	public void invalidate(Long taskId) {
+
+		snapshots.remove(taskId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+				@Override
+				public void afterCompletion(int status) {
+					snapshots.remove(taskId);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return - Number of cached tasks
+	 */
+	public int size() {
+		return snapshots.size();
+	}
+
+	/**
+	 * @return - Number of lookups answered from the cache
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return - Number of lookups that read the database
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	private TaskSnapshot lookup(Long taskId) {
+
+		TaskSnapshot snapshot = snapshots.get(taskId);
+		if (snapshot != null && System.nanoTime() - snapshot.cachedAt < TimeUnit.MILLISECONDS.toNanos(ttlMillis)) {
+			hits.increment();
+			return snapshot;
+		}
+		misses.increment();
+		return null;
+	}
+
+	private void evictIfFull() {
+
+		Iterator<Long> keys = snapshots.keySet().iterator();
+		while (snapshots.size() >= maxSize && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	/**
+	 * An immutable copy of a task and its status
+	 */
+	private static final class TaskSnapshot {
+
+		private final long cachedAt = System.nanoTime();
+
+		private final Long id;
+		private final String name;
+		private final String jobClass;
+		private final boolean stopped;
+		private final String email;
+		private final int graceTime;
+		private final LocalDateTime outageFrom;
+		private final LocalDateTime outageTo;
+		private final LocalDateTime createdAt;
+		private final LocalDateTime updatedAt;
+
+		private final Long statusId;
+		private final MonitoredEndpoint endpoint;
+		private final String hostName;
+		private final int port;
+		private final String statusCd;
+		private final LocalDateTime lastFailedTime;
+		private final String cronExpression;
+		private final int connectTimeout;
+		private final String lastOutcome;
+		private final Long lastLatency;
+		private final LocalDateTime statusCreatedAt;
+		private final LocalDateTime statusUpdatedAt;
+
+		private TaskSnapshot(ServiceMonitorTask task) {
+
+			this.id = task.getId();
+			this.name = task.getName();
+			this.jobClass = task.getJobClass();
+			this.stopped = task.isStopped();
+			this.email = task.getEmail();
+			this.graceTime = task.getGraceTime();
+			this.outageFrom = task.getOutageFrom();
+			this.outageTo = task.getOutageTo();
+			this.createdAt = task.getCreatedAt();
+			this.updatedAt = task.getUpdatedAt();
+
+			ServiceMonitorStatus status = task.getStatus();
+			this.statusId = status.getId();
+			this.endpoint = status.getEndpoint();
+			this.hostName = status.getHostName();
+			this.port = status.getPort();
+			this.statusCd = status.getStatusCd();
+			this.lastFailedTime = status.getLastFailedTime();
+			this.cronExpression = status.getCronExpression();
+			this.connectTimeout = status.getConnectTimeout();
+			this.lastOutcome = status.getLastOutcome();
+			this.lastLatency = status.getLastLatency();
+			this.statusCreatedAt = status.getCreatedAt();
+			this.statusUpdatedAt = status.getUpdatedAt();
+		}
+
+		private ServiceMonitorTask toTask() {
+
+			ServiceMonitorStatus status = new ServiceMonitorStatus();
+			status.setId(statusId);
+			status.setEndpoint(endpoint);
+			status.setHostName(hostName);
+			status.setPort(port);
+			status.setStatusCd(statusCd);
+			status.setLastFailedTime(lastFailedTime);
+			status.setCronExpression(cronExpression);
+			status.setConnectTimeout(connectTimeout);
+			status.setLastOutcome(lastOutcome);
+			status.setLastLatency(lastLatency);
+			status.setCreatedAt(statusCreatedAt);
+			status.setUpdatedAt(statusUpdatedAt);
+
+			ServiceMonitorTask task = new ServiceMonitorTask();
+			task.setId(id);
+			task.setName(name);
+			task.setJobClass(jobClass);
+			task.setStopped(stopped);
+			task.setEmail(email);
+			task.setGraceTime(graceTime);
+			task.setOutageFrom(outageFrom);
+			task.setOutageTo(outageTo);
+			task.setCreatedAt(createdAt);
+			task.setUpdatedAt(updatedAt);
+			task.setStatus(status);
+			return task;
+		}
+	}
+}
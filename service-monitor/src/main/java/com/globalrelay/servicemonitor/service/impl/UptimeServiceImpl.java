@@ -0,0 +1,174 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.globalrelay.servicemonitor.domain.Availability;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.UptimeReport;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.service.UptimeService;
+import com.globalrelay.servicemonitor.util.UptimeCounter;
+
+/**
+ * An implementation of {@linkplain UptimeService} interface. This class keeps
+ * one {@linkplain UptimeCounter} per monitored host and port, and a small
+ * number of fleet wide counters.
+ * <p>
+ * Every probe outcome is counted once against its endpoint and once against
+ * the fleet counter of the recording thread, so recording takes constant time
+ * and probes running on different threads do not contend on a single fleet
+ * counter. A report sums the buckets of the requested windows, and the fleet
+ * report adds up the fleet counters, so no probe history is read at query
+ * time. The counters are kept in memory and start empty after a restart.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Service
+public class UptimeServiceImpl implements UptimeService {
+
+	private static Logger LOG = LoggerFactory.getLogger(UptimeServiceImpl.class);
+
+	private static final int FLEET_STRIPES = 16;
+
+	private static final Map<String, Long> WINDOWS = new LinkedHashMap<String, Long>();
+
+	static {
+		WINDOWS.put("1h", TimeUnit.HOURS.toMillis(1));
+		WINDOWS.put("24h", TimeUnit.HOURS.toMillis(24));
+		WINDOWS.put("7d", TimeUnit.DAYS.toMillis(7));
+		WINDOWS.put("30d", TimeUnit.DAYS.toMillis(30));
+	}
+
+	private final ConcurrentMap<ServiceEndpoint, UptimeCounter> counters = new ConcurrentHashMap<ServiceEndpoint, UptimeCounter>();
+
+	private final UptimeCounter[] fleet = new UptimeCounter[FLEET_STRIPES];
+
+	public UptimeServiceImpl() {
+
+		for (int i = 0; i < fleet.length; i++) {
+			fleet[i] = new UptimeCounter();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.service.UptimeService#recordOutcome(com.
+	 * globalrelay.servicemonitor.domain.ProbeResult)
+	 */
+	@Override
+	public void recordOutcome(ProbeResult result) {
+
+		UptimeCounter counter = counters.get(result.getEndpoint());
+		if (counter == null) {
+			counter = counters.computeIfAbsent(result.getEndpoint(), e -> new UptimeCounter());
+		}
+		counter.record(result.getTimestamp(), result.getOutcome());
+		fleet[(int) (Thread.currentThread().getId() & (FLEET_STRIPES - 1))].record(result.getTimestamp(),
+				result.getOutcome());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.service.UptimeService#forget(com.globalrelay
+	 * .servicemonitor.domain.ServiceEndpoint)
+	 */
+	@Override
+	public void forget(ServiceEndpoint endpoint) {
+
+		if (counters.remove(endpoint) != null) {
+			LOG.debug("Dropped uptime counter | endpoint : {}", endpoint);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.globalrelay.servicemonitor.service.UptimeService#getUptime(com.globalrelay
+	 * .servicemonitor.domain.ServiceEndpoint)
+	 */
+	@Override
+	public UptimeReport getUptime(ServiceEndpoint endpoint) throws ServiceMonitorServiceException {
+
+		LOG.debug("Started to retrieve uptime | endpoint : {}", endpoint);
+
+		UptimeCounter counter = counters.get(endpoint);
+		if (counter == null) {
+			throw new ServiceMonitorServiceException("No outcome recorded for endpoint " + endpoint,
+					ErrorCode.SERVICE_ERROR);
+		}
+
+		UptimeReport report = report(new UptimeCounter[] { counter });
+		report.setHostName(endpoint.getHostName());
+		report.setPort(endpoint.getPort());
+		report.setEndpoints(1);
+
+		LOG.debug("Successfully retrieved uptime | report : {}", report);
+		return report;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.globalrelay.servicemonitor.service.UptimeService#getFleetUptime()
+	 */
+	@Override
+	public UptimeReport getFleetUptime() {
+
+		UptimeReport report = report(fleet);
+		report.setEndpoints(counters.size());
+
+		LOG.debug("Successfully retrieved fleet uptime | report : {}", report);
+		return report;
+	}
+
+	/**
+	 * Private method to sum the given counters over every reported window
+	 *
+	 * @param sources - Counters to be summed
+	 * @return - Report holding the availability of every window
+	 */
+	private static UptimeReport report(UptimeCounter[] sources) {
+
+		long now = System.currentTimeMillis();
+		List<Availability> windows = new ArrayList<Availability>(WINDOWS.size());
+		for (Map.Entry<String, Long> window : WINDOWS.entrySet()) {
+			long[] counts = new long[UptimeCounter.COUNTER_COUNT];
+			for (UptimeCounter source : sources) {
+				source.addCounts(now, window.getValue(), counts);
+			}
+
+			Availability availability = new Availability();
+			availability.setWindow(window.getKey());
+			availability.setUp(counts[UptimeCounter.UP]);
+			availability.setDown(counts[UptimeCounter.DOWN]);
+			availability.setTimeout(counts[UptimeCounter.TIMEOUT]);
+			availability.setRefused(counts[UptimeCounter.REFUSED]);
+			long total = counts[UptimeCounter.UP] + counts[UptimeCounter.DOWN];
+			availability.setTotal(total);
+			availability.setAvailability(total == 0 ? null : 100.0d * counts[UptimeCounter.UP] / total);
+			windows.add(availability);
+		}
+
+		UptimeReport report = new UptimeReport();
+		report.setWindows(windows);
+		return report;
+	}
+}
@@ -0,0 +1,25 @@
+package com.globalrelay.servicemonitor.strategy;
+
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+
+/**
+ * Listener interface for completed probes
+ * <p>
+ * Concrete implementation of this interface is notified by the
+ * {@linkplain ServiceMonitorStrategy} once for every probe it performs, on the
+ * thread completing the probe. A probe whose result is shared by several tasks
+ * is notified only once.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public interface ProbeListener {
+
+	/**
+	 * Concrete implementation of this method should record the result of a
+	 * completed probe without blocking
+	 * 
+	 * @param result - Result of the probe
+	 */
+	public void probeCompleted(ProbeResult result);
+}
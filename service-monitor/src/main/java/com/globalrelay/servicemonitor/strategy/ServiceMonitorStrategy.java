@@ -1,5 +1,12 @@
 package com.globalrelay.servicemonitor.strategy;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+
 /**
  * Strategy interface for Scheduling tasks
  * <p>
@@ -13,12 +20,46 @@ public interface ServiceMonitorStrategy {
 
 	/**
 	 * Concrete implementation of this interface should implement logic to monitor a
-	 * service for a given host and port number and return true if service is up and
-	 * false if service is down
+	 * service for a given endpoint, giving up once the connect timeout of the
+	 * endpoint expires, and return the result of the probe
+	 * 
+	 * @param endpoint - Endpoint of the service to be probed
+	 * @return - Result of the probe containing the outcome and connect latency
+	 */
+	public ProbeResult monitorService(ServiceEndpoint endpoint);
+
+	/**
+	 * Concrete implementation of this interface should start probing the given
+	 * endpoint without blocking the caller and complete the returned future once
+	 * the outcome is known
+	 * 
+	 * @param endpoint - Endpoint of the service to be probed
+	 * @return - Future completed with the result of the probe
+	 */
+	public CompletableFuture<ProbeResult> monitorServiceAsync(ServiceEndpoint endpoint);
+
+	/**
+	 * Concrete implementation of this interface should start probing all the
+	 * given endpoints concurrently without waiting for any of them
+	 * 
+	 * @param endpoints - Endpoints of the services to be probed
+	 * @return - Futures completed with the results of the probes, in the
+	 *         iteration order of the input endpoints
+	 */
+	public List<CompletableFuture<ProbeResult>> startServices(Collection<ServiceEndpoint> endpoints);
+
+	/**
+	 * Concrete implementation of this interface should wait for probes started
+	 * with {@link #startServices(Collection)}, but no longer than the longest
+	 * connect timeout of the endpoints after the probes were started. A probe
+	 * that has not completed by then is reported as timed out, and a failed
+	 * probe as unreachable.
 	 * 
-	 * @param host - Host name of the service
-	 * @param port - Port number of the service
-	 * @return- True if the service is up or else false
+	 * @param endpoints - Endpoints of the services being probed
+	 * @param probes    - Futures of the probes, in the order of the endpoints
+	 * @param startedAt - Time the probes were started in epoch milliseconds
+	 * @return - Results of the probes, in the order of the endpoints
 	 */
-	public boolean monitorService(String host, int port);
+	public List<ProbeResult> awaitServices(List<ServiceEndpoint> endpoints, List<CompletableFuture<ProbeResult>> probes,
+			long startedAt);
 }
@@ -0,0 +1,200 @@
+package com.globalrelay.servicemonitor.strategy.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A host name resolution cache used by {@linkplain ServiceMonitorStrategyImpl}
+ * so that probing a service does not cost a resolver lookup every time.
+ * <p>
+ * Successful lookups are cached for the positive TTL and failed lookups for the
+ * negative TTL. Entries that are used repeatedly are refreshed on a background
+ * thread once they pass the refresh-ahead point of their TTL, so popular host
+ * names never expire on the probe path. A failed refresh keeps the last good
+ * address and is retried after the negative TTL. Once the cache holds the
+ * maximum number of entries, expired entries are evicted first, and an
+ * arbitrary entry if none has expired.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class DnsResolverCache {
+
+	private static Logger LOG = LoggerFactory.getLogger(DnsResolverCache.class);
+
+	@Value("${servicemonitor.dns.ttl-millis:60000}")
+	private long ttlMillis = 60000L;
+
+	@Value("${servicemonitor.dns.negative-ttl-millis:10000}")
+	private long negativeTtlMillis = 10000L;
+
+	@Value("${servicemonitor.dns.refresh-ahead-percent:75}")
+	private int refreshAheadPercent = 75;
+
+	@Value("${servicemonitor.dns.refresh-min-hits:2}")
+	private int refreshMinHits = 2;
+
+	@Value("${servicemonitor.dns.max-entries:10000}")
+	private int maxEntries = 10000;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+
+	private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "dns-refresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@PreDestroy
+	public void stop() {
+		refresher.shutdownNow();
+	}
+
+	/**
+	 * Resolves the given host name, using the cached address when available
+	 * 
+	 * @param host - Host name to be resolved
+	 * @return - Resolved address, or null if the host name cannot be resolved
+	 */
+	public InetAddress resolve(String host) {
+
+		long now = System.currentTimeMillis();
+		Entry entry = entries.get(host);
+		if (entry != null && now < entry.expiresAt) {
+			hits.increment();
+			if (entry.hits.incrementAndGet() >= refreshMinHits && now >= entry.refreshAt
+					&& entry.refreshing.compareAndSet(false, true)) {
+				refresher.execute(() -> refresh(host));
+			}
+			return entry.address;
+		}
+
+		misses.increment();
+		Entry loaded = load(host, now);
+		if (entries.size() >= maxEntries && !entries.containsKey(host)) {
+			evict(now);
+		}
+		entries.put(host, loaded);
+		return loaded.address;
+	}
+
+	/**
+	 * @return - Number of lookups answered from the cache
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return - Number of lookups that had to go to the resolver
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return - Number of background refreshes performed
+	 */
+	public long getRefreshCount() {
+		return refreshes.sum();
+	}
+
+	/**
+	 * @return - Number of host names currently cached
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	private void refresh(String host) {
+
+		refreshes.increment();
+		Entry refreshed = load(host, System.currentTimeMillis());
+		Entry current = entries.get(host);
+
+		// keep serving the last good address if the refresh itself failed, and retry after the negative TTL
+		if (refreshed.address == null && current != null && current.address != null) {
+			entries.replace(host, current, new Entry(current.address, current.expiresAt, refreshed.refreshAt));
+			return;
+		}
+		entries.put(host, refreshed);
+	}
+
+	private Entry load(String host, long now) {
+
+		try {
+			InetAddress address = lookup(host);
+			return new Entry(address, now + ttlMillis, now + ttlMillis * refreshAheadPercent / 100);
+		} catch (UnknownHostException e) {
+			LOG.debug("Unable to resolve host | host : {}", host);
+			return new Entry(null, now + negativeTtlMillis, now + negativeTtlMillis);
+		}
+	}
+
+	/**
+	 * Method to resolve a host name with the system resolver
+	 * 
+	 * @param host - Host name to be resolved
+	 * @return - Resolved address
+	 * @throws UnknownHostException - Exception thrown if the host name cannot be
+	 *                              resolved
+	 */
+	InetAddress lookup(String host) throws UnknownHostException {
+		return InetAddress.getByName(host);
+	}
+
+	private void evict(long now) {
+
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			if (now >= iterator.next().expiresAt) {
+				iterator.remove();
+			}
+		}
+
+		// nothing expired, so make room by evicting arbitrary entries
+		iterator = entries.values().iterator();
+		while (entries.size() >= maxEntries && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * A cached lookup. A null address records a failed lookup
+	 */
+	private static final class Entry {
+
+		private final InetAddress address;
+		private final long expiresAt;
+		private final long refreshAt;
+		private final AtomicInteger hits = new AtomicInteger();
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private Entry(InetAddress address, long expiresAt, long refreshAt) {
+			this.address = address;
+			this.expiresAt = expiresAt;
+			this.refreshAt = refreshAt;
+		}
+	}
+}
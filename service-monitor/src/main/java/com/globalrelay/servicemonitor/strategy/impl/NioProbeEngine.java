@@ -0,0 +1,293 @@
+package com.globalrelay.servicemonitor.strategy.impl;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+
+/**
+ * A selector based probe engine used by {@linkplain ServiceMonitorStrategyImpl}
+ * to check if a service is accepting TCP connections.
+ * <p>
+ * Each probe opens a non-blocking {@linkplain SocketChannel} and registers it
+ * for OP_CONNECT with one of a small number of I/O loops. A single I/O thread
+ * can therefore keep a large number of connects in flight, and the calling
+ * scheduler thread is never blocked by the connect itself.
+ * <p>
+ * Every probe carries a deadline. Each I/O loop keeps its probes in a single
+ * deadline ordered heap and uses the earliest deadline as its select timeout,
+ * so expiring probes costs no timer per probe. A probe that is still
+ * connecting at its deadline completes with {@linkplain ProbeOutcome#TIMEOUT}.
+ * <p>
+ * The connect latency is measured from the moment the connect is started on
+ * the I/O thread until the outcome is known, and the {@linkplain ProbeResult}
+ * is created directly on the I/O thread.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class NioProbeEngine {
+
+	private static Logger LOG = LoggerFactory.getLogger(NioProbeEngine.class);
+
+	@Value("${servicemonitor.probe.io-threads:2}")
+	private int ioThreads;
+
+	private IoLoop[] loops;
+
+	private final AtomicInteger nextLoop = new AtomicInteger();
+
+	/**
+	 * Opens the selectors and starts the I/O threads
+	 *
+	 * @throws IOException - Exception thrown if a selector cannot be opened
+	 */
+	@PostConstruct
+	public void start() throws IOException {
+
+		loops = new IoLoop[Math.max(1, ioThreads)];
+		for (int i = 0; i < loops.length; i++) {
+			loops[i] = new IoLoop(Selector.open());
+			Thread thread = new Thread(loops[i], "probe-io-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		LOG.info("Started probe engine | I/O threads : {}", loops.length);
+	}
+
+	/**
+	 * Stops the I/O threads. Probes still in flight are completed as unreachable.
+	 */
+	@PreDestroy
+	public void stop() {
+
+		if (loops == null) {
+			return;
+		}
+		for (IoLoop loop : loops) {
+			loop.running = false;
+			loop.selector.wakeup();
+		}
+	}
+
+	/**
+	 * Starts a non-blocking connect to the given endpoint. The host name of the
+	 * endpoint must already be resolved by the caller.
+	 *
+	 * @param endpoint      - Endpoint of the service
+	 * @param resolved      - Address the host name of the endpoint resolved to
+	 * @param timeoutMillis - Time in milliseconds after which the connect is
+	 *                      abandoned
+	 * @return - Future completed with the result of the probe
+	 */
+	public CompletableFuture<ProbeResult> probe(ServiceEndpoint endpoint, InetAddress resolved, long timeoutMillis) {
+
+		CompletableFuture<ProbeResult> future = new CompletableFuture<ProbeResult>();
+		InetSocketAddress address = new InetSocketAddress(resolved, endpoint.getPort());
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		IoLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+		loop.pending.add(new PendingProbe(endpoint, address, deadline, future));
+		loop.selector.wakeup();
+		return future;
+	}
+
+	/**
+	 * A connect that has been submitted to an I/O loop
+	 */
+	private static final class PendingProbe {
+
+		private static final Comparator<PendingProbe> BY_DEADLINE = new Comparator<PendingProbe>() {
+			@Override
+			public int compare(PendingProbe a, PendingProbe b) {
+				return Long.compare(a.deadline - b.deadline, 0L);
+			}
+		};
+
+		private final ServiceEndpoint endpoint;
+		private final InetSocketAddress address;
+		private final long deadline;
+		private final CompletableFuture<ProbeResult> future;
+		private SocketChannel channel;
+		private long startedAt;
+
+		private PendingProbe(ServiceEndpoint endpoint, InetSocketAddress address, long deadline,
+				CompletableFuture<ProbeResult> future) {
+			this.endpoint = endpoint;
+			this.address = address;
+			this.deadline = deadline;
+			this.future = future;
+		}
+
+		private boolean isDone() {
+			return future.isDone();
+		}
+
+		private void complete(ProbeOutcome outcome) {
+			long latency = startedAt == 0L ? 0L : System.nanoTime() - startedAt;
+			if (channel != null) {
+				try {
+					// closing the channel also cancels its selection key
+					channel.close();
+				} catch (IOException e) {
+					LOG.warn("Failed to close the socket channel", e);
+				}
+			}
+			future.complete(
+					new ProbeResult(endpoint, outcome, latency, address.getAddress(), System.currentTimeMillis()));
+		}
+
+		private void fail(Exception e) {
+			complete(e instanceof ConnectException ? ProbeOutcome.REFUSED : ProbeOutcome.UNREACHABLE);
+		}
+	}
+
+	/**
+	 * A single selector thread. Submitted probes are handed over through a
+	 * lock-free queue and registered by the loop itself, so the selector is only
+	 * ever touched from its own thread.
+	 */
+	private static final class IoLoop implements Runnable {
+
+		private final Selector selector;
+		private final Queue<PendingProbe> pending = new ConcurrentLinkedQueue<PendingProbe>();
+		private final PriorityQueue<PendingProbe> deadlines = new PriorityQueue<PendingProbe>(
+				PendingProbe.BY_DEADLINE);
+		private volatile boolean running = true;
+
+		private IoLoop(Selector selector) {
+			this.selector = selector;
+		}
+
+		@Override
+		public void run() {
+
+			while (running) {
+				try {
+					registerPending();
+					selector.select(selectTimeoutMillis());
+					processSelectedKeys();
+					expireDeadlines();
+				} catch (Exception e) {
+					LOG.error("Unexpected error in probe I/O loop", e);
+				}
+			}
+			shutdown();
+		}
+
+		private void registerPending() {
+
+			PendingProbe probe;
+			while ((probe = pending.poll()) != null) {
+				try {
+					probe.channel = SocketChannel.open();
+					probe.channel.configureBlocking(false);
+					probe.startedAt = System.nanoTime();
+					if (probe.channel.connect(probe.address)) {
+						probe.complete(ProbeOutcome.UP);
+					} else {
+						probe.channel.register(selector, SelectionKey.OP_CONNECT, probe);
+						deadlines.add(probe);
+					}
+				} catch (Exception e) {
+					// unchecked failures such as an unsupported address must not leak the channel
+					LOG.debug("Failed to start probe | endpoint : {}, error : {}", probe.endpoint, e.toString());
+					probe.fail(e);
+				}
+			}
+		}
+
+		/**
+		 * Returns the time to block in select, which is the time left until the
+		 * earliest deadline or zero (block indefinitely) if nothing is in flight
+		 */
+		private long selectTimeoutMillis() {
+
+			PendingProbe earliest;
+			while ((earliest = deadlines.peek()) != null && earliest.isDone()) {
+				deadlines.poll();
+			}
+			if (earliest == null) {
+				return 0L;
+			}
+			long remaining = TimeUnit.NANOSECONDS.toMillis(earliest.deadline - System.nanoTime());
+			return Math.max(1L, remaining + 1L);
+		}
+
+		/**
+		 * Completes every probe whose deadline has passed as timed out. Probes that
+		 * already completed are discarded lazily as they reach the head of the heap
+		 */
+		private void expireDeadlines() {
+
+			long now = System.nanoTime();
+			PendingProbe earliest;
+			while ((earliest = deadlines.peek()) != null && (earliest.isDone() || earliest.deadline - now <= 0)) {
+				deadlines.poll();
+				if (!earliest.isDone()) {
+					LOG.debug("Probe deadline expired | endpoint : {}", earliest.endpoint);
+					earliest.complete(ProbeOutcome.TIMEOUT);
+				}
+			}
+		}
+
+		private void processSelectedKeys() {
+
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+
+				PendingProbe probe = (PendingProbe) key.attachment();
+				try {
+					if (probe.channel.finishConnect()) {
+						probe.complete(ProbeOutcome.UP);
+					}
+				} catch (Exception e) {
+					probe.fail(e);
+				}
+			}
+		}
+
+		private void shutdown() {
+
+			for (SelectionKey key : selector.keys()) {
+				((PendingProbe) key.attachment()).complete(ProbeOutcome.UNREACHABLE);
+			}
+			deadlines.clear();
+			PendingProbe probe;
+			while ((probe = pending.poll()) != null) {
+				probe.complete(ProbeOutcome.UNREACHABLE);
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+				LOG.warn("Failed to close the selector", e);
+			}
+		}
+	}
+}
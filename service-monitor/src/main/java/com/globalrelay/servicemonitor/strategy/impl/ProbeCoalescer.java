@@ -0,0 +1,131 @@
+package com.globalrelay.servicemonitor.strategy.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+
+/**
+ * A single-flight layer used by {@linkplain ServiceMonitorStrategyImpl} so
+ * that a service is never polled more frequently than once per minimum
+ * interval, no matter how many tasks registered interest in it.
+ * <p>
+ * Requests for an endpoint that already has a probe in flight share that
+ * probe, and requests that arrive within the minimum interval after a probe
+ * completed are answered with its result without opening another connection.
+ * The connect timeout of the request that started the probe applies to
+ * everyone sharing it.
+ * <p>
+ * A result is only kept for the minimum interval. Results that expired are
+ * swept at most once per minimum interval, so endpoints no longer probed do
+ * not stay in memory.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+@Component
+public class ProbeCoalescer {
+
+	@Value("${servicemonitor.probe.min-interval-millis:1000}")
+	private long minIntervalMillis = 1000L;
+
+	private final ConcurrentMap<ServiceEndpoint, CompletableFuture<ProbeResult>> inFlight = new ConcurrentHashMap<ServiceEndpoint, CompletableFuture<ProbeResult>>();
+
+	private final ConcurrentMap<ServiceEndpoint, ProbeResult> lastResults = new ConcurrentHashMap<ServiceEndpoint, ProbeResult>();
+
+	// time after which the next request sweeps the expired results
+	private final AtomicLong nextSweep = new AtomicLong();
+
+	private final LongAdder started = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * Returns the result of probing the given endpoint, sharing an in-flight or
+	 * recently completed probe when there is one
+	 * 
+	 * @param endpoint - Endpoint of the service to be probed
+	 * @param prober   - Function starting a new probe when none can be shared
+	 * @return - Future completed with the result of the probe
+	 */
+	public CompletableFuture<ProbeResult> probe(ServiceEndpoint endpoint,
+			Function<ServiceEndpoint, CompletableFuture<ProbeResult>> prober) {
+
+		long now = System.currentTimeMillis();
+		ProbeResult last = lastResults.get(endpoint);
+		if (last != null && now - last.getTimestamp() < minIntervalMillis) {
+			coalesced.increment();
+			return CompletableFuture.completedFuture(last);
+		}
+		sweep(now);
+
+		CompletableFuture<ProbeResult> probe = new CompletableFuture<ProbeResult>();
+		CompletableFuture<ProbeResult> existing = inFlight.putIfAbsent(endpoint, probe);
+		if (existing != null) {
+			coalesced.increment();
+			return existing;
+		}
+
+		started.increment();
+		prober.apply(endpoint).whenComplete((result, error) -> {
+			// publish the result before releasing the in-flight slot so that a
+			// request arriving in between still finds a fresh result
+			if (result != null) {
+				lastResults.put(endpoint, result);
+			}
+			inFlight.remove(endpoint, probe);
+
+			if (error != null) {
+				probe.completeExceptionally(error);
+			} else {
+				probe.complete(result);
+			}
+		});
+		return probe;
+	}
+
+	/**
+	 * Private method to drop the results older than the minimum interval, at most
+	 * once per minimum interval and by a single caller
+	 * 
+	 * @param now - Current time
+	 */
+	private void sweep(long now) {
+
+		long next = nextSweep.get();
+		if (now < next || !nextSweep.compareAndSet(next, now + minIntervalMillis)) {
+			return;
+		}
+		lastResults.values().removeIf(result -> now - result.getTimestamp() >= minIntervalMillis);
+	}
+
+	/**
+	 * @param endpoint - Endpoint of a service
+	 * @return - Result of the most recent probe of the endpoint, or null if it was
+	 *         not probed within the minimum interval
+	 */
+	public ProbeResult getLastResult(ServiceEndpoint endpoint) {
+		return lastResults.get(endpoint);
+	}
+
+	/**
+	 * @return - Number of probes that opened a connection
+	 */
+	public long getStartedCount() {
+		return started.sum();
+	}
+
+	/**
+	 * @return - Number of requests answered by sharing another probe
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+}
@@ -1,16 +1,34 @@
 package com.globalrelay.servicemonitor.strategy.impl;
 
-import java.net.Socket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.strategy.ProbeListener;
 import com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy;
 
 /**
  * An implementation of {@linkplain ServiceMonitorStrategy}. This implementation
- * uses Java TCP Socket API to check if the given service is up and running
+ * uses the non-blocking {@linkplain NioProbeEngine} to check if the given
+ * service is up and running. Host names are resolved through the
+ * {@linkplain DnsResolverCache}, and concurrent or repeated probes of the same
+ * endpoint are shared through the {@linkplain ProbeCoalescer}. Every
+ * {@linkplain ProbeListener} is notified once per probe actually performed,
+ * however many callers share its result.
  * 
  * @author Ravikiran Butti
  *
@@ -20,38 +38,185 @@ public class ServiceMonitorStrategyImpl implements ServiceMonitorStrategy {
 
 	private static Logger LOG = LoggerFactory.getLogger(ServiceMonitorStrategyImpl.class);
 
+	/**
+	 * Extra time granted to the probe engine to report a timed out probe before
+	 * the caller stops waiting for it
+	 */
+	private static final long WAIT_GRACE_MILLIS = 1000L;
+
+	@Autowired
+	private NioProbeEngine probeEngine;
+
+	@Autowired
+	private DnsResolverCache resolverCache;
+
+	@Autowired
+	private ProbeCoalescer probeCoalescer;
+
+	@Autowired(required = false)
+	private List<ProbeListener> probeListeners = new ArrayList<ProbeListener>();
+
+	@Value("${servicemonitor.probe.connect-timeout-millis:5000}")
+	private int defaultConnectTimeout;
+
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see
 	 * com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy#monitorService
-	 * (java.lang.String, int)
+	 * (com.globalrelay.servicemonitor.domain.ServiceEndpoint)
 	 */
 	@Override
-	public boolean monitorService(String host, int port) {
+	public ProbeResult monitorService(ServiceEndpoint endpoint) {
+
+		int timeout = effectiveTimeout(endpoint.getConnectTimeout());
+		LOG.debug("Started service monitoring | endpoint : {}, timeout : {}", endpoint, timeout);
+
+		// connect through the probe engine to check if service is active or not.
+		ProbeResult result = await(endpoint, monitorServiceAsync(endpoint), timeout + WAIT_GRACE_MILLIS);
+		LOG.debug("Completed service monitoring | endpoint : {}", endpoint);
+		return result;
+	}
+
+	/**
+	 * Private method to wait for a probe for a limited time
+	 * 
+	 * @param endpoint   - Endpoint of the service being probed
+	 * @param probe      - Future of the probe
+	 * @param waitMillis - Time to wait for the probe
+	 * @return - Result of the probe, timed out once the wait expired
+	 */
+	private ProbeResult await(ServiceEndpoint endpoint, CompletableFuture<ProbeResult> probe, long waitMillis) {
 
-		LOG.debug("Started service monitoring | host : {}, port : {}", host, port);
-		Socket s = null;
 		try {
-			// open the socket to check if service is active or not.
-			s = new Socket(host, port);
+			ProbeResult result = probe.get(Math.max(0L, waitMillis), TimeUnit.MILLISECONDS);
+
+			LOG.info("Service probe completed | endpoint : {}, outcome : {}, latency(ns) : {}", endpoint,
+					result.getOutcome(), result.getLatencyNanos());
+			return result;
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted while monitoring service | endpoint : {}", endpoint);
+			return new ProbeResult(endpoint, ProbeOutcome.UNREACHABLE, 0L, null, System.currentTimeMillis());
+		} catch (TimeoutException e) {
+
+			LOG.info("Service probe timed out | endpoint : {}", endpoint);
+			return new ProbeResult(endpoint, ProbeOutcome.TIMEOUT,
+					TimeUnit.MILLISECONDS.toNanos(effectiveTimeout(endpoint.getConnectTimeout())), null,
+					System.currentTimeMillis());
+		} catch (ExecutionException e) {
+
+			LOG.info("Service is inactive | endpoint : {}", endpoint);
+			return new ProbeResult(endpoint, ProbeOutcome.UNREACHABLE, 0L, null, System.currentTimeMillis());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy#
+	 * monitorServiceAsync(com.globalrelay.servicemonitor.domain.ServiceEndpoint)
+	 */
+	@Override
+	public CompletableFuture<ProbeResult> monitorServiceAsync(ServiceEndpoint endpoint) {
+		return probeCoalescer.probe(endpoint, this::startProbe);
+	}
+
+	/**
+	 * Private method to resolve the endpoint and start a new probe on the probe
+	 * engine
+	 * 
+	 * @param endpoint - Endpoint of the service to be probed
+	 * @return - Future completed with the result of the probe
+	 */
+	private CompletableFuture<ProbeResult> startProbe(ServiceEndpoint endpoint) {
+
+		InetAddress address = resolverCache.resolve(endpoint.getHostName());
+		CompletableFuture<ProbeResult> probe;
+		if (address == null) {
+			probe = CompletableFuture.completedFuture(
+					new ProbeResult(endpoint, ProbeOutcome.DNS_FAILURE, 0L, null, System.currentTimeMillis()));
+		} else {
+			probe = probeEngine.probe(endpoint, address, effectiveTimeout(endpoint.getConnectTimeout()));
+		}
+		return probe.thenApply(this::notifyListeners);
+	}
 
-			LOG.info("Service is active | host : {}, port : {}", host, port);
-			return true;
-		} catch (Exception e) {
+	/**
+	 * Private method to hand the result of a completed probe to every listener
+	 * 
+	 * @param result - Result of the probe
+	 * @return - The same result
+	 */
+	private ProbeResult notifyListeners(ProbeResult result) {
 
-			LOG.info("Service is inactive | host : {}, port : {}", host, port);
-			return false;
-		} finally {
-			if (s != null)
+		if (result != null) {
+			for (ProbeListener listener : probeListeners) {
 				try {
-					s.close();
+					listener.probeCompleted(result);
 				} catch (Exception e) {
-					LOG.warn("Failed to close the socket", e);
+					LOG.error("Failed to notify a probe listener | endpoint : " + result.getEndpoint(), e);
 				}
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy#startServices
+	 * (java.util.Collection)
+	 */
+	@Override
+	public List<CompletableFuture<ProbeResult>> startServices(Collection<ServiceEndpoint> endpoints) {
+
+		LOG.debug("Started batch service monitoring | endpoints : {}", endpoints.size());
+
+		// every probe is in flight before the first one is awaited
+		List<CompletableFuture<ProbeResult>> probes = new ArrayList<CompletableFuture<ProbeResult>>(endpoints.size());
+		for (ServiceEndpoint endpoint : endpoints) {
+			probes.add(monitorServiceAsync(endpoint));
+		}
+		return probes;
+	}
 
-			LOG.debug("Completed service monitoring | host : {}, port : {}", host, port);
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy#awaitServices
+	 * (java.util.List, java.util.List, long)
+	 */
+	@Override
+	public List<ProbeResult> awaitServices(List<ServiceEndpoint> endpoints, List<CompletableFuture<ProbeResult>> probes,
+			long startedAt) {
+
+		// all probes share one deadline, so a batch never waits longer than its slowest timeout
+		int timeout = 0;
+		for (ServiceEndpoint endpoint : endpoints) {
+			timeout = Math.max(timeout, effectiveTimeout(endpoint.getConnectTimeout()));
+		}
+		long deadline = startedAt + timeout + WAIT_GRACE_MILLIS;
+
+		List<ProbeResult> results = new ArrayList<ProbeResult>(probes.size());
+		for (int i = 0; i < probes.size(); i++) {
+			results.add(await(endpoints.get(i), probes.get(i), deadline - System.currentTimeMillis()));
 		}
+		LOG.debug("Completed batch service monitoring | endpoints : {}", endpoints.size());
+		return results;
+	}
+
+	/**
+	 * Private method to resolve the connect timeout of a probe
+	 * 
+	 * @param connectTimeout - Connect timeout requested for the probe
+	 * @return - The requested timeout or the default timeout if none was requested
+	 */
+	private int effectiveTimeout(int connectTimeout) {
+		return connectTimeout > 0 ? connectTimeout : defaultConnectTimeout;
 	}
 
 }
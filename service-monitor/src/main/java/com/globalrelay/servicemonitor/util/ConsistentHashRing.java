@@ -0,0 +1,90 @@
+package com.globalrelay.servicemonitor.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An immutable consistent hash ring mapping keys to nodes.
+ * <p>
+ * Every node is placed on a 64 bit ring at a number of pseudo random points
+ * (virtual nodes), and a key is owned by the node of the first point at or
+ * after the hash of the key. Adding or removing a node therefore only moves
+ * the keys between that node's points and their predecessors, about 1/N of all
+ * keys, while every other key keeps its owner. Virtual nodes keep the share of
+ * each node close to even.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public final class ConsistentHashRing {
+
+	private final NavigableMap<Long, String> ring = new TreeMap<Long, String>();
+
+	private final Set<String> nodes;
+
+	/**
+	 * @param nodes        - Identifiers of the nodes on the ring
+	 * @param virtualNodes - Number of points per node
+	 */
+	public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+
+		if (virtualNodes <= 0) {
+			throw new IllegalArgumentException("virtualNodes must be greater than 0 : " + virtualNodes);
+		}
+		this.nodes = Collections.unmodifiableSet(new TreeSet<String>(nodes));
+		for (String node : this.nodes) {
+			for (int i = 0; i < virtualNodes; i++) {
+				// on the rare collision the smallest node id wins, on every member alike
+				ring.putIfAbsent(hash(node + "#" + i), node);
+			}
+		}
+	}
+
+	/**
+	 * Returns the node owning the given key
+	 * 
+	 * @param key - Key to be looked up
+	 * @return - Identifier of the owning node, or null if the ring is empty
+	 */
+	public String getOwner(String key) {
+
+		if (ring.isEmpty()) {
+			return null;
+		}
+		Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+		return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	/**
+	 * @return - Identifiers of the nodes on the ring
+	 */
+	public Set<String> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * 64 bit FNV-1a of the UTF-8 bytes of the value, followed by the MurmurHash3
+	 * finalizer to spread similar values across the whole ring. Stable across
+	 * JVMs, unlike {@link String#hashCode()} based schemes with random seeds.
+	 */
+	public static long hash(String value) {
+
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= (b & 0xff);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
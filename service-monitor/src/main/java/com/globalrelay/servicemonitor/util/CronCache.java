@@ -0,0 +1,148 @@
+package com.globalrelay.servicemonitor.util;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cronutils.descriptor.CronDescriptor;
+import com.cronutils.model.Cron;
+import com.cronutils.model.CronType;
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+
+/**
+ * A bounded cache of parsed Quartz cron expressions.
+ * <p>
+ * Parsing and describing a cron expression is far more expensive than looking
+ * it up, while the tasks of an installation only use a few dozen distinct
+ * expressions. Every expression is therefore parsed once into a
+ * {@linkplain CronEntry} holding the parsed {@linkplain Cron}, its human
+ * readable description and the {@linkplain ExecutionTime} used to compute fire
+ * times, all of which are immutable and shared by every caller.
+ * <p>
+ * Lookups are lock-free. Once the cache is full an arbitrary entry is evicted
+ * for every new expression, which is enough to bound the memory used by
+ * unexpected input without tracking recency on every lookup.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public class CronCache {
+
+	private final CronParser parser = new CronParser(CronDefinitionBuilder.instanceDefinitionFor(CronType.QUARTZ));
+
+	private final CronDescriptor descriptor = CronDescriptor.instance(Locale.UK);
+
+	private final ConcurrentMap<String, CronEntry> entries = new ConcurrentHashMap<String, CronEntry>();
+
+	private final int maxSize;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param maxSize - Maximum number of cached expressions
+	 */
+	public CronCache(int maxSize) {
+
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0 : " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the parsed form of the given cron expression, parsing it on the
+	 * first lookup
+	 * 
+	 * @param cronExpression - Quartz cron expression
+	 * @return - Parsed expression
+	 * @throws IllegalArgumentException - Exception thrown if the expression is
+	 *                                  invalid. Invalid expressions are not cached
+	 */
+	public CronEntry get(String cronExpression) {
+
+		CronEntry entry = entries.get(cronExpression);
+		if (entry != null) {
+			hits.increment();
+			return entry;
+		}
+		misses.increment();
+
+		Cron cron = parser.parse(cronExpression);
+		entry = new CronEntry(cron, descriptor.describe(cron), ExecutionTime.forCron(cron));
+		evictIfFull();
+		CronEntry existing = entries.putIfAbsent(cronExpression, entry);
+		return existing != null ? existing : entry;
+	}
+
+	private void evictIfFull() {
+
+		Iterator<String> keys = entries.keySet().iterator();
+		while (entries.size() >= maxSize && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	/**
+	 * @return - Number of cached expressions
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return - Number of lookups answered from the cache
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return - Number of lookups that had to parse the expression
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * A parsed cron expression
+	 */
+	public static final class CronEntry {
+
+		private final Cron cron;
+		private final String description;
+		private final ExecutionTime executionTime;
+
+		private CronEntry(Cron cron, String description, ExecutionTime executionTime) {
+			this.cron = cron;
+			this.description = description;
+			this.executionTime = executionTime;
+		}
+
+		/**
+		 * @return - Parsed expression
+		 */
+		public Cron getCron() {
+			return cron;
+		}
+
+		/**
+		 * @return - Human readable description of the expression
+		 */
+		public String getDescription() {
+			return description;
+		}
+
+		/**
+		 * @return - Calculator of the fire times of the expression
+		 */
+		public ExecutionTime getExecutionTime() {
+			return executionTime;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package com.globalrelay.servicemonitor.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hashed timing wheel for scheduling a very large number of timeouts.
+ * <p>
+ * The wheel is an array of buckets, one per tick, that a single thread walks
+ * around once every tick. A timeout is hashed into the bucket of the tick it
+ * expires on, together with the number of full rotations left before it is
+ * due, so adding, cancelling and expiring a timeout are all constant time no
+ * matter how many timeouts are pending. The price is precision: timeouts
+ * expire on a tick boundary, up to one tick late.
+ * <p>
+ * New timeouts and cancellations are handed to the wheel thread through
+ * lock-free queues, so the buckets are only ever touched from that thread.
+ * Expired tasks are handed to the given {@linkplain Executor} and never run on
+ * the wheel thread itself.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+public final class HashedTimingWheel {
+
+	private static Logger LOG = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+	/**
+	 * Maximum number of new timeouts moved into the buckets per tick, so a burst
+	 * of additions cannot delay the expiry of the current tick
+	 */
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private final String name;
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Executor executor;
+	private final long startTime;
+
+	private final Queue<Timeout> additions = new ConcurrentLinkedQueue<Timeout>();
+	private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<Timeout>();
+
+	private volatile boolean running;
+	private Thread worker;
+	private long tick;
+
+	/**
+	 * @param name       - Name of the wheel thread
+	 * @param tickMillis - Duration of a tick in milliseconds
+	 * @param wheelSize  - Number of buckets, rounded up to a power of two
+	 * @param executor   - Executor running the expired tasks
+	 */
+	public HashedTimingWheel(String name, long tickMillis, int wheelSize, Executor executor) {
+
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("tickMillis must be greater than 0 : " + tickMillis);
+		}
+		if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+			throw new IllegalArgumentException("wheelSize must be between 1 and 2^30 : " + wheelSize);
+		}
+		this.name = name;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		int size = 1;
+		while (size < wheelSize) {
+			size <<= 1;
+		}
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new Bucket();
+		}
+		this.mask = wheel.length - 1;
+		this.executor = executor;
+		this.startTime = System.nanoTime();
+	}
+
+	/**
+	 * Starts the wheel thread
+	 */
+	public synchronized void start() {
+
+		if (worker != null) {
+			return;
+		}
+		running = true;
+		worker = new Thread(this::run, name);
+		worker.setDaemon(true);
+		worker.start();
+		LOG.info("Started timing wheel | name : {}, buckets : {}", name, wheel.length);
+	}
+
+	/**
+	 * Stops the wheel thread. Pending timeouts are discarded without running.
+	 */
+	public synchronized void stop() {
+
+		if (worker == null) {
+			return;
+		}
+		running = false;
+		worker.interrupt();
+		try {
+			worker.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) * 10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		worker = null;
+	}
+
+	/**
+	 * Schedules the given task to run once after the given delay
+	 *
+	 * @param task  - Task to run when the timeout expires
+	 * @param delay - Delay after which the task runs
+	 * @param unit  - Unit of the delay
+	 * @return - Handle that can be used to cancel the timeout
+	 */
+	public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+
+		long deadline = System.nanoTime() - startTime + Math.max(0L, unit.toNanos(delay));
+		Timeout timeout = new Timeout(this, task, deadline);
+		additions.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * @return - Number of buckets of the wheel
+	 */
+	public int getWheelSize() {
+		return wheel.length;
+	}
+
+	private void run() {
+
+		while (running) {
+			long deadline = tickNanos * (tick + 1);
+			long sleepNanos = deadline - (System.nanoTime() - startTime);
+			if (sleepNanos > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				} catch (InterruptedException e) {
+					if (!running) {
+						break;
+					}
+				}
+				continue;
+			}
+
+			try {
+				removeCancelled();
+				transferAdditions();
+				wheel[(int) (tick & mask)].expire();
+			} catch (Exception e) {
+				LOG.error("Unexpected error in timing wheel | name : " + name, e);
+			}
+			tick++;
+		}
+	}
+
+	private void removeCancelled() {
+
+		Timeout timeout;
+		while ((timeout = cancellations.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void transferAdditions() {
+
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			Timeout timeout = additions.poll();
+			if (timeout == null) {
+				return;
+			}
+			if (timeout.isCancelled()) {
+				continue;
+			}
+			long expiryTick = timeout.deadline / tickNanos;
+			timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+
+			// a timeout whose tick already passed goes into the current bucket
+			wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+		}
+	}
+
+	/**
+	 * Handle of a scheduled task
+	 */
+	public static final class Timeout {
+
+		private static final int ST_PENDING = 0;
+		private static final int ST_CANCELLED = 1;
+		private static final int ST_EXPIRED = 2;
+
+		private final HashedTimingWheel timingWheel;
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(ST_PENDING);
+
+		// only accessed from the wheel thread
+		private long remainingRounds;
+		private Bucket bucket;
+		private Timeout next;
+		private Timeout prev;
+
+		private Timeout(HashedTimingWheel timingWheel, Runnable task, long deadline) {
+			this.timingWheel = timingWheel;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels the timeout. Returns false if it already expired or was cancelled.
+		 *
+		 * @return - True if the timeout was cancelled by this call
+		 */
+		public boolean cancel() {
+
+			if (!state.compareAndSet(ST_PENDING, ST_CANCELLED)) {
+				return false;
+			}
+			timingWheel.cancellations.add(this);
+			return true;
+		}
+
+		/**
+		 * @return - True if the timeout was cancelled
+		 */
+		public boolean isCancelled() {
+			return state.get() == ST_CANCELLED;
+		}
+
+		/**
+		 * @return - True if the timeout expired and its task was handed to the
+		 *         executor
+		 */
+		public boolean isExpired() {
+			return state.get() == ST_EXPIRED;
+		}
+
+		private void expire() {
+
+			if (!state.compareAndSet(ST_PENDING, ST_EXPIRED)) {
+				return;
+			}
+			try {
+				timingWheel.executor.execute(task);
+			} catch (Exception e) {
+				LOG.warn("Failed to run an expired timeout | name : " + timingWheel.name, e);
+			}
+		}
+	}
+
+	/**
+	 * A doubly linked list of the timeouts hashed to one tick
+	 */
+	private static final class Bucket {
+
+		private Timeout head;
+		private Timeout tail;
+
+		private void add(Timeout timeout) {
+
+			timeout.bucket = this;
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		private void expire() {
+
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.remainingRounds <= 0) {
+					remove(timeout);
+					timeout.expire();
+				} else if (timeout.isCancelled()) {
+					remove(timeout);
+				} else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+
+		private void remove(Timeout timeout) {
+
+			if (timeout.bucket != this) {
+				return;
+			}
+			if (timeout.prev != null) {
+				timeout.prev.next = timeout.next;
+			} else {
+				head = timeout.next;
+			}
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			} else {
+				tail = timeout.prev;
+			}
+			timeout.next = null;
+			timeout.prev = null;
+			timeout.bucket = null;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.globalrelay.servicemonitor.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed memory, lock-free latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values are recorded in microseconds into log-linear buckets: values below
+ * {@value #SUB_BUCKET_COUNT} are counted exactly, and every following power of
+ * two is split into {@value #SUB_BUCKET_COUNT} equally sized sub-buckets. This
+ * keeps the relative error of any reported percentile below 1/16 while using
+ * a constant {@value #BUCKET_COUNT} counters per histogram, no matter how many
+ * values are recorded. Values above {@link #MAX_TRACKABLE_VALUE} (about 134
+ * seconds) are counted in the highest bucket.
+ * <p>
+ * Recording is a single atomic increment plus a compare-and-set on the
+ * maximum, so any number of threads can record concurrently. Percentile
+ * queries read the counters without locking and may observe values recorded
+ * while the query runs.
+ * 
+ * @author Ravikiran Butti
+ *
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_MAGNITUDE = 26;
+
+	/**
+	 * Number of counters held by every histogram
+	 */
+	public static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	/**
+	 * Highest value, in microseconds, that is recorded without being clamped
+	 */
+	public static final long MAX_TRACKABLE_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+	private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKET_COUNT);
+
+	private final AtomicLong maxValue = new AtomicLong();
+
+	/**
+	 * Records a latency value
+	 * 
+	 * @param micros - latency in microseconds
+	 */
+	public void recordValue(long micros) {
+
+		long value = Math.min(Math.max(0L, micros), MAX_TRACKABLE_VALUE);
+		counts.incrementAndGet(bucketIndex(value));
+
+		long max;
+		while (value > (max = maxValue.get())) {
+			if (maxValue.compareAndSet(max, value)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return - total number of values recorded
+	 */
+	public long getTotalCount() {
+
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			total += counts.get(i);
+		}
+		return total;
+	}
+
+	/**
+	 * @return - highest value recorded in microseconds
+	 */
+	public long getMaxValue() {
+		return maxValue.get();
+	}
+
+	/**
+	 * Returns the value at the given percentile. The returned value is the
+	 * highest value that falls into the same bucket as the percentile, capped at
+	 * the highest recorded value.
+	 * 
+	 * @param percentile - percentile between 0 and 100
+	 * @return - value at the percentile in microseconds, or zero if nothing was
+	 *         recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+
+		long[] snapshot = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0L;
+		}
+
+		double requested = Math.min(Math.max(0.0d, percentile), 100.0d);
+		long target = Math.max(1L, (long) Math.ceil(requested / 100.0d * total));
+
+		long cumulative = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += snapshot[i];
+			if (cumulative >= target) {
+				return Math.min(highestEquivalentValue(i), getMaxValue());
+			}
+		}
+		return getMaxValue();
+	}
+
+	/**
+	 * Returns the index of the bucket a value is counted in
+	 */
+	static int bucketIndex(long value) {
+
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int shift = magnitude - SUB_BUCKET_BITS;
+		return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+	}
+
+	/**
+	 * Returns the highest value that is counted in the given bucket
+	 */
+	static long highestEquivalentValue(int index) {
+
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+		int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+		long lowest = ((long) (SUB_BUCKET_COUNT + subBucket)) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,246 @@
+package com.globalrelay.servicemonitor.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed size file of ring buffers of samples, mapped into memory.
+ * <p>
+ * The file is split into a fixed number of slots, and every slot holds the
+ * last {@code capacity} samples of one key. A sample is a timestamp, a small
+ * type and a value of up to 56 bits, packed into 16 bytes. Appending a sample
+ * overwrites the oldest one of the slot in place, so the file never grows and
+ * nothing is ever compacted. Since the samples live in the mapped file and not
+ * on the heap, they survive a restart and are available again as soon as the
+ * file is mapped, without a load step.
+ * <p>
+ * Every slot starts with the key it belongs to and the number of samples ever
+ * appended to it. Appending a sample for a different key than the one stored
+ * in the slot resets the slot, and reading a slot for a different key returns
+ * nothing, so a stale slot is never mistaken for the samples of another key.
+ * Readers visit the samples directly in the mapped buffer, newest first,
+ * without copying them into objects. Access to a slot is guarded by one of a
+ * fixed number of lock stripes.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+public final class MappedSampleRing {
+
+	private static Logger LOG = LoggerFactory.getLogger(MappedSampleRing.class);
+
+	private static final int MAGIC = 0x534d5252;
+	private static final int VERSION = 1;
+
+	private static final int FILE_HEADER_BYTES = 64;
+	private static final int SLOT_HEADER_BYTES = 16;
+	private static final int SAMPLE_BYTES = 16;
+
+	private static final int LOCK_STRIPES = 64;
+
+	/**
+	 * Highest type that can be stored with a sample
+	 */
+	public static final int MAX_TYPE = 0xff;
+
+	/**
+	 * Highest value that can be stored with a sample; larger values are clamped
+	 */
+	public static final long MAX_VALUE = (1L << 56) - 1;
+
+	private final File file;
+	private final int slotCount;
+	private final int capacity;
+	private final int slotBytes;
+	private final RandomAccessFile raf;
+	private final MappedByteBuffer buffer;
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	/**
+	 * Maps the given file, creating it if it does not exist. A file with a
+	 * different layout is discarded and created again.
+	 *
+	 * @param file      - File holding the ring buffers
+	 * @param slotCount - Number of slots of the file
+	 * @param capacity  - Number of samples kept per slot
+	 * @throws IOException - Exception thrown if the file cannot be mapped
+	 */
+	public MappedSampleRing(File file, int slotCount, int capacity) throws IOException {
+
+		if (slotCount <= 0 || capacity <= 0) {
+			throw new IllegalArgumentException("slotCount and capacity must be greater than 0 : " + slotCount + ", "
+					+ capacity);
+		}
+		this.file = file;
+		this.slotCount = slotCount;
+		this.capacity = capacity;
+		this.slotBytes = SLOT_HEADER_BYTES + capacity * SAMPLE_BYTES;
+		long size = FILE_HEADER_BYTES + (long) slotCount * slotBytes;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("File of " + slotCount + " slots of " + capacity
+					+ " samples exceeds 2 GB, use fewer slots per file");
+		}
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+
+		boolean exists = file.exists() && file.length() == size;
+		this.raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(size);
+			this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+
+		if (!exists || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != slotCount
+				|| buffer.getInt(12) != capacity) {
+			if (exists) {
+				LOG.warn("Discarding sample file with a different layout | file : {}", file);
+			}
+			for (int slot = 0; slot < slotCount; slot++) {
+				buffer.putLong(slotOffset(slot), 0L);
+				buffer.putLong(slotOffset(slot) + 8, 0L);
+			}
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, slotCount);
+			buffer.putInt(12, capacity);
+			buffer.putInt(0, MAGIC);
+		}
+	}
+
+	/**
+	 * Appends a sample to a slot, overwriting its oldest sample once the slot is
+	 * full
+	 *
+	 * @param slot      - Index of the slot
+	 * @param key       - Key the slot belongs to
+	 * @param timestamp - Time of the sample
+	 * @param type      - Type of the sample, between 0 and {@value #MAX_TYPE}
+	 * @param value     - Value of the sample, clamped to {@link #MAX_VALUE}
+	 */
+	public void append(int slot, long key, long timestamp, int type, long value) {
+
+		if (type < 0 || type > MAX_TYPE) {
+			throw new IllegalArgumentException("type must be between 0 and " + MAX_TYPE + " : " + type);
+		}
+		int offset = slotOffset(slot);
+		long packed = ((long) type << 56) | Math.min(Math.max(0L, value), MAX_VALUE);
+		synchronized (lock(slot)) {
+			long count = buffer.getLong(offset) == key ? buffer.getLong(offset + 8) : 0L;
+			int sample = offset + SLOT_HEADER_BYTES + (int) (count % capacity) * SAMPLE_BYTES;
+			buffer.putLong(sample, timestamp);
+			buffer.putLong(sample + 8, packed);
+			buffer.putLong(offset, key);
+			buffer.putLong(offset + 8, count + 1);
+		}
+	}
+
+	/**
+	 * Visits the most recent samples of a slot, newest first
+	 *
+	 * @param slot    - Index of the slot
+	 * @param key     - Key the slot belongs to
+	 * @param limit   - Maximum number of samples to visit
+	 * @param visitor - Visitor called for every sample
+	 * @return - Number of samples visited
+	 */
+	public int read(int slot, long key, int limit, SampleVisitor visitor) {
+
+		int offset = slotOffset(slot);
+		synchronized (lock(slot)) {
+			if (buffer.getLong(offset) != key) {
+				return 0;
+			}
+			long count = buffer.getLong(offset + 8);
+			int visited = (int) Math.min(Math.min(count, capacity), Math.max(0, limit));
+			for (int i = 1; i <= visited; i++) {
+				int sample = offset + SLOT_HEADER_BYTES + (int) ((count - i) % capacity) * SAMPLE_BYTES;
+				long packed = buffer.getLong(sample + 8);
+				visitor.visit(buffer.getLong(sample), (int) (packed >>> 56), packed & MAX_VALUE);
+			}
+			return visited;
+		}
+	}
+
+	/**
+	 * @param slot - Index of the slot
+	 * @param key  - Key the slot belongs to
+	 * @return - Number of samples ever appended to the slot for the given key
+	 */
+	public long count(int slot, long key) {
+
+		int offset = slotOffset(slot);
+		synchronized (lock(slot)) {
+			return buffer.getLong(offset) == key ? buffer.getLong(offset + 8) : 0L;
+		}
+	}
+
+	/**
+	 * Writes the changes of the mapped buffer to the file
+	 */
+	public void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Writes the changes to the file and closes it. The ring must not be used
+	 * afterwards.
+	 */
+	public void close() {
+
+		force();
+		try {
+			raf.close();
+		} catch (IOException e) {
+			LOG.warn("Failed to close sample file | file : " + file, e);
+		}
+	}
+
+	/**
+	 * @return - Number of slots of the file
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+
+	/**
+	 * @return - Number of samples kept per slot
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private int slotOffset(int slot) {
+
+		if (slot < 0 || slot >= slotCount) {
+			throw new IndexOutOfBoundsException("slot must be between 0 and " + (slotCount - 1) + " : " + slot);
+		}
+		return FILE_HEADER_BYTES + slot * slotBytes;
+	}
+
+	private Object lock(int slot) {
+		return locks[slot & (LOCK_STRIPES - 1)];
+	}
+
+	/**
+	 * Callback receiving the samples of a slot
+	 */
+	@FunctionalInterface
+	public interface SampleVisitor {
+
+		/**
+		 * @param timestamp - Time of the sample
+		 * @param type      - Type of the sample
+		 * @param value     - Value of the sample
+		 */
+		void visit(long timestamp, int type, long value);
+	}
+}
@@ -0,0 +1,289 @@
+package com.globalrelay.servicemonitor.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A columnar codec for blocks of probe samples, each a timestamp, a small
+ * outcome code and a latency.
+ * <p>
+ * The three columns are encoded separately, each with the scheme that suits
+ * how its values change from one sample to the next:
+ * <ul>
+ * <li>Timestamps are delta-of-delta encoded: the first timestamp and the first
+ * delta are stored as they are, then only the change of the delta. Probes
+ * fired on a fixed interval produce a change of 0 that takes a single byte.
+ * <li>Outcomes are run-length encoded as pairs of an outcome code and the
+ * length of its run, so a service that stays up for a day takes two bytes.
+ * <li>Latencies are XOR encoded against the previous latency, keeping only the
+ * bits that changed, and stored as variable length integers.
+ * </ul>
+ * All integers are written as LEB128 variable length integers, signed values
+ * zigzag encoded first. A block starts with the number of samples and the
+ * byte lengths of the timestamp and outcome columns, so the
+ * {@linkplain Reader} decodes the three columns side by side, one sample at a
+ * time, without materializing the block.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+public final class ProbeBlockCodec {
+
+	private ProbeBlockCodec() {
+	}
+
+	/**
+	 * Builds one block from samples added in time order
+	 */
+	public static final class Encoder {
+
+		private final VarintBuffer timestamps = new VarintBuffer(64);
+		private final VarintBuffer outcomes = new VarintBuffer(16);
+		private final VarintBuffer latencies = new VarintBuffer(64);
+
+		private int count;
+		private long lastTimestamp;
+		private long lastDelta;
+		private int runOutcome = -1;
+		private long runLength;
+		private long lastLatency;
+
+		/**
+		 * Adds a sample to the block
+		 *
+		 * @param timestamp - Time of the sample
+		 * @param outcome   - Outcome code of the sample, between 0 and 255
+		 * @param latency   - Latency of the sample, not negative
+		 */
+		public void add(long timestamp, int outcome, long latency) {
+
+			if (outcome < 0 || outcome > 0xff) {
+				throw new IllegalArgumentException("outcome must be between 0 and 255 : " + outcome);
+			}
+			if (latency < 0) {
+				throw new IllegalArgumentException("latency must not be negative : " + latency);
+			}
+
+			if (count == 0) {
+				timestamps.writeSigned(timestamp);
+			} else {
+				long delta = timestamp - lastTimestamp;
+				timestamps.writeSigned(count == 1 ? delta : delta - lastDelta);
+				lastDelta = delta;
+			}
+			lastTimestamp = timestamp;
+
+			if (outcome != runOutcome) {
+				flushRun();
+				runOutcome = outcome;
+			}
+			runLength++;
+
+			latencies.writeUnsigned(count == 0 ? latency : latency ^ lastLatency);
+			lastLatency = latency;
+			count++;
+		}
+
+		/**
+		 * @return - Number of samples added
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * @return - Encoded block holding all samples added so far
+		 */
+		public byte[] toByteArray() {
+
+			flushRun();
+			VarintBuffer block = new VarintBuffer(15 + timestamps.size + outcomes.size + latencies.size);
+			block.writeUnsigned(count);
+			block.writeUnsigned(timestamps.size);
+			block.writeUnsigned(outcomes.size);
+			block.write(timestamps);
+			block.write(outcomes);
+			block.write(latencies);
+			return block.toByteArray();
+		}
+
+		private void flushRun() {
+
+			if (runLength > 0) {
+				outcomes.writeByte(runOutcome);
+				outcomes.writeUnsigned(runLength);
+				runLength = 0;
+			}
+		}
+	}
+
+	/**
+	 * Decodes a block one sample at a time, in the order the samples were added
+	 */
+	public static final class Reader {
+
+		private final byte[] block;
+		private final int count;
+
+		private int cursor;
+		private int timestampPosition;
+		private int outcomePosition;
+		private int latencyPosition;
+
+		private int index;
+		private long timestamp;
+		private long delta;
+		private int outcome;
+		private long runRemaining;
+		private long latency;
+
+		/**
+		 * @param block - Block created by an {@linkplain Encoder}
+		 */
+		public Reader(byte[] block) {
+
+			this.block = block;
+			this.count = (int) readUnsigned();
+			int timestampLength = (int) readUnsigned();
+			int outcomeLength = (int) readUnsigned();
+			this.timestampPosition = cursor;
+			this.outcomePosition = timestampPosition + timestampLength;
+			this.latencyPosition = outcomePosition + outcomeLength;
+			if (count < 0 || timestampLength < 0 || outcomeLength < 0 || latencyPosition > block.length) {
+				throw new IllegalArgumentException("Corrupt block of " + block.length + " bytes");
+			}
+		}
+
+		/**
+		 * @return - Number of samples of the block
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * @return - True if another sample can be read
+		 */
+		public boolean hasNext() {
+			return index < count;
+		}
+
+		/**
+		 * Moves to the next sample
+		 */
+		public void next() {
+
+			if (index >= count) {
+				throw new NoSuchElementException();
+			}
+			cursor = timestampPosition;
+			if (index == 0) {
+				timestamp = readSigned();
+			} else {
+				delta = index == 1 ? readSigned() : delta + readSigned();
+				timestamp += delta;
+			}
+			timestampPosition = cursor;
+
+			if (runRemaining == 0) {
+				cursor = outcomePosition;
+				outcome = readByte();
+				runRemaining = readUnsigned();
+				outcomePosition = cursor;
+			}
+			runRemaining--;
+
+			cursor = latencyPosition;
+			long bits = readUnsigned();
+			latency = index == 0 ? bits : latency ^ bits;
+			latencyPosition = cursor;
+			index++;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public int getOutcome() {
+			return outcome;
+		}
+
+		public long getLatency() {
+			return latency;
+		}
+
+		private int readByte() {
+
+			if (cursor >= block.length) {
+				throw new IllegalArgumentException("Corrupt block of " + block.length + " bytes");
+			}
+			return block[cursor++] & 0xff;
+		}
+
+		private long readUnsigned() {
+
+			long value = 0L;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = readByte();
+				value |= (long) (b & 0x7f) << shift;
+				if (b < 0x80) {
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("Corrupt variable length integer at " + cursor);
+		}
+
+		private long readSigned() {
+
+			long value = readUnsigned();
+			return (value >>> 1) ^ -(value & 1);
+		}
+	}
+
+	/**
+	 * A growable byte array writing variable length integers
+	 */
+	private static final class VarintBuffer {
+
+		private byte[] bytes;
+		private int size;
+
+		private VarintBuffer(int capacity) {
+			this.bytes = new byte[Math.max(16, capacity)];
+		}
+
+		private void writeByte(int value) {
+
+			if (size == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		private void writeUnsigned(long value) {
+
+			while ((value & ~0x7fL) != 0) {
+				writeByte((int) ((value & 0x7f) | 0x80));
+				value >>>= 7;
+			}
+			writeByte((int) value);
+		}
+
+		private void writeSigned(long value) {
+			writeUnsigned((value << 1) ^ (value >> 63));
+		}
+
+		private void write(VarintBuffer other) {
+
+			if (size + other.size > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + other.size));
+			}
+			System.arraycopy(other.bytes, 0, bytes, size, other.size);
+			size += other.size;
+		}
+
+		private byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+}
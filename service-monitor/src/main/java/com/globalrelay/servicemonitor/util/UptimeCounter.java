@@ -0,0 +1,160 @@
+package com.globalrelay.servicemonitor.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+
+/**
+ * Rolling counters of probe outcomes in minute, hour and day buckets.
+ * <p>
+ * The counter keeps the last 60 minutes, the last 24 hours and the last 30
+ * days in three rings of buckets. Every bucket remembers which minute, hour or
+ * day it currently counts and holds four counters: up, down, timeout and
+ * refused, where down counts every outcome that is not up. Recording an
+ * outcome increments one bucket of every ring, resetting a bucket first when
+ * it still holds an older period, so it takes constant time and the counter
+ * never grows. A window is answered from the finest ring covering it, by
+ * summing at most 60 buckets; its boundary is aligned to the bucket size, so
+ * the current minute, hour or day is always included as far as it has
+ * elapsed.
+ *
+ * @author Ravikiran Butti
+ *
+ */
+public final class UptimeCounter {
+
+	public static final int UP = 0;
+	public static final int DOWN = 1;
+	public static final int TIMEOUT = 2;
+	public static final int REFUSED = 3;
+
+	/**
+	 * Number of counters held by every bucket, and length of the arrays returned
+	 * by {@link #getCounts(long, long)}
+	 */
+	public static final int COUNTER_COUNT = 4;
+
+	/**
+	 * Longest window that can be answered
+	 */
+	public static final long MAX_WINDOW_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+	private final Ring minutes = new Ring(TimeUnit.MINUTES.toMillis(1), 60);
+	private final Ring hours = new Ring(TimeUnit.HOURS.toMillis(1), 24);
+	private final Ring days = new Ring(TimeUnit.DAYS.toMillis(1), 30);
+
+	/**
+	 * Records an outcome
+	 *
+	 * @param timestamp - Time of the outcome in epoch milliseconds
+	 * @param outcome   - Outcome of a probe
+	 */
+	public synchronized void record(long timestamp, ProbeOutcome outcome) {
+
+		minutes.record(timestamp, outcome);
+		hours.record(timestamp, outcome);
+		days.record(timestamp, outcome);
+	}
+
+	/**
+	 * Returns the counters of the given window ending now
+	 *
+	 * @param now          - Current time in epoch milliseconds
+	 * @param windowMillis - Length of the window, up to
+	 *                     {@link #MAX_WINDOW_MILLIS}
+	 * @return - Up, down, timeout and refused counters of the window
+	 */
+	public synchronized long[] getCounts(long now, long windowMillis) {
+
+		long[] counts = new long[COUNTER_COUNT];
+		addCounts(now, windowMillis, counts);
+		return counts;
+	}
+
+	/**
+	 * Adds the counters of the given window ending now to the given counters
+	 *
+	 * @param now          - Current time in epoch milliseconds
+	 * @param windowMillis - Length of the window, up to
+	 *                     {@link #MAX_WINDOW_MILLIS}
+	 * @param counts       - Up, down, timeout and refused counters to add to
+	 */
+	public synchronized void addCounts(long now, long windowMillis, long[] counts) {
+
+		if (windowMillis <= 0 || windowMillis > MAX_WINDOW_MILLIS) {
+			throw new IllegalArgumentException("windowMillis must be between 1 and " + MAX_WINDOW_MILLIS + " : "
+					+ windowMillis);
+		}
+		if (windowMillis <= minutes.span()) {
+			minutes.addCounts(now, windowMillis, counts);
+		} else if (windowMillis <= hours.span()) {
+			hours.addCounts(now, windowMillis, counts);
+		} else {
+			days.addCounts(now, windowMillis, counts);
+		}
+	}
+
+	/**
+	 * A ring of buckets of one size
+	 */
+	private static final class Ring {
+
+		private final long unitMillis;
+		private final long[] periods;
+		private final long[] counts;
+
+		private Ring(long unitMillis, int size) {
+			this.unitMillis = unitMillis;
+			this.periods = new long[size];
+			this.counts = new long[size * COUNTER_COUNT];
+			Arrays.fill(periods, -1L);
+		}
+
+		private long span() {
+			return unitMillis * periods.length;
+		}
+
+		private void record(long timestamp, ProbeOutcome outcome) {
+
+			long period = Math.floorDiv(timestamp, unitMillis);
+			int bucket = (int) Math.floorMod(period, (long) periods.length);
+			int offset = bucket * COUNTER_COUNT;
+			if (periods[bucket] != period) {
+				if (periods[bucket] > period) {
+					// older than the period the bucket already moved on to
+					return;
+				}
+				periods[bucket] = period;
+				for (int i = 0; i < COUNTER_COUNT; i++) {
+					counts[offset + i] = 0L;
+				}
+			}
+
+			if (outcome == ProbeOutcome.UP) {
+				counts[offset + UP]++;
+				return;
+			}
+			counts[offset + DOWN]++;
+			if (outcome == ProbeOutcome.TIMEOUT) {
+				counts[offset + TIMEOUT]++;
+			} else if (outcome == ProbeOutcome.REFUSED) {
+				counts[offset + REFUSED]++;
+			}
+		}
+
+		private void addCounts(long now, long windowMillis, long[] result) {
+
+			long current = Math.floorDiv(now, unitMillis);
+			long buckets = (windowMillis + unitMillis - 1) / unitMillis;
+			for (int bucket = 0; bucket < periods.length; bucket++) {
+				long period = periods[bucket];
+				if (period > current - buckets && period <= current) {
+					for (int i = 0; i < COUNTER_COUNT; i++) {
+						result[i] += counts[bucket * COUNTER_COUNT + i];
+					}
+				}
+			}
+		}
+	}
+}
@@ -3,7 +3,9 @@ package com.globalrelay.servicemonitor.controller;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -12,8 +14,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -24,7 +24,9 @@ import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorResponse;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.domain.TaskSummary;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
 import com.globalrelay.servicemonitor.service.SchedulerService;
 
@@ -82,6 +84,27 @@ public class ServiceMonitorControllerTest {
 	}
 	
 	
+	@Test
+	public void testCreateTasks() throws Exception {
+
+		List<ServiceMonitorTask> tasks = Collections.singletonList(new ServiceMonitorTask());
+		ObjectMapper mapper = new ObjectMapper();
+
+		// mock response
+		Mockito.when(taskService.createTasks(Mockito.anyList()))
+				.thenReturn(Collections.singletonList(ServiceMonitorResponse.success("created")));
+
+		// make service call
+		RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/create/bulk").accept(MediaType.APPLICATION_JSON)
+				.content(mapper.writeValueAsString(tasks)).contentType(MediaType.APPLICATION_JSON);
+
+		MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+		MockHttpServletResponse response = result.getResponse();
+
+		assertEquals(HttpStatus.OK.value(), response.getStatus());
+		assertTrue(response.getContentAsString().contains("ServiceMonitorTasks are processed"));
+	}
+
 	@Test
 	public void testGetTask() throws Exception {
 
@@ -247,13 +270,15 @@ public class ServiceMonitorControllerTest {
 	public void testGetTasks() throws Exception {
 
 		HashMap<String, Object> param = new HashMap<>();
-		param.put("offset", "0");
-		param.put("limit", "500");
-		Page<ServiceMonitorTask> page = Page.empty();
+		param.put("after", "10");
+		param.put("limit", "1");
+		TaskSummary task = new TaskSummary();
+		task.setId(11l);
 		ObjectMapper mapper = new ObjectMapper();
 
 		// mock response
-		Mockito.when(taskService.getTasks(Mockito.any(Pageable.class))).thenReturn(page);
+		Mockito.when(taskService.getTasks(10l, 1)).thenReturn(Collections.singletonList(task));
+		Mockito.when(taskService.getTaskCount()).thenReturn(25l);
 
 		// make service call
 		RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/list").accept(MediaType.APPLICATION_JSON)
@@ -265,6 +290,33 @@ public class ServiceMonitorControllerTest {
 		assertEquals(HttpStatus.OK.value(), response.getStatus());
 		System.out.println(response.getContentAsString());
 		assertTrue(response.getContentAsString().contains("data found"));
+		assertTrue(response.getContentAsString().contains("\"total\":25"));
+		assertTrue(response.getContentAsString().contains("\"next\":11"));
+
+	}
+
+	@Test
+	public void testGetTasks_Offset() throws Exception {
+
+		HashMap<String, Object> param = new HashMap<>();
+		param.put("offset", "20");
+		param.put("limit", "10");
+		ObjectMapper mapper = new ObjectMapper();
+
+		// mock response
+		Mockito.when(taskService.getTaskIdBefore(20)).thenReturn(42l);
+		Mockito.when(taskService.getTasks(42l, 10)).thenReturn(Collections.emptyList());
+
+		// make service call
+		RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/list").accept(MediaType.APPLICATION_JSON)
+				.content(mapper.writeValueAsString(param)).contentType(MediaType.APPLICATION_JSON);
+
+		MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+		MockHttpServletResponse response = result.getResponse();
+
+		assertEquals(HttpStatus.OK.value(), response.getStatus());
+		assertTrue(response.getContentAsString().contains("\"next\":null"));
+		Mockito.verify(taskService).getTasks(42l, 10);
 
 	}
 	
@@ -277,7 +329,7 @@ public class ServiceMonitorControllerTest {
 		ObjectMapper mapper = new ObjectMapper();
 
 		// mock response
-		Mockito.when(taskService.getTasks(Mockito.any(Pageable.class))).thenThrow(ServiceMonitorServiceException.class);
+		Mockito.when(taskService.getTasks(Mockito.anyLong(), Mockito.anyInt())).thenThrow(ServiceMonitorServiceException.class);
 
 		// make service call
 		RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/list").accept(MediaType.APPLICATION_JSON)
@@ -0,0 +1,59 @@
+package com.globalrelay.servicemonitor.controller;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
+import com.globalrelay.servicemonitor.service.UptimeService;
+import com.globalrelay.servicemonitor.service.impl.ProbeHistoryServiceImpl;
+import com.globalrelay.servicemonitor.service.impl.RecentSampleStore;
+
+@RunWith(SpringRunner.class)
+public class ServiceMonitorMetricsControllerTest {
+
+	@Mock
+	private LatencyMetricsService latencyMetricsService;
+
+	@Mock
+	private UptimeService uptimeService;
+
+	@Mock
+	private ProbeHistoryServiceImpl probeHistoryService;
+
+	@Mock
+	private RecentSampleStore recentSampleStore;
+
+	@InjectMocks
+	ServiceMonitorMetricsController controller;
+
+	ServiceEndpoint endpoint = new ServiceEndpoint("example.com", 80);
+
+	@Test
+	public void testLookupsNormalizeHost() throws Exception {
+
+		assertEquals("success", controller.getLatency("Example.COM", 80).getStatus());
+		assertEquals("success", controller.getUptime("Example.COM", 80).getStatus());
+		controller.getHistory("Example.COM", 80, 0l, 1000l);
+		controller.getSamples("Example.COM", 80, 10);
+
+		Mockito.verify(latencyMetricsService).getLatencyPercentiles(endpoint);
+		Mockito.verify(uptimeService).getUptime(endpoint);
+		Mockito.verify(probeHistoryService).getHistory(endpoint, 0l, 1000l);
+		Mockito.verify(recentSampleStore).getRecent(endpoint, 10);
+	}
+
+	@Test
+	public void testOf() {
+
+		ServiceEndpoint normalized = ServiceEndpoint.of(" Example.COM ", 80);
+		assertEquals("example.com", normalized.getHostName());
+		assertEquals(endpoint, normalized);
+	}
+}
@@ -0,0 +1,106 @@
+package com.globalrelay.servicemonitor.facade.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.TriggerKey;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+
+@RunWith(SpringRunner.class)
+public class GroupedSchedulerFacadeImplTest {
+
+	private static final String EVERY_MINUTE = "0 0/1 * 1/1 * ? *";
+	private static final String EVERY_HOUR = "0 0 0/1 1/1 * ? *";
+
+	@Mock
+	private Scheduler scheduler;
+
+	@InjectMocks
+	GroupedSchedulerFacadeImpl facade;
+
+	@Test
+	public void testCreateJobs_OneTriggerPerExpression() throws Exception {
+
+		facade.createJobs(Arrays.asList(task(1l, EVERY_MINUTE), task(2l, EVERY_MINUTE), task(3l, EVERY_HOUR)));
+
+		assertEquals(2, facade.getGroupCount());
+		assertEquals(Arrays.asList(1l, 2l), facade.getGroupMembers(EVERY_MINUTE));
+		assertEquals(Arrays.asList(3l), facade.getGroupMembers(EVERY_HOUR));
+		assertTrue(facade.getJobStatus("2"));
+		assertEquals(new HashSet<String>(Arrays.asList("1", "3")), facade.getActiveJobs(Arrays.asList("1", "3", "4")));
+		Mockito.verify(scheduler).scheduleJobs(Mockito.argThat(jobs -> jobs.size() == 2), Mockito.eq(true));
+	}
+
+	@Test
+	public void testCreateJob_ExistingGroup() throws Exception {
+
+		facade.createJob(task(1l, EVERY_MINUTE));
+		facade.createJob(task(2l, EVERY_MINUTE));
+
+		assertEquals(1, facade.getGroupCount());
+		Mockito.verify(scheduler, Mockito.times(1)).scheduleJobs(Mockito.anyMap(), Mockito.eq(true));
+	}
+
+	@Test
+	public void testCreateJob_ExpressionChanged() throws Exception {
+
+		facade.createJob(task(1l, EVERY_MINUTE));
+		facade.createJob(task(1l, EVERY_HOUR));
+
+		assertEquals(1, facade.getGroupCount());
+		assertEquals(Collections.emptyList(), facade.getGroupMembers(EVERY_MINUTE));
+		Mockito.verify(scheduler).unscheduleJob(TriggerKey.triggerKey(EVERY_MINUTE, "CRON_GROUP"));
+	}
+
+	@Test
+	public void testStopJob() throws Exception {
+
+		facade.createJobs(Arrays.asList(task(1l, EVERY_MINUTE), task(2l, EVERY_MINUTE)));
+
+		facade.stopJob("1");
+		assertFalse(facade.getJobStatus("1"));
+		assertEquals(1, facade.getGroupCount());
+		Mockito.verify(scheduler, Mockito.never()).deleteJob(Mockito.any(JobKey.class));
+
+		facade.stopJob("2");
+		assertEquals(0, facade.getGroupCount());
+		Mockito.verify(scheduler).deleteJob(JobKey.jobKey(EVERY_MINUTE, "CRON_GROUP"));
+	}
+
+	@Test(expected = Exception.class)
+	public void testCreateJobs_exception() throws Exception {
+
+		Mockito.doThrow(IllegalStateException.class).when(scheduler).scheduleJobs(Mockito.anyMap(), Mockito.eq(true));
+
+		try {
+			facade.createJob(task(1l, EVERY_MINUTE));
+		} finally {
+			assertFalse(facade.getJobStatus("1"));
+		}
+	}
+
+	private static ServiceMonitorTask task(Long id, String cronExpression) {
+
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(id);
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setCronExpression(cronExpression);
+		task.setStatus(status);
+		return task;
+	}
+}
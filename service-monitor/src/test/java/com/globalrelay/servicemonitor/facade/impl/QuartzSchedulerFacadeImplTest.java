@@ -1,5 +1,10 @@
 package com.globalrelay.servicemonitor.facade.impl;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 
 import org.junit.Test;
@@ -55,6 +60,63 @@ public class QuartzSchedulerFacadeImplTest {
 		facade.stopJob("1");
 	}
 
+	@Test
+	public void testCreateJobs() throws Exception {
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(1l);
+		task.setJobClass("abd");
+
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setCronExpression("0 0/1 * 1/1 * ? *");
+		task.setStatus(status);
+
+		facade.createJobs(Collections.singletonList(task));
+
+		Mockito.verify(scheduler).scheduleJobs(Mockito.anyMap(), Mockito.eq(true));
+	}
+
+	@Test
+	public void testGetActiveJobs() throws Exception {
+
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(1l);
+		task.setJobClass("abd");
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setCronExpression("0 0/1 * 1/1 * ? *");
+		task.setStatus(status);
+
+		facade.createJob(task);
+		assertEquals(Collections.singleton("1"), facade.getActiveJobs(Arrays.asList("1", "2")));
+
+		facade.stopJob("1");
+		assertTrue(facade.getActiveJobs(Arrays.asList("1", "2")).isEmpty());
+
+		// the registry is read without a call to the scheduler
+		Mockito.verify(scheduler, Mockito.times(2)).checkExists(Mockito.any(TriggerKey.class));
+	}
+
+	@Test
+	public void testReconcile() throws Exception {
+
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(1l);
+		task.setJobClass("abd");
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setCronExpression("0 0/1 * 1/1 * ? *");
+		task.setStatus(status);
+		facade.createJobs(Collections.singletonList(task));
+
+		// job 1 completed and job 2 was scheduled outside the facade
+		Mockito.when(scheduler.getTriggerKeys(Mockito.any()))
+				.thenReturn(Collections.singleton(TriggerKey.triggerKey("2", "GROUP")));
+		Mockito.when(scheduler.checkExists(TriggerKey.triggerKey("1", "GROUP"))).thenReturn(false);
+		Mockito.when(scheduler.checkExists(TriggerKey.triggerKey("2", "GROUP"))).thenReturn(true);
+
+		assertEquals(2, facade.reconcile());
+		assertEquals(Collections.singleton("2"), facade.getActiveJobs(Arrays.asList("1", "2")));
+		assertEquals(0, facade.reconcile());
+	}
+
 	@Test
 	public void testGetJobStatus() throws Exception {
 
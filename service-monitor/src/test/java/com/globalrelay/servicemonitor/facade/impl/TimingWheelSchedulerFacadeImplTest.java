@@ -0,0 +1,95 @@
+package com.globalrelay.servicemonitor.facade.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
+import com.globalrelay.servicemonitor.service.ServiceMonitorService;
+import com.globalrelay.servicemonitor.util.CronCache;
+
+@RunWith(SpringRunner.class)
+public class TimingWheelSchedulerFacadeImplTest {
+
+	@Mock
+	private ServiceMonitorService monitorService;
+
+	@Spy
+	private CronCache cronCache = new CronCache(16);
+
+	@InjectMocks
+	TimingWheelSchedulerFacadeImpl facade;
+
+	ServiceMonitorTask task;
+
+	@Before
+	public void setUp() {
+
+		facade.start();
+
+		task = new ServiceMonitorTask();
+		task.setId(1l);
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setCronExpression("0/1 * * * * ?");
+		task.setStatus(status);
+	}
+
+	@After
+	public void tearDown() {
+		facade.stop();
+	}
+
+	@Test
+	public void testCreateJob() throws Exception {
+
+		facade.createJob(task);
+		assertTrue(facade.getJobStatus("1"));
+
+		Mockito.verify(monitorService, Mockito.timeout(3000).atLeast(2)).monitorStatus(1l);
+	}
+
+	@Test
+	public void testStopJob() throws Exception {
+
+		facade.createJob(task);
+		facade.stopJob("1");
+		assertFalse(facade.getJobStatus("1"));
+		assertTrue(facade.getActiveJobs(Collections.singletonList("1")).isEmpty());
+
+		Thread.sleep(1500);
+		Mockito.verify(monitorService, Mockito.never()).monitorStatus(1l);
+	}
+
+	@Test(expected = ServiceMonitorFacadeException.class)
+	public void testCreateJob_InvalidCron() throws Exception {
+
+		task.getStatus().setCronExpression("not a cron");
+		facade.createJob(task);
+	}
+
+	@Test
+	public void testFixedIntervalMillis() {
+
+		assertEquals(1000L, TimingWheelSchedulerFacadeImpl.fixedIntervalMillis("* * * * * ?"));
+		assertEquals(5000L, TimingWheelSchedulerFacadeImpl.fixedIntervalMillis("0/5 * * * * ?"));
+		assertEquals(60000L, TimingWheelSchedulerFacadeImpl.fixedIntervalMillis("0 0/1 * 1/1 * ? *"));
+		assertEquals(900000L, TimingWheelSchedulerFacadeImpl.fixedIntervalMillis("30 */15 * * * ?"));
+		assertEquals(0L, TimingWheelSchedulerFacadeImpl.fixedIntervalMillis("0/7 * * * * ?"));
+		assertEquals(0L, TimingWheelSchedulerFacadeImpl.fixedIntervalMillis("0 0 12 * * ?"));
+		assertEquals(0L, TimingWheelSchedulerFacadeImpl.fixedIntervalMillis("0 0/5 9-17 * * MON-FRI"));
+	}
+}
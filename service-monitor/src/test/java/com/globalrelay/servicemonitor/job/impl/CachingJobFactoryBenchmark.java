@@ -0,0 +1,77 @@
+package com.globalrelay.servicemonitor.job.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.job.AbstractJob;
+import com.globalrelay.servicemonitor.service.ServiceMonitorService;
+
+/**
+ * Compares the per fire cost of instantiating and wiring the job by reflection
+ * with the cached lookup of {@linkplain CachingJobFactory}.
+ * <p>
+ * The class name does not match the test patterns of surefire, so the
+ * benchmark is not part of the build. Run it on demand with
+ * {@code mvn test -Dtest=CachingJobFactoryBenchmark}.
+ */
+public class CachingJobFactoryBenchmark {
+
+	private static Logger LOG = LoggerFactory.getLogger(CachingJobFactoryBenchmark.class);
+
+	private static final String JOB_CLASS = ServiceMonitorJob.class.getName();
+
+	private static final int ITERATIONS = 20000;
+
+	DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	CachingJobFactory jobFactory = new CachingJobFactory();
+
+	@Before
+	public void setUp() {
+
+		AutowiredAnnotationBeanPostProcessor autowired = new AutowiredAnnotationBeanPostProcessor();
+		autowired.setBeanFactory(beanFactory);
+		CommonAnnotationBeanPostProcessor common = new CommonAnnotationBeanPostProcessor();
+		common.setBeanFactory(beanFactory);
+		beanFactory.addBeanPostProcessor(autowired);
+		beanFactory.addBeanPostProcessor(common);
+
+		beanFactory.registerSingleton("monitorService", Mockito.mock(ServiceMonitorService.class));
+		beanFactory.registerSingleton("jobFactory", jobFactory);
+		ReflectionTestUtils.setField(jobFactory, "beanFactory", beanFactory);
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void benchmarkGetJob() throws Exception {
+
+		long reflective = 0L;
+		long cached = 0L;
+
+		// first round warms up both paths
+		for (int round = 0; round < 2; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				AbstractJob job = (AbstractJob) Class.forName(JOB_CLASS).newInstance();
+				beanFactory.autowireBean(job);
+			}
+			reflective = (System.nanoTime() - start) / ITERATIONS;
+
+			start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				jobFactory.getJob(JOB_CLASS);
+			}
+			cached = (System.nanoTime() - start) / ITERATIONS;
+		}
+
+		LOG.info("Job instantiation per fire | reflection and autowiring : {} ns/op, cached : {} ns/op", reflective,
+				cached);
+	}
+}
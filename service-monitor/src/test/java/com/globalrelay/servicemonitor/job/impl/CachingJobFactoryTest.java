@@ -0,0 +1,74 @@
+package com.globalrelay.servicemonitor.job.impl;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.quartz.JobDetail;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.exception.ServiceMonitorJobException;
+import com.globalrelay.servicemonitor.job.AbstractJob;
+import com.globalrelay.servicemonitor.service.ServiceMonitorService;
+
+public class CachingJobFactoryTest {
+
+	private static final String JOB_CLASS = ServiceMonitorJob.class.getName();
+
+	DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	ServiceMonitorService monitorService = Mockito.mock(ServiceMonitorService.class);
+
+	CachingJobFactory jobFactory = new CachingJobFactory();
+
+	@Before
+	public void setUp() {
+
+		AutowiredAnnotationBeanPostProcessor autowired = new AutowiredAnnotationBeanPostProcessor();
+		autowired.setBeanFactory(beanFactory);
+		CommonAnnotationBeanPostProcessor common = new CommonAnnotationBeanPostProcessor();
+		common.setBeanFactory(beanFactory);
+		beanFactory.addBeanPostProcessor(autowired);
+		beanFactory.addBeanPostProcessor(common);
+
+		beanFactory.registerSingleton("monitorService", monitorService);
+		beanFactory.registerSingleton("jobFactory", jobFactory);
+		ReflectionTestUtils.setField(jobFactory, "beanFactory", beanFactory);
+	}
+
+	@Test
+	public void testGetJob() throws Exception {
+
+		AbstractJob job = jobFactory.getJob(JOB_CLASS);
+		assertSame(job, jobFactory.getJob(JOB_CLASS));
+		assertSame(monitorService, ReflectionTestUtils.getField(job, "monitorService"));
+	}
+
+	@Test(expected = ServiceMonitorJobException.class)
+	public void testGetJob_NotFound() throws Exception {
+		jobFactory.getJob("com.globalrelay.servicemonitor.job.impl.MissingJob");
+	}
+
+	@Test(expected = ServiceMonitorJobException.class)
+	public void testGetJob_NotAJob() throws Exception {
+		jobFactory.getJob(RouterJob.class.getName());
+	}
+
+	@Test
+	public void testNewJob() throws Exception {
+
+		JobDetail jobDetail = org.quartz.JobBuilder.newJob(RouterJob.class).withIdentity("1").build();
+		TriggerFiredBundle bundle = Mockito.mock(TriggerFiredBundle.class);
+		Mockito.when(bundle.getJobDetail()).thenReturn(jobDetail);
+
+		RouterJob job = (RouterJob) jobFactory.newJob(bundle, null);
+		assertSame(job, jobFactory.newJob(bundle, null));
+		assertNotNull(ReflectionTestUtils.getField(job, "jobFactory"));
+	}
+}
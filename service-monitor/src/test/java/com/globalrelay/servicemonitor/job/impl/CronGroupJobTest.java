@@ -0,0 +1,94 @@
+package com.globalrelay.servicemonitor.job.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.constant.ServiceMonitorJobConstant;
+import com.globalrelay.servicemonitor.domain.MonitoringBatch;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.facade.impl.GroupedSchedulerFacadeImpl;
+import com.globalrelay.servicemonitor.service.ServiceMonitorService;
+
+@RunWith(SpringRunner.class)
+public class CronGroupJobTest {
+
+	@Mock
+	private GroupedSchedulerFacadeImpl schedulerFacade;
+
+	@Mock
+	private ServiceMonitorService monitorService;
+
+	@Mock
+	private JobExecutionContext context;
+
+	@Mock
+	private JobDetail jobDetail;
+
+	@InjectMocks
+	private CronGroupJob job;
+
+	private static final String CRON = "0 * * ? * *";
+
+	private void setUpGroup() {
+
+		JobDataMap dataMap = new JobDataMap();
+		dataMap.put(ServiceMonitorJobConstant.CRON_EXPRESSION_KEY, CRON);
+		Mockito.when(context.getJobDetail()).thenReturn(jobDetail);
+		Mockito.when(jobDetail.getJobDataMap()).thenReturn(dataMap);
+		Mockito.when(schedulerFacade.getGroupMembers(CRON)).thenReturn(Arrays.asList(1l, 2l, 3l));
+		ReflectionTestUtils.setField(job, "batchSize", 2);
+	}
+
+	@Test
+	public void testExecute_StartsAllBatchesFirst() throws Exception {
+
+		setUpGroup();
+		MonitoringBatch first = batch(2);
+		MonitoringBatch second = batch(1);
+		Mockito.when(monitorService.startMonitoring(Arrays.asList(1l, 2l))).thenReturn(first);
+		Mockito.when(monitorService.startMonitoring(Arrays.asList(3l))).thenReturn(second);
+
+		job.execute(context);
+
+		InOrder order = Mockito.inOrder(monitorService);
+		order.verify(monitorService).startMonitoring(Arrays.asList(1l, 2l));
+		order.verify(monitorService).startMonitoring(Arrays.asList(3l));
+		order.verify(monitorService).completeMonitoring(first);
+		order.verify(monitorService).completeMonitoring(second);
+	}
+
+	@Test(expected = JobExecutionException.class)
+	public void testExecute_FailedBatch() throws Exception {
+
+		setUpGroup();
+		MonitoringBatch second = batch(1);
+		Mockito.when(monitorService.startMonitoring(Arrays.asList(1l, 2l)))
+				.thenThrow(new ServiceMonitorServiceException("failed", ErrorCode.SERVICE_ERROR));
+		Mockito.when(monitorService.startMonitoring(Arrays.asList(3l))).thenReturn(second);
+
+		try {
+			job.execute(context);
+		} finally {
+			Mockito.verify(monitorService).completeMonitoring(second);
+		}
+	}
+
+	private static MonitoringBatch batch(int requested) {
+		return new MonitoringBatch(requested, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+				System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,86 @@
+package com.globalrelay.servicemonitor.job.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class GraceRecheckSchedulerTest {
+
+	GraceRecheckScheduler scheduler = new GraceRecheckScheduler();
+
+	@Before
+	public void setUp() {
+
+		ReflectionTestUtils.setField(scheduler, "minIntervalMillis", 10L);
+		scheduler.start();
+	}
+
+	@After
+	public void tearDown() {
+		scheduler.stop();
+	}
+
+	@Test
+	public void testScheduleRecheck() throws Exception {
+
+		CountDownLatch latch = new CountDownLatch(1);
+		assertTrue(scheduler.scheduleRecheck(1l, 50, latch::countDown));
+		assertEquals(1, scheduler.getPendingCount());
+
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertEquals(0, scheduler.getPendingCount());
+	}
+
+	@Test
+	public void testScheduleRecheck_AlreadyPending() throws Exception {
+
+		AtomicInteger rechecks = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		assertTrue(scheduler.scheduleRecheck(1l, 50, () -> {
+			rechecks.incrementAndGet();
+			latch.countDown();
+		}));
+		assertFalse(scheduler.scheduleRecheck(1l, 50, rechecks::incrementAndGet));
+
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		Thread.sleep(200);
+		assertEquals(1, rechecks.get());
+	}
+
+	@Test
+	public void testScheduleRecheck_FromRecheck() throws Exception {
+
+		CountDownLatch latch = new CountDownLatch(2);
+		Runnable recheck = new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+				scheduler.scheduleRecheck(1l, 50, this);
+			}
+		};
+		scheduler.scheduleRecheck(1l, 50, recheck);
+
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testCancelRecheck() throws Exception {
+
+		AtomicInteger rechecks = new AtomicInteger();
+		scheduler.scheduleRecheck(1l, 50, rechecks::incrementAndGet);
+		scheduler.cancelRecheck(1l);
+		assertEquals(0, scheduler.getPendingCount());
+
+		Thread.sleep(300);
+		assertEquals(0, rechecks.get());
+	}
+}
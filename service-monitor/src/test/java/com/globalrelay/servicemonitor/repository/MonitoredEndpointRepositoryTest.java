@@ -0,0 +1,54 @@
+package com.globalrelay.servicemonitor.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class MonitoredEndpointRepositoryTest {
+
+	@Autowired
+	private MonitoredEndpointRepository repository;
+
+	@Test
+	public void testFindByHostNameAndPort() {
+
+		MonitoredEndpoint endpoint = repository.save(new MonitoredEndpoint("localhost", 8080));
+		repository.save(new MonitoredEndpoint("localhost", 8081));
+
+		assertEquals(endpoint.getId(), repository.findByHostNameAndPort("localhost", 8080).get().getId());
+		assertFalse(repository.findByHostNameAndPort("localhost", 9090).isPresent());
+	}
+
+	@Test
+	public void testFindByHostNameIn() {
+
+		repository.save(new MonitoredEndpoint("localhost", 8080));
+		repository.save(new MonitoredEndpoint("localhost", 8081));
+		repository.save(new MonitoredEndpoint("example.com", 443));
+		repository.save(new MonitoredEndpoint("other.example.com", 443));
+
+		assertEquals(3, repository.findByHostNameIn(Arrays.asList("localhost", "example.com")).size());
+		assertTrue(repository.findByHostNameIn(Arrays.asList("unknown.example.com")).isEmpty());
+	}
+
+	@Test(expected = DataIntegrityViolationException.class)
+	public void testUniqueHostNameAndPort() {
+
+		repository.saveAndFlush(new MonitoredEndpoint("example.com", 443));
+		repository.saveAndFlush(new MonitoredEndpoint("example.com", 443));
+	}
+
+}
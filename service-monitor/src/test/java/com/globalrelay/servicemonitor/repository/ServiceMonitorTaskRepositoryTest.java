@@ -3,7 +3,10 @@ package com.globalrelay.servicemonitor.repository;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,11 +14,14 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.util.CollectionUtils;
 
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.domain.TaskSummary;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
@@ -24,6 +30,9 @@ public class ServiceMonitorTaskRepositoryTest {
 	@Autowired
 	private ServiceMonitorTaskRepository repository;
 
+	@Autowired
+	private MonitoredEndpointRepository endpointRepository;
+
 	@Test
 	public void testSaveServiceMonitorTask() {
 
@@ -60,8 +69,7 @@ public class ServiceMonitorTaskRepositoryTest {
 		task.setName(hostName);
 
 		ServiceMonitorStatus status = new ServiceMonitorStatus();
-		status.setHostName(hostName);
-		status.setPort(23);
+		status.setEndpoint(endpointRepository.save(new MonitoredEndpoint(hostName, port)));
 
 		task.setStatus(status);
 		task = repository.save(task);
@@ -69,6 +77,77 @@ public class ServiceMonitorTaskRepositoryTest {
 		List<ServiceMonitorTask> task2 = repository.findByHostNameAndPort(hostName, port);
 		assertFalse(CollectionUtils.isEmpty(task2));
 		assertEquals(task2.get(0).getName(), task.getName());
+		assertEquals(hostName, task2.get(0).getStatus().getHostName());
+		assertEquals(port, task2.get(0).getStatus().getPort());
+	}
+
+	@Test
+	public void testFindScheduledAfter() {
+
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		for (int i = 0; i < 5; i++) {
+			ServiceMonitorTask task = new ServiceMonitorTask();
+			task.setName("task" + i);
+			task.setStopped(i == 2);
+			ServiceMonitorStatus status = new ServiceMonitorStatus();
+			status.setHostName("localhost");
+			status.setPort(8080 + i);
+			task.setStatus(status);
+			tasks.add(task);
+		}
+		tasks = repository.saveAll(tasks);
+
+		assertEquals(4, repository.countByStoppedFalse());
+
+		List<ServiceMonitorTask> page = repository.findScheduledAfter(0l, PageRequest.of(0, 2));
+		assertEquals(2, page.size());
+		assertEquals(tasks.get(0).getId(), page.get(0).getId());
+
+		page = repository.findScheduledAfter(page.get(1).getId(), PageRequest.of(0, 2));
+		assertEquals(2, page.size());
+		assertEquals(tasks.get(3).getId(), page.get(0).getId());
+		assertEquals(tasks.get(4).getId(), page.get(1).getId());
+	}
+
+	@Test
+	public void testFindSummariesAfter() {
+
+		MonitoredEndpoint endpoint = endpointRepository.save(new MonitoredEndpoint("summary.example.com", 443));
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		for (int i = 0; i < 3; i++) {
+			ServiceMonitorTask task = new ServiceMonitorTask();
+			task.setName("task" + i);
+			task.setGraceTime(i);
+			if (i != 1) {
+				ServiceMonitorStatus status = new ServiceMonitorStatus();
+				status.setEndpoint(endpoint);
+				status.setStatusCd("UP");
+				status.setCronExpression("0 0/1 * 1/1 * ? *");
+				task.setStatus(status);
+			}
+			tasks.add(task);
+		}
+		tasks = repository.saveAll(tasks);
+
+		List<TaskSummary> page = repository.findSummariesAfter(0l, PageRequest.of(0, 2));
+		assertEquals(2, page.size());
+		assertEquals(tasks.get(0).getId(), page.get(0).getId());
+		assertEquals("task0", page.get(0).getName());
+		assertEquals("summary.example.com", page.get(0).getStatus().getHostName());
+		assertEquals(443, page.get(0).getStatus().getPort());
+		assertEquals("UP", page.get(0).getStatus().getStatusCd());
+		assertEquals(tasks.get(0).getStatus().getId(), page.get(0).getStatus().getId());
+
+		// a task without a status is listed as well
+		assertEquals(tasks.get(1).getId(), page.get(1).getId());
+		assertNull(page.get(1).getStatus());
+
+		page = repository.findSummariesAfter(page.get(1).getId(), PageRequest.of(0, 2));
+		assertEquals(1, page.size());
+		assertEquals(tasks.get(2).getId(), page.get(0).getId());
+		assertEquals(2, page.get(0).getGraceTime());
+
+		assertEquals(Arrays.asList(tasks.get(1).getId()), repository.findIds(PageRequest.of(1, 1)));
 	}
 
 }
@@ -0,0 +1,189 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.domain.MonitorNode;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.repository.MonitorNodeRepository;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+
+/**
+ * Two nodes sharing one database, each with its own in-memory scheduler
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class ClusterFailoverTest {
+
+	@Autowired
+	private MonitorNodeRepository nodeRepository;
+
+	@Autowired
+	private ServiceMonitorTaskRepository taskRepository;
+
+	ClusterServiceImpl node1;
+	ClusterServiceImpl node2;
+	MemorySchedulerFacade scheduler1 = new MemorySchedulerFacade();
+	MemorySchedulerFacade scheduler2 = new MemorySchedulerFacade();
+
+	@Before
+	public void setUp() {
+
+		node1 = node("node-1", scheduler1);
+		node2 = node("node-2", scheduler2);
+		node1.heartbeat();
+		node2.heartbeat();
+		node1.heartbeat();
+		assertEquals(2, node1.getMembers().size());
+		assertEquals(2, node2.getMembers().size());
+	}
+
+	@Test
+	public void testTaskCreatedAfterStartup_SurvivesItsNode() throws Exception {
+
+		// tasks created through node-1 are scheduled there only
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		for (int port = 1; port <= 20; port++) {
+			ServiceMonitorTask task = taskRepository.save(task("failover.example.com", port));
+			scheduler1.createJob(task);
+			tasks.add(task);
+		}
+
+		node1.synchronizeSchedule();
+		node2.synchronizeSchedule();
+		for (ServiceMonitorTask task : tasks) {
+			String id = task.getId().toString();
+			boolean owner1 = node1.isOwner(endpoint(task));
+			assertEquals(owner1, scheduler1.getJobStatus(id));
+			assertEquals(!owner1, scheduler2.getJobStatus(id));
+		}
+
+		// node-1 dies without leaving the cluster, its lease expires
+		MonitorNode dead = nodeRepository.findById("node-1").get();
+		dead.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+		nodeRepository.save(dead);
+		node2.heartbeat();
+		assertEquals(1, node2.getMembers().size());
+
+		node2.synchronizeSchedule();
+		for (ServiceMonitorTask task : tasks) {
+			assertTrue(node2.isOwner(endpoint(task)));
+			assertTrue(scheduler2.getJobStatus(task.getId().toString()));
+		}
+	}
+
+	@Test
+	public void testTaskStoppedAndDeletedOnOtherNode() throws Exception {
+
+		ServiceMonitorTask stopped = taskRepository.save(task("stopped.example.com", 80));
+		ServiceMonitorTask deleted = taskRepository.save(task("deleted.example.com", 80));
+		scheduler1.createJobs(Arrays.asList(stopped, deleted));
+		scheduler2.createJobs(Arrays.asList(stopped, deleted));
+
+		// stopped and deleted through node-1, which stops its own jobs only
+		stopped.setStopped(true);
+		taskRepository.save(stopped);
+		taskRepository.delete(deleted);
+		scheduler1.stopJob(stopped.getId().toString());
+		scheduler1.stopJob(deleted.getId().toString());
+
+		node2.synchronizeSchedule();
+		assertFalse(scheduler2.getJobStatus(stopped.getId().toString()));
+		assertFalse(scheduler2.getJobStatus(deleted.getId().toString()));
+	}
+
+	private ClusterServiceImpl node(String nodeId, SchedulerFacade schedulerFacade) {
+
+		ClusterServiceImpl node = new ClusterServiceImpl();
+		ReflectionTestUtils.setField(node, "enabled", true);
+		ReflectionTestUtils.setField(node, "nodeId", nodeId);
+		ReflectionTestUtils.setField(node, "nodeRepository", nodeRepository);
+		ReflectionTestUtils.setField(node, "taskRepository", taskRepository);
+		ReflectionTestUtils.setField(node, "schedulerFacade", schedulerFacade);
+		return node;
+	}
+
+	private static ServiceMonitorTask task(String hostName, int port) {
+
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setHostName(hostName);
+		status.setPort(port);
+		status.setCronExpression("0 0/1 * 1/1 * ? *");
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setName(hostName);
+		task.setStatus(status);
+		return task;
+	}
+
+	private static ServiceEndpoint endpoint(ServiceMonitorTask task) {
+		return new ServiceEndpoint(task.getStatus().getHostName(), task.getStatus().getPort());
+	}
+
+	/**
+	 * A scheduler keeping the Ids of its jobs in memory, like the scheduler of a
+	 * node
+	 */
+	private static final class MemorySchedulerFacade implements SchedulerFacade {
+
+		private final Set<String> jobs = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public void createJob(ServiceMonitorTask task) {
+			jobs.add(task.getId().toString());
+		}
+
+		@Override
+		public void createJobs(List<ServiceMonitorTask> tasks) {
+			tasks.forEach(this::createJob);
+		}
+
+		@Override
+		public void createJobs(List<ServiceMonitorTask> tasks, long startDelayMillis) {
+			createJobs(tasks);
+		}
+
+		@Override
+		public void stopJob(String id) {
+			jobs.remove(id);
+		}
+
+		@Override
+		public boolean getJobStatus(String id) {
+			return jobs.contains(id);
+		}
+
+		@Override
+		public Set<String> getActiveJobs(Collection<String> ids) {
+
+			Set<String> active = new HashSet<String>(ids);
+			active.retainAll(jobs);
+			return active;
+		}
+
+		@Override
+		public Set<String> getJobIds() {
+			return new HashSet<String>(jobs);
+		}
+	}
+}
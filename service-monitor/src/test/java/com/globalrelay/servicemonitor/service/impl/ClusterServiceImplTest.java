@@ -0,0 +1,100 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.domain.MonitorNode;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.repository.MonitorNodeRepository;
+import com.globalrelay.servicemonitor.util.ConsistentHashRing;
+
+@RunWith(SpringRunner.class)
+public class ClusterServiceImplTest {
+
+	@Mock
+	private MonitorNodeRepository nodeRepository;
+
+	@InjectMocks
+	ClusterServiceImpl service;
+
+	ServiceEndpoint endpoint = new ServiceEndpoint("localhost", 8080);
+
+	@Before
+	public void setUp() {
+
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "nodeId", "node-1");
+		Mockito.when(nodeRepository.findById("node-1")).thenReturn(Optional.empty());
+	}
+
+	@Test
+	public void testIsOwner_Disabled() {
+
+		ReflectionTestUtils.setField(service, "enabled", false);
+		assertTrue(service.isOwner(endpoint));
+	}
+
+	@Test
+	public void testIsOwner_BeforeHeartbeat() {
+		assertFalse(service.isOwner(endpoint));
+	}
+
+	@Test
+	public void testHeartbeat_SingleNode() {
+
+		Mockito.when(nodeRepository.findByLeaseExpiresAtAfter(Mockito.any()))
+				.thenReturn(Arrays.asList(new MonitorNode("node-1", LocalDateTime.now().plusSeconds(15))));
+
+		service.heartbeat();
+
+		assertTrue(service.isOwner(endpoint));
+		assertEquals(1, service.getMembers().size());
+		Mockito.verify(nodeRepository).save(Mockito.any(MonitorNode.class));
+		Mockito.verify(nodeRepository).deleteExpired(Mockito.any());
+	}
+
+	@Test
+	public void testHeartbeat_SplitsEndpoints() {
+
+		Mockito.when(nodeRepository.findByLeaseExpiresAtAfter(Mockito.any()))
+				.thenReturn(Arrays.asList(new MonitorNode("node-1", LocalDateTime.now().plusSeconds(15)),
+						new MonitorNode("node-2", LocalDateTime.now().plusSeconds(15))));
+
+		service.heartbeat();
+
+		ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("node-1", "node-2"), 128);
+		for (int port = 1; port <= 100; port++) {
+			ServiceEndpoint other = new ServiceEndpoint("localhost", port);
+			assertEquals("node-1".equals(ring.getOwner("localhost:" + port)), service.isOwner(other));
+		}
+	}
+
+	@Test
+	public void testHeartbeat_LeaseLost() {
+
+		Mockito.when(nodeRepository.findByLeaseExpiresAtAfter(Mockito.any()))
+				.thenReturn(Arrays.asList(new MonitorNode("node-1", LocalDateTime.now().plusSeconds(15))));
+		service.heartbeat();
+		assertTrue(service.isOwner(endpoint));
+
+		// a failed renewal keeps the ring, but an outdated lease owns nothing
+		Mockito.when(nodeRepository.save(Mockito.any(MonitorNode.class))).thenThrow(IllegalStateException.class);
+		ReflectionTestUtils.setField(service, "leaseMillis", 0L);
+		service.heartbeat();
+		assertFalse(service.isOwner(endpoint));
+	}
+}
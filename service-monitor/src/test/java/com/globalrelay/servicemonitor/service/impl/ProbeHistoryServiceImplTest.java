@@ -0,0 +1,136 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ProbeRecord;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.repository.MonitoredEndpointRepository;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({ ProbeHistoryServiceImpl.class, ProbeArchive.class })
+@TestPropertySource(properties = { "servicemonitor.history.flush-millis=600000",
+		"servicemonitor.history.retention-check-millis=600000", "servicemonitor.history.retention-days=30",
+		"servicemonitor.history.compact-after-millis=3456000000" })
+// the daily tables are created with DDL, which cannot be rolled back
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProbeHistoryServiceImplTest {
+
+	@Autowired
+	private ProbeHistoryServiceImpl service;
+
+	@Autowired
+	private MonitoredEndpointRepository endpointRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void testRecordAndGetHistory() throws Exception {
+
+		MonitoredEndpoint endpoint = endpointRepository.save(new MonitoredEndpoint("history.example.com", 80));
+		long today = LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+		long yesterday = today - TimeUnit.HOURS.toMillis(1);
+
+		service.record(endpoint.getId(), result(yesterday, ProbeOutcome.UP, 100));
+		service.record(endpoint.getId(), result(today, ProbeOutcome.REFUSED, 200));
+		service.record(endpoint.getId(), result(today + 1000, ProbeOutcome.UP, 300));
+		service.record(null, result(today, ProbeOutcome.UP, 400));
+		assertEquals(3, service.getQueuedCount());
+
+		assertEquals(3, service.flush());
+		assertEquals(0, service.getQueuedCount());
+
+		List<ProbeRecord> history = service.getHistory(new ServiceEndpoint("History.example.com", 80), yesterday,
+				today + 1000);
+		assertEquals(2, history.size());
+		assertEquals(new ProbeRecord(endpoint.getId(), yesterday, ProbeOutcome.UP, 100), history.get(0));
+		assertEquals(new ProbeRecord(endpoint.getId(), today, ProbeOutcome.REFUSED, 200), history.get(1));
+
+		// each day is appended to its own table
+		assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM "
+				+ ProbeHistoryServiceImpl.partitionName(LocalDate.now(ZoneOffset.UTC).minusDays(1)), Integer.class));
+	}
+
+	@Test
+	public void testDropExpired() {
+
+		LocalDate expired = LocalDate.now(ZoneOffset.UTC).minusDays(31);
+		service.record(1l, result(expired.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli(), ProbeOutcome.UP, 1));
+		service.flush();
+		long dropped = service.getDroppedPartitionCount();
+
+		assertEquals(1, service.dropExpired());
+		assertEquals(dropped + 1, service.getDroppedPartitionCount());
+		assertEquals(Integer.valueOf(0),
+				jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) = ?",
+						Integer.class, ProbeHistoryServiceImpl.partitionName(expired)));
+	}
+
+	@Test
+	public void testCompact() throws Exception {
+
+		MonitoredEndpoint endpoint = endpointRepository.save(new MonitoredEndpoint("archive.example.com", 80));
+		LocalDate day = LocalDate.now(ZoneOffset.UTC).minusDays(3);
+		long start = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+		service.record(endpoint.getId(), result(start, ProbeOutcome.UP, 100));
+		service.record(endpoint.getId(), result(start + 10000, ProbeOutcome.TIMEOUT, 5000));
+		service.record(endpoint.getId(), result(start + 20000, ProbeOutcome.UP, 120));
+		service.flush();
+		long compacted = service.getCompactedPartitionCount();
+
+		assertTrue(service.compact(LocalDate.now(ZoneOffset.UTC)) >= 1);
+		assertTrue(service.getCompactedPartitionCount() > compacted);
+		assertEquals(Integer.valueOf(0),
+				jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) = ?",
+						Integer.class, ProbeHistoryServiceImpl.partitionName(day)));
+
+		List<ProbeRecord> history = service.getHistory(new ServiceEndpoint("archive.example.com", 80), start + 1,
+				start + TimeUnit.DAYS.toMillis(1));
+		assertEquals(2, history.size());
+		assertEquals(new ProbeRecord(endpoint.getId(), start + 10000, ProbeOutcome.TIMEOUT, 5000), history.get(0));
+		assertEquals(new ProbeRecord(endpoint.getId(), start + 20000, ProbeOutcome.UP, 120), history.get(1));
+	}
+
+	@Test(expected = ServiceMonitorServiceException.class)
+	public void testGetHistory_UnknownEndpoint() throws Exception {
+		service.getHistory(new ServiceEndpoint("unknown.example.com", 80), 0l, System.currentTimeMillis());
+	}
+
+	@Test
+	public void testToPartitionDay() {
+
+		LocalDate day = LocalDate.of(2019, 3, 4);
+		assertEquals("probe_history_20190304", ProbeHistoryServiceImpl.partitionName(day));
+		assertEquals(day, ProbeHistoryServiceImpl.toPartitionDay("PROBE_HISTORY_20190304"));
+		assertNull(ProbeHistoryServiceImpl.toPartitionDay("PROBE_HISTORY_2019"));
+		assertNull(ProbeHistoryServiceImpl.toPartitionDay("TASK_STATUS"));
+		assertTrue(ProbeHistoryServiceImpl.toPartitionDay("probe_history_20190304").isBefore(LocalDate.now()));
+	}
+
+	private static ProbeResult result(long timestamp, ProbeOutcome outcome, long latencyNanos) {
+		return new ProbeResult(new ServiceEndpoint("history.example.com", 80), outcome, latencyNanos, null, timestamp);
+	}
+}
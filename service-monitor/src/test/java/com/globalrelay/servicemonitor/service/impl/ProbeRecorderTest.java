@@ -0,0 +1,58 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
+import com.globalrelay.servicemonitor.service.ProbeHistoryService;
+import com.globalrelay.servicemonitor.service.UptimeService;
+
+@RunWith(SpringRunner.class)
+public class ProbeRecorderTest {
+
+	@Mock
+	private LatencyMetricsService latencyMetricsService;
+
+	@Mock
+	private UptimeService uptimeService;
+
+	@Mock
+	private ProbeHistoryService probeHistoryService;
+
+	@Mock
+	private RecentSampleStore recentSampleStore;
+
+	@InjectMocks
+	ProbeRecorder recorder;
+
+	@Test
+	public void testProbeCompleted() {
+
+		ProbeResult result = new ProbeResult(new ServiceEndpoint("localhost", 80, 1000, 7l), ProbeOutcome.UP, 100l,
+				null, System.currentTimeMillis());
+		recorder.probeCompleted(result);
+
+		Mockito.verify(latencyMetricsService).recordLatency(result);
+		Mockito.verify(uptimeService).recordOutcome(result);
+		Mockito.verify(probeHistoryService).record(7l, result);
+		Mockito.verify(recentSampleStore).record(7l, result);
+	}
+
+	@Test
+	public void testProbeCompleted_NotStored() {
+
+		ProbeResult result = new ProbeResult(new ServiceEndpoint("localhost", 80), ProbeOutcome.UP, 100l, null,
+				System.currentTimeMillis());
+		recorder.probeCompleted(result);
+
+		Mockito.verify(uptimeService).recordOutcome(result);
+		Mockito.verifyZeroInteractions(probeHistoryService, recentSampleStore);
+	}
+}
@@ -0,0 +1,155 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ProbeRecord;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.repository.MonitoredEndpointRepository;
+
+@RunWith(SpringRunner.class)
+public class RecentSampleStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	private MonitoredEndpointRepository endpointRepository;
+
+	@InjectMocks
+	RecentSampleStore store;
+
+	ServiceEndpoint endpoint = new ServiceEndpoint("localhost", 8080);
+
+	@Before
+	public void setUp() {
+
+		ReflectionTestUtils.setField(store, "directory", folder.getRoot().getAbsolutePath());
+		ReflectionTestUtils.setField(store, "samplesPerEndpoint", 2);
+		ReflectionTestUtils.setField(store, "endpointsPerFile", 10);
+
+		MonitoredEndpoint monitored = new MonitoredEndpoint("localhost", 8080);
+		monitored.setId(12l);
+		Mockito.when(endpointRepository.findByHostNameAndPort("localhost", 8080)).thenReturn(Optional.of(monitored));
+		store.start();
+	}
+
+	@After
+	public void tearDown() {
+		store.stop();
+	}
+
+	@Test
+	public void testRecordAndGetRecent() throws Exception {
+
+		mapFiles(12l, 2l);
+		store.record(12l, result(1000l, ProbeOutcome.UP, 10l));
+		store.record(12l, result(2000l, ProbeOutcome.TIMEOUT, 20l));
+		store.record(12l, result(3000l, ProbeOutcome.REFUSED, 30l));
+		store.record(2l, result(3000l, ProbeOutcome.UP, 40l));
+
+		List<ProbeRecord> samples = store.getRecent(endpoint, 10);
+		assertEquals(2, samples.size());
+		assertEquals(new ProbeRecord(12l, 3000l, ProbeOutcome.REFUSED, 30l), samples.get(0));
+		assertEquals(new ProbeRecord(12l, 2000l, ProbeOutcome.TIMEOUT, 20l), samples.get(1));
+		assertEquals(2, store.getFileCount());
+	}
+
+	@Test
+	public void testRecord_DroppedUntilFileMapped() throws Exception {
+
+		store.record(12l, result(1000l, ProbeOutcome.UP, 10l));
+		awaitFiles(1);
+		store.record(12l, result(2000l, ProbeOutcome.UP, 20l));
+
+		List<ProbeRecord> samples = store.getRecent(endpoint, 10);
+		assertEquals(1, samples.size());
+		assertEquals(2000l, samples.get(0).getTimestamp());
+	}
+
+	@Test
+	public void testGetRecent_SurvivesRestart() throws Exception {
+
+		mapFiles(12l);
+		store.record(12l, result(1000l, ProbeOutcome.UP, 10l));
+		store.stop();
+		store.start();
+
+		assertEquals(1, store.getRecent(endpoint, 10).size());
+		awaitFiles(1);
+		store.record(12l, result(2000l, ProbeOutcome.UP, 20l));
+		assertEquals(2, store.getRecent(endpoint, 10).size());
+	}
+
+	@Test
+	public void testGetRecent_IdReusedByOtherEndpoint() throws Exception {
+
+		mapFiles(12l);
+		store.record(12l, result(1000l, ProbeOutcome.UP, 10l));
+		store.stop();
+		store.start();
+
+		// after a restart the Id belongs to a different endpoint
+		MonitoredEndpoint other = new MonitoredEndpoint("other.example.com", 443);
+		other.setId(12l);
+		Mockito.when(endpointRepository.findByHostNameAndPort("other.example.com", 443)).thenReturn(Optional.of(other));
+		ServiceEndpoint otherEndpoint = new ServiceEndpoint("Other.example.com", 443);
+		assertEquals(0, store.getRecent(otherEndpoint, 10).size());
+
+		store.record(12l, new ProbeResult(otherEndpoint, ProbeOutcome.UP, 50l, null, 2000l));
+		assertEquals(1, store.getRecent(otherEndpoint, 10).size());
+		assertEquals(0, store.getRecent(endpoint, 10).size());
+	}
+
+	@Test
+	public void testGetRecent_NoSamples() throws Exception {
+
+		assertEquals(0, store.getRecent(endpoint, 10).size());
+		assertEquals(0, store.getFileCount());
+	}
+
+	@Test(expected = ServiceMonitorServiceException.class)
+	public void testGetRecent_UnknownEndpoint() throws Exception {
+		store.getRecent(new ServiceEndpoint("unknown", 80), 10);
+	}
+
+	// records a sample of every endpoint, dropped but mapping its file, and waits for the files
+	private void mapFiles(long... endpointIds) throws InterruptedException {
+
+		for (long endpointId : endpointIds) {
+			store.record(endpointId, result(1l, ProbeOutcome.UP, 0l));
+		}
+		awaitFiles(endpointIds.length);
+	}
+
+	private void awaitFiles(int count) throws InterruptedException {
+
+		long deadline = System.currentTimeMillis() + 5000L;
+		while (store.getFileCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5L);
+		}
+		assertEquals(count, store.getFileCount());
+	}
+
+	private ProbeResult result(long timestamp, ProbeOutcome outcome, long latencyNanos) {
+		return new ProbeResult(endpoint, outcome, latencyNanos, null, timestamp);
+	}
+}
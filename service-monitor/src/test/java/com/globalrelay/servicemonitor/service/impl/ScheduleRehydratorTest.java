@@ -0,0 +1,102 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+
+@RunWith(SpringRunner.class)
+public class ScheduleRehydratorTest {
+
+	@Mock
+	private ServiceMonitorTaskRepository taskRepository;
+
+	@Mock
+	private SchedulerFacade schedulerFacade;
+
+	@InjectMocks
+	ScheduleRehydrator rehydrator;
+
+	List<ServiceMonitorTask> firstPage;
+	List<ServiceMonitorTask> secondPage;
+
+	@Before
+	public void setUp() {
+
+		ReflectionTestUtils.setField(rehydrator, "pageSize", 2);
+		ReflectionTestUtils.setField(rehydrator, "staggerMillis", 1000L);
+
+		firstPage = tasks(1l, 2l);
+		secondPage = tasks(3l);
+		Mockito.when(taskRepository.countByStoppedFalse()).thenReturn(3l);
+		Mockito.when(taskRepository.findScheduledAfter(Mockito.eq(0l), Mockito.any(Pageable.class)))
+				.thenReturn(firstPage);
+		Mockito.when(taskRepository.findScheduledAfter(Mockito.eq(2l), Mockito.any(Pageable.class)))
+				.thenReturn(secondPage);
+	}
+
+	@Test
+	public void testRehydrate() throws Exception {
+
+		rehydrator.rehydrate();
+
+		Mockito.verify(schedulerFacade).createJobs(firstPage, 0l);
+		Mockito.verify(schedulerFacade).createJobs(secondPage, 500l);
+		Mockito.verify(taskRepository, Mockito.never()).findScheduledAfter(Mockito.eq(3l), Mockito.any(Pageable.class));
+		assertEquals(3, rehydrator.getScheduledCount());
+		assertEquals(0, rehydrator.getFailedCount());
+		assertTrue(rehydrator.getCoverageMillis() >= 0);
+	}
+
+	@Test
+	public void testRehydrate_BatchFailure() throws Exception {
+
+		Mockito.doThrow(ServiceMonitorFacadeException.class).when(schedulerFacade).createJobs(firstPage, 0l);
+
+		rehydrator.rehydrate();
+
+		assertEquals(1, rehydrator.getScheduledCount());
+		assertEquals(2, rehydrator.getFailedCount());
+	}
+
+	@Test
+	public void testRehydrate_Empty() throws Exception {
+
+		Mockito.when(taskRepository.countByStoppedFalse()).thenReturn(0l);
+		Mockito.when(taskRepository.findScheduledAfter(Mockito.eq(0l), Mockito.any(Pageable.class)))
+				.thenReturn(Collections.<ServiceMonitorTask>emptyList());
+
+		rehydrator.rehydrate();
+
+		Mockito.verify(schedulerFacade, Mockito.never()).createJobs(Mockito.anyList(), Mockito.anyLong());
+		assertEquals(0, rehydrator.getScheduledCount());
+	}
+
+	private List<ServiceMonitorTask> tasks(Long... ids) {
+
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		for (Long id : ids) {
+			ServiceMonitorTask task = new ServiceMonitorTask();
+			task.setId(id);
+			tasks.add(task);
+		}
+		return tasks;
+	}
+}
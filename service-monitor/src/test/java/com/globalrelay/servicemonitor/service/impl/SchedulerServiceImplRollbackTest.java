@@ -0,0 +1,102 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.exception.ErrorCode;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.job.impl.GraceRecheckScheduler;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
+import com.globalrelay.servicemonitor.service.SchedulerService;
+import com.globalrelay.servicemonitor.service.UptimeService;
+import com.globalrelay.servicemonitor.util.CronCache;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(SchedulerServiceImpl.class)
+// the service has to commit or roll back its own transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SchedulerServiceImplRollbackTest {
+
+	@TestConfiguration
+	static class Configuration {
+
+		@Bean
+		public CronCache cronCache() {
+			return new CronCache(16);
+		}
+	}
+
+	@Autowired
+	private SchedulerService service;
+
+	@Autowired
+	private ServiceMonitorTaskRepository taskRepository;
+
+	@MockBean
+	private SchedulerFacade schedulerFacade;
+
+	@MockBean
+	private StatusWriteBuffer statusWriteBuffer;
+
+	@MockBean
+	private TaskSnapshotCache taskSnapshotCache;
+
+	@MockBean
+	private GraceRecheckScheduler graceRecheckScheduler;
+
+	@MockBean
+	private LatencyMetricsService latencyMetricsService;
+
+	@MockBean
+	private UptimeService uptimeService;
+
+	@Test
+	public void testCreateTasks_SchedulingFails() throws Exception {
+
+		long count = taskRepository.count();
+		Mockito.doThrow(new ServiceMonitorFacadeException("scheduler down", ErrorCode.FACADE_ERROR))
+				.when(schedulerFacade).createJobs(Mockito.anyList());
+
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		for (int port = 1; port <= 3; port++) {
+			ServiceMonitorStatus status = new ServiceMonitorStatus();
+			status.setHostName("rollback.example.com");
+			status.setPort(port);
+			status.setCronExpression("0 0/1 * 1/1 * ? *");
+			ServiceMonitorTask task = new ServiceMonitorTask();
+			task.setName("rollback");
+			task.setStatus(status);
+			tasks.add(task);
+		}
+
+		try {
+			service.createTasks(tasks);
+			fail("scheduling failure must fail the batch");
+		} catch (ServiceMonitorServiceException e) {
+			// expected
+		}
+		assertEquals(count, taskRepository.count());
+	}
+}
@@ -2,8 +2,12 @@ package com.globalrelay.servicemonitor.service.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,18 +16,29 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorResponse;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.domain.TaskSummary;
 import com.globalrelay.servicemonitor.exception.ServiceMonitorFacadeException;
-import com.globalrelay.servicemonitor.facade.impl.QuartzSchedulerFacadeImpl;
+import com.globalrelay.servicemonitor.facade.SchedulerFacade;
+import com.globalrelay.servicemonitor.job.impl.GraceRecheckScheduler;
+import com.globalrelay.servicemonitor.repository.MonitoredEndpointRepository;
 import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+import com.globalrelay.servicemonitor.service.LatencyMetricsService;
+import com.globalrelay.servicemonitor.service.UptimeService;
+import com.globalrelay.servicemonitor.util.CronCache;
 
 @RunWith(SpringRunner.class)
 public class SchedulerServiceImplTest {
@@ -32,7 +47,31 @@ public class SchedulerServiceImplTest {
 	private ServiceMonitorTaskRepository taskRepository;
 
 	@Mock
-	private QuartzSchedulerFacadeImpl schedulerFacade;
+	private MonitoredEndpointRepository endpointRepository;
+
+	@Mock
+	private SchedulerFacade schedulerFacade;
+
+	@Spy
+	private CronCache cronCache = new CronCache(16);
+
+	@Mock
+	private StatusWriteBuffer statusWriteBuffer;
+
+	@Mock
+	private TaskSnapshotCache taskSnapshotCache;
+
+	@Mock
+	private GraceRecheckScheduler graceRecheckScheduler;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Mock
+	private LatencyMetricsService latencyMetricsService;
+
+	@Mock
+	private UptimeService uptimeService;
 
 	@InjectMocks
 	SchedulerServiceImpl service;
@@ -50,6 +89,141 @@ public class SchedulerServiceImplTest {
 
 	}
 
+	@Test
+	public void testCreateTasks() throws Exception {
+
+		ServiceMonitorTask valid = new ServiceMonitorTask();
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setHostName("localhost");
+		status.setPort(8080);
+		status.setCronExpression("0 0/1 * 1/1 * ? *");
+		valid.setStatus(status);
+
+		ServiceMonitorTask invalid = new ServiceMonitorTask();
+		ServiceMonitorStatus invalidStatus = new ServiceMonitorStatus();
+		invalidStatus.setHostName("localhost");
+		invalidStatus.setPort(8080);
+		invalidStatus.setCronExpression("invalid");
+		invalid.setStatus(invalidStatus);
+
+		List<ServiceMonitorTask> validTasks = new ArrayList<ServiceMonitorTask>();
+		validTasks.add(valid);
+		Mockito.when(taskRepository.saveAll(validTasks)).thenReturn(validTasks);
+
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		tasks.add(invalid);
+		tasks.add(valid);
+		List<ServiceMonitorResponse> results = service.createTasks(tasks);
+
+		assertEquals(2, results.size());
+		assertEquals("error", results.get(0).getStatus());
+		assertEquals("success", results.get(1).getStatus());
+		assertEquals(valid, results.get(1).getData());
+		Mockito.verify(schedulerFacade).createJobs(validTasks);
+	}
+
+	@Test
+	public void testCreateTasks_sharedEndpoint() throws Exception {
+
+		MonitoredEndpoint existing = new MonitoredEndpoint("localhost", 8080);
+		existing.setId(1l);
+		Mockito.when(endpointRepository.findByHostNameIn(Mockito.anyCollection()))
+				.thenReturn(Arrays.asList(existing, new MonitoredEndpoint("localhost", 9090)));
+		Mockito.when(endpointRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		String[] hostNames = { "localhost", "LocalHost ", "example.com", "example.com" };
+		int[] ports = { 8080, 8080, 443, 443 };
+		for (int i = 0; i < hostNames.length; i++) {
+			ServiceMonitorStatus status = new ServiceMonitorStatus();
+			status.setHostName(hostNames[i]);
+			status.setPort(ports[i]);
+			status.setCronExpression("0 0/1 * 1/1 * ? *");
+			ServiceMonitorTask task = new ServiceMonitorTask();
+			task.setStatus(status);
+			tasks.add(task);
+		}
+		Mockito.when(taskRepository.saveAll(tasks)).thenReturn(tasks);
+
+		service.createTasks(tasks);
+
+		assertSame(existing, tasks.get(0).getStatus().getEndpoint());
+		assertSame(existing, tasks.get(1).getStatus().getEndpoint());
+		assertSame(tasks.get(2).getStatus().getEndpoint(), tasks.get(3).getStatus().getEndpoint());
+		assertEquals("example.com", tasks.get(3).getStatus().getHostName());
+		assertEquals(443, tasks.get(3).getStatus().getEndpoint().getPort());
+		Mockito.verify(endpointRepository, Mockito.times(1)).findByHostNameIn(Mockito.anyCollection());
+		Mockito.verify(endpointRepository, Mockito.times(1))
+				.saveAll(Mockito.argThat((List<MonitoredEndpoint> endpoints) -> endpoints.size() == 1));
+		Mockito.verify(endpointRepository, Mockito.never()).saveAndFlush(Mockito.any(MonitoredEndpoint.class));
+	}
+
+	@Test
+	public void testCreateTasks_endpointsResolvedInChunks() throws Exception {
+
+		ReflectionTestUtils.setField(service, "endpointBatchSize", 2);
+		Mockito.when(endpointRepository.findByHostNameIn(Mockito.anyCollection()))
+				.thenReturn(Collections.<MonitoredEndpoint>emptyList());
+		Mockito.when(endpointRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		List<ServiceMonitorTask> tasks = new ArrayList<ServiceMonitorTask>();
+		for (int i = 0; i < 5; i++) {
+			ServiceMonitorStatus status = new ServiceMonitorStatus();
+			status.setHostName("host" + i + ".example.com");
+			status.setPort(443);
+			status.setCronExpression("0 0/1 * 1/1 * ? *");
+			ServiceMonitorTask task = new ServiceMonitorTask();
+			task.setStatus(status);
+			tasks.add(task);
+		}
+		Mockito.when(taskRepository.saveAll(tasks)).thenReturn(tasks);
+
+		service.createTasks(tasks);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals("host" + i + ".example.com", tasks.get(i).getStatus().getEndpoint().getHostName());
+		}
+		Mockito.verify(endpointRepository, Mockito.times(3)).findByHostNameIn(Mockito.anyCollection());
+		Mockito.verify(endpointRepository, Mockito.times(3)).saveAll(Mockito.anyList());
+		Mockito.verify(endpointRepository, Mockito.times(3)).flush();
+	}
+
+	@Test
+	public void testCreateTasks_endpointCreatedConcurrently() throws Exception {
+
+		MonitoredEndpoint concurrent = new MonitoredEndpoint("example.com", 443);
+		concurrent.setId(2l);
+		Mockito.when(endpointRepository.findByHostNameIn(Mockito.anyCollection()))
+				.thenReturn(Collections.<MonitoredEndpoint>emptyList());
+		Mockito.when(endpointRepository.saveAll(Mockito.anyList()))
+				.thenThrow(new DataIntegrityViolationException("uk_endpoint_host_port"));
+		Mockito.when(endpointRepository.saveAndFlush(Mockito.any(MonitoredEndpoint.class)))
+				.thenThrow(new DataIntegrityViolationException("uk_endpoint_host_port"));
+		Mockito.when(endpointRepository.findByHostNameAndPort("example.com", 443)).thenReturn(Optional.of(concurrent));
+
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setHostName("example.com");
+		status.setPort(443);
+		status.setCronExpression("0 0/1 * 1/1 * ? *");
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setStatus(status);
+		List<ServiceMonitorTask> tasks = Arrays.asList(task);
+		Mockito.when(taskRepository.saveAll(tasks)).thenReturn(tasks);
+
+		service.createTasks(tasks);
+
+		assertSame(concurrent, status.getEndpoint());
+		Mockito.verify(transactionManager, Mockito.times(3)).getTransaction(Mockito.any());
+	}
+
+	@Test(expected = Exception.class)
+	public void testCreateTasks_exception() throws Exception {
+
+		Mockito.when(taskRepository.saveAll(Mockito.anyList())).thenThrow(IllegalStateException.class);
+
+		service.createTasks(new ArrayList<ServiceMonitorTask>());
+	}
+
 	@Test(expected = Exception.class)
 	public void testCreateTask_exception() throws Exception {
 
@@ -93,8 +267,17 @@ public class SchedulerServiceImplTest {
 		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
 		Mockito.doNothing().when(schedulerFacade).stopJob("1");
 
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setId(5l);
+		task.setStatus(status);
+
 		ServiceMonitorTask result = service.stopTask(1l);
 		assertEquals(result.getId(), task.getId());
+		assertTrue(result.isStopped());
+		Mockito.verify(taskRepository).save(task);
+		Mockito.verify(taskSnapshotCache).invalidate(1l);
+		Mockito.verify(graceRecheckScheduler).cancelRecheck(1l);
+		Mockito.verify(statusWriteBuffer).forget(5l);
 
 	}
 
@@ -118,8 +301,50 @@ public class SchedulerServiceImplTest {
 		Mockito.doNothing().when(schedulerFacade).stopJob("1");
 		Mockito.doNothing().when(taskRepository).deleteById(1l);
 
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setId(5l);
+		task.setStatus(status);
+
 		ServiceMonitorTask result = service.deleteTask(1l);
 		assertEquals(result.getId(), task.getId());
+		Mockito.verify(graceRecheckScheduler).cancelRecheck(1l);
+		Mockito.verify(statusWriteBuffer).forget(5l);
+	}
+
+	@Test
+	public void testDeleteTask_LastTaskOfEndpoint() throws Exception {
+
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(1l);
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setEndpoint(new MonitoredEndpoint("localhost", 8080));
+		task.setStatus(status);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(taskRepository.countByHostNameAndPort("localhost", 8080)).thenReturn(0l);
+
+		service.deleteTask(1l);
+
+		ServiceEndpoint endpoint = new ServiceEndpoint("localhost", 8080);
+		Mockito.verify(latencyMetricsService).forget(endpoint);
+		Mockito.verify(uptimeService).forget(endpoint);
+	}
+
+	@Test
+	public void testDeleteTask_EndpointStillMonitored() throws Exception {
+
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(1l);
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setEndpoint(new MonitoredEndpoint("localhost", 8080));
+		task.setStatus(status);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(taskRepository.countByHostNameAndPort("localhost", 8080)).thenReturn(1l);
+
+		service.deleteTask(1l);
+		service.stopTask(1l);
+
+		Mockito.verify(latencyMetricsService, Mockito.never()).forget(Mockito.any(ServiceEndpoint.class));
+		Mockito.verify(uptimeService, Mockito.never()).forget(Mockito.any(ServiceEndpoint.class));
 	}
 
 	@Test(expected = Exception.class)
@@ -158,46 +383,64 @@ public class SchedulerServiceImplTest {
 	@Test
 	public void testGetTasks() throws Exception {
 
-		@SuppressWarnings("deprecation")
-		Pageable pageable = new PageRequest(1, 100);
-		ServiceMonitorTask task = new ServiceMonitorTask();
-		task.setId(1l);
-		task.setJobClass("abd");
-
-		ServiceMonitorStatus status = new ServiceMonitorStatus();
-		status.setCronExpression("0 0/1 * 1/1 * ? *");
-		task.setStatus(status);
-
-		List<ServiceMonitorTask> list = new ArrayList<ServiceMonitorTask>();
+		TaskSummary task = new TaskSummary(1l, "task", false, null, 0, null, null, 2l, "localhost", 80, "UP", null,
+				"0 0/1 * 1/1 * ? *", 1000, null, null);
+		List<TaskSummary> list = new ArrayList<TaskSummary>();
 		list.add(task);
-		Page<ServiceMonitorTask> page = new PageImpl<ServiceMonitorTask>(list);
 
-		Mockito.when(taskRepository.findAll(pageable)).thenReturn(page);
+		TaskSummary stopped = new TaskSummary();
+		stopped.setId(3l);
+		list.add(stopped);
+
+		Mockito.when(taskRepository.findSummariesAfter(10l, PageRequest.of(0, 100))).thenReturn(list);
+		Mockito.when(schedulerFacade.getActiveJobs(Arrays.asList("1", "3"))).thenReturn(Collections.singleton("1"));
 
-		assertFalse(CollectionUtils.isEmpty(service.getTasks(pageable).getContent()));
+		List<TaskSummary> page = service.getTasks(10l, 100);
+		assertEquals(2, page.size());
+		assertTrue(page.get(0).isActive());
+		assertFalse(page.get(1).isActive());
+		Mockito.verify(schedulerFacade, Mockito.never()).getJobStatus(Mockito.anyString());
+		assertFalse(StringUtils.isEmpty(page.get(0).getStatus().getCronHumanExpression()));
+		Mockito.verify(statusWriteBuffer).applyPending(task.getStatus());
 
 	}
 
 	@Test(expected = Exception.class)
 	public void testGetTasks_exception() throws Exception {
 
-		@SuppressWarnings("deprecation")
-		Pageable pageable = new PageRequest(1, 100);
-		ServiceMonitorTask task = new ServiceMonitorTask();
-		task.setId(1l);
-		task.setJobClass("abd");
+		Mockito.when(taskRepository.findSummariesAfter(0l, PageRequest.of(0, 100)))
+				.thenThrow(ServiceMonitorFacadeException.class);
 
-		ServiceMonitorStatus status = new ServiceMonitorStatus();
-		status.setCronExpression("0 0/1 * 1/1 * ? *");
-		task.setStatus(status);
+		service.getTasks(null, 100);
 
-		List<ServiceMonitorTask> list = new ArrayList<ServiceMonitorTask>();
-		list.add(task);
-		
-		Mockito.when(taskRepository.findAll(pageable)).thenThrow(ServiceMonitorFacadeException.class);
+	}
 
-		service.getTasks(pageable);
+	@Test
+	public void testGetTaskIdBefore() throws Exception {
+
+		Mockito.when(taskRepository.findIds(PageRequest.of(19, 1))).thenReturn(Arrays.asList(42l));
+
+		assertEquals(Long.valueOf(0l), service.getTaskIdBefore(0));
+		assertEquals(Long.valueOf(42l), service.getTaskIdBefore(20));
+		assertEquals(Long.valueOf(Long.MAX_VALUE), service.getTaskIdBefore(30));
+	}
+
+	@Test
+	public void testGetTaskCount_Cached() throws Exception {
 
+		ReflectionTestUtils.setField(service, "countCacheMillis", 60000l);
+		Mockito.when(taskRepository.count()).thenReturn(5l, 6l);
+
+		assertEquals(5l, service.getTaskCount());
+		assertEquals(5l, service.getTaskCount());
+		Mockito.verify(taskRepository, Mockito.times(1)).count();
+
+		// a new task expires the cached count
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(1l);
+		Mockito.when(taskRepository.save(task)).thenReturn(task);
+		service.createTask(task);
+		assertEquals(6l, service.getTaskCount());
 	}
 
 }
@@ -4,22 +4,31 @@ import static org.junit.Assert.assertEquals;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
 import com.globalrelay.servicemonitor.constant.ServiceMonitorStatusCode;
+import com.globalrelay.servicemonitor.domain.MonitoredEndpoint;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
 import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
 import com.globalrelay.servicemonitor.facade.EmailFacade;
+import com.globalrelay.servicemonitor.job.impl.GraceRecheckScheduler;
 import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+import com.globalrelay.servicemonitor.service.ClusterService;
 import com.globalrelay.servicemonitor.strategy.ServiceMonitorStrategy;
 
 @RunWith(SpringRunner.class)
@@ -34,11 +43,24 @@ public class ServiceMonitorServiceImplTest {
 	@Mock
 	private ServiceMonitorStrategy serviceMonitorStrategy;
 
+	@Mock
+	private GraceRecheckScheduler graceRecheckScheduler;
+
+	@Mock
+	private ClusterService clusterService;
+
+	@Mock
+	private StatusWriteBuffer statusWriteBuffer;
+
+	@Mock
+	private TaskSnapshotCache taskSnapshotCache;
+
 	@InjectMocks
 	ServiceMonitorServiceImpl service;
 
 	ServiceMonitorTask task;
 	ServiceMonitorStatus status;
+	ServiceEndpoint endpoint;
 	List<ServiceMonitorTask> existingTasks = new ArrayList<ServiceMonitorTask>();
 
 	@Before
@@ -56,12 +78,20 @@ public class ServiceMonitorServiceImplTest {
 		status.setPort(12);
 
 		task.setStatus(status);
+		endpoint = new ServiceEndpoint(status.getHostName(), status.getPort());
 
 		ServiceMonitorTask existingTask = new ServiceMonitorTask();
 		existingTask.setId(2l);
 		existingTask.setUpdatedAt(LocalDateTime.now().minusYears(1));
 
 		existingTasks.add(existingTask);
+
+		Mockito.when(clusterService.isOwner(Mockito.any())).thenReturn(true);
+
+		// read through to the mocked repository
+		Mockito.when(taskSnapshotCache.get(Mockito.any())).thenAnswer(i -> taskRepository.findById(i.getArgument(0)));
+		Mockito.when(taskSnapshotCache.getAll(Mockito.any()))
+				.thenAnswer(i -> taskRepository.findWithStatusByIdIn(i.getArgument(0)));
 	}
 
 	@Test
@@ -71,7 +101,7 @@ public class ServiceMonitorServiceImplTest {
 		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
 		Mockito.when(taskRepository.findByHostNameAndPort(status.getHostName(), status.getPort()))
 				.thenReturn(existingTasks);
-		Mockito.when(serviceMonitorStrategy.monitorService(status.getHostName(), status.getPort())).thenReturn(true);
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.UP));
 		Mockito.when(taskRepository.save(task)).thenReturn(task);
 		Mockito.doNothing().when(emailFacade).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(),
 				Mockito.anyString());
@@ -81,6 +111,24 @@ public class ServiceMonitorServiceImplTest {
 		assertEquals(result.getPort(), status.getPort());
 	}
 
+	@Test
+	public void testMonitorStatus_ProbesStoredEndpoint() throws Exception {
+
+		MonitoredEndpoint monitored = new MonitoredEndpoint("localhost", 12);
+		monitored.setId(7l);
+		status.setEndpoint(monitored);
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		ProbeResult probe = result(ProbeOutcome.UP);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(probe);
+
+		// results are recorded by the strategy against the Id carried by the endpoint
+		service.monitorStatus(1l);
+		ArgumentCaptor<ServiceEndpoint> probed = ArgumentCaptor.forClass(ServiceEndpoint.class);
+		Mockito.verify(serviceMonitorStrategy).monitorService(probed.capture());
+		assertEquals(Long.valueOf(7l), probed.getValue().getEndpointId());
+	}
+
 	@Test
 	public void testMonitorStatus_Inactive() throws Exception {
 
@@ -88,7 +136,7 @@ public class ServiceMonitorServiceImplTest {
 		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
 		Mockito.when(taskRepository.findByHostNameAndPort(status.getHostName(), status.getPort()))
 				.thenReturn(existingTasks);
-		Mockito.when(serviceMonitorStrategy.monitorService(status.getHostName(), status.getPort())).thenReturn(false);
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.REFUSED));
 		Mockito.when(taskRepository.save(task)).thenReturn(task);
 		Mockito.doNothing().when(emailFacade).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(),
 				Mockito.anyString());
@@ -99,6 +147,93 @@ public class ServiceMonitorServiceImplTest {
 
 	}
 
+	@Test
+	public void testMonitorStatus_Timeout() throws Exception {
+
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		status.setConnectTimeout(250);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(taskRepository.findByHostNameAndPort(status.getHostName(), status.getPort()))
+				.thenReturn(existingTasks);
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.TIMEOUT));
+		Mockito.when(taskRepository.save(task)).thenReturn(task);
+
+		ServiceMonitorStatus result = service.monitorStatus(1l);
+		assertEquals(ProbeOutcome.TIMEOUT.toString(), result.getLastOutcome());
+		assertEquals(Long.valueOf(250000000l), result.getLastLatency());
+		assertEquals(ServiceMonitorStatusCode.INACTIVE.toString(), result.getStatusCd());
+	}
+
+	@Test
+	public void testMonitorStatus_InactiveWithinGrace() throws Exception {
+
+		task.setGraceTime(10);
+		status.setStatusCd(new String(ServiceMonitorStatusCode.ACTIVE.toString()));
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.REFUSED));
+		Mockito.when(taskRepository.save(task)).thenReturn(task);
+
+		ServiceMonitorStatus result = service.monitorStatus(1l);
+		assertEquals(ServiceMonitorStatusCode.INACTIVE.toString(), result.getStatusCd());
+		Mockito.verify(graceRecheckScheduler).scheduleRecheck(Mockito.eq(1l), Mockito.anyLong(),
+				Mockito.any(Runnable.class));
+		Mockito.verify(emailFacade, Mockito.never()).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString());
+	}
+
+	@Test
+	public void testMonitorStatus_InactiveGraceExpired() throws Exception {
+
+		task.setGraceTime(10);
+		task.setEmail("user@example.com");
+		status.setStatusCd(ServiceMonitorStatusCode.INACTIVE.toString());
+		status.setLastFailedTime(LocalDateTime.now().minusSeconds(11));
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.REFUSED));
+		Mockito.when(taskRepository.save(task)).thenReturn(task);
+
+		service.monitorStatus(1l);
+		Mockito.verify(graceRecheckScheduler, Mockito.never()).scheduleRecheck(Mockito.anyLong(), Mockito.anyLong(),
+				Mockito.any(Runnable.class));
+		Mockito.verify(emailFacade).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+	}
+
+	@Test
+	public void testMonitorStatus_Stopped() throws Exception {
+
+		task.setStopped(true);
+		task.setGraceTime(10);
+		status.setStatusCd(ServiceMonitorStatusCode.INACTIVE.toString());
+		status.setLastFailedTime(LocalDateTime.now().minusSeconds(11));
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+
+		service.monitorStatus(1l);
+		Mockito.verify(serviceMonitorStrategy, Mockito.never()).monitorService(Mockito.any());
+		Mockito.verify(emailFacade, Mockito.never()).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString());
+	}
+
+	@Test
+	public void testMonitorStatus_AlreadyInProgress() throws Exception {
+
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+
+		// a recheck of the task arriving while its probe is in flight is skipped
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenAnswer(i -> {
+			service.monitorStatus(1l);
+			return result(ProbeOutcome.REFUSED);
+		});
+
+		service.monitorStatus(1l);
+		Mockito.verify(serviceMonitorStrategy, Mockito.times(1)).monitorService(endpoint);
+
+		// the guard is released once the task was monitored
+		Mockito.doReturn(result(ProbeOutcome.REFUSED)).when(serviceMonitorStrategy).monitorService(endpoint);
+		service.monitorStatus(1l);
+		Mockito.verify(serviceMonitorStrategy, Mockito.times(2)).monitorService(endpoint);
+	}
+
 	@Test
 	public void testMonitorStatus_Outage() throws Exception {
 	
@@ -108,7 +243,7 @@ public class ServiceMonitorServiceImplTest {
 		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
 		Mockito.when(taskRepository.findByHostNameAndPort(status.getHostName(), status.getPort()))
 				.thenReturn(existingTasks);
-		Mockito.when(serviceMonitorStrategy.monitorService(status.getHostName(), status.getPort())).thenReturn(false);
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.REFUSED));
 		Mockito.when(taskRepository.save(task)).thenReturn(task);
 		Mockito.doNothing().when(emailFacade).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(),
 				Mockito.anyString());
@@ -125,9 +260,7 @@ public class ServiceMonitorServiceImplTest {
 		existingTasks.get(0).setUpdatedAt(LocalDateTime.now());
 	
 		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
-		Mockito.when(taskRepository.findByHostNameAndPort(status.getHostName(), status.getPort()))
-				.thenReturn(existingTasks);
-		Mockito.when(serviceMonitorStrategy.monitorService(status.getHostName(), status.getPort())).thenReturn(false);
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.REFUSED));
 		Mockito.when(taskRepository.save(task)).thenReturn(task);
 		Mockito.doNothing().when(emailFacade).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(),
 				Mockito.anyString());
@@ -135,9 +268,98 @@ public class ServiceMonitorServiceImplTest {
 		ServiceMonitorStatus result = service.monitorStatus(1l);
 		assertEquals(result.getHostName(), status.getHostName());
 		assertEquals(result.getPort(), status.getPort());
+		assertEquals(ProbeOutcome.REFUSED.name(), result.getLastOutcome());
+		Mockito.verify(taskRepository, Mockito.never()).findByHostNameAndPort(Mockito.anyString(), Mockito.anyInt());
 
 	}
 	
+	@Test
+	public void testMonitorStatus_WriteBehind() throws Exception {
+
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		Mockito.when(statusWriteBuffer.isEnabled()).thenReturn(true);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.UP));
+
+		service.monitorStatus(1l);
+
+		Mockito.verify(statusWriteBuffer).applyPending(status);
+		Mockito.verify(statusWriteBuffer).write(status);
+		Mockito.verify(taskRepository, Mockito.never()).save(Mockito.any());
+	}
+
+	@Test
+	public void testMonitorStatus_TransitionsOnly_SteadyState() throws Exception {
+
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		Mockito.when(statusWriteBuffer.isTransitionsOnly()).thenReturn(true);
+		Mockito.when(statusWriteBuffer.isEnabled()).thenReturn(true);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.UP));
+
+		service.monitorStatus(1l);
+
+		Mockito.verify(statusWriteBuffer).recordProbe(status);
+		Mockito.verify(statusWriteBuffer, Mockito.never()).write(Mockito.any());
+		Mockito.verify(taskRepository, Mockito.never()).save(Mockito.any());
+	}
+
+	@Test
+	public void testMonitorStatus_TransitionsOnly_Transition() throws Exception {
+
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		task.setGraceTime(60);
+		Mockito.when(statusWriteBuffer.isTransitionsOnly()).thenReturn(true);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.REFUSED));
+
+		service.monitorStatus(1l);
+
+		Mockito.verify(statusWriteBuffer, Mockito.never()).recordProbe(Mockito.any());
+		Mockito.verify(taskRepository).save(task);
+	}
+
+	@Test
+	public void testMonitorStatus_NotOwner() throws Exception {
+
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+		Mockito.when(clusterService.isOwner(endpoint)).thenReturn(false);
+
+		ServiceMonitorStatus result = service.monitorStatus(1l);
+		assertEquals(result.getHostName(), status.getHostName());
+		Mockito.verify(serviceMonitorStrategy, Mockito.never()).monitorService(Mockito.any());
+		Mockito.verify(taskRepository, Mockito.never()).save(Mockito.any());
+	}
+
+	@Test
+	public void testMonitorStatuses() throws Exception {
+
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		ServiceMonitorTask other = new ServiceMonitorTask();
+		other.setId(3l);
+		ServiceMonitorStatus otherStatus = new ServiceMonitorStatus();
+		otherStatus.setHostName("localhost");
+		otherStatus.setPort(13);
+		otherStatus.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+		other.setStatus(otherStatus);
+		ServiceEndpoint otherEndpoint = new ServiceEndpoint("localhost", 13);
+
+		List<ServiceMonitorTask> tasks = Arrays.asList(task, other);
+		Mockito.when(taskRepository.findWithStatusByIdIn(Arrays.asList(1l, 3l))).thenReturn(tasks);
+		List<CompletableFuture<ProbeResult>> probes = Arrays.asList(
+				CompletableFuture.completedFuture(result(ProbeOutcome.UP)),
+				CompletableFuture.completedFuture(result(ProbeOutcome.UP)));
+		Mockito.when(serviceMonitorStrategy.startServices(Arrays.asList(endpoint, otherEndpoint))).thenReturn(probes);
+		Mockito.when(serviceMonitorStrategy.awaitServices(Mockito.eq(Arrays.asList(endpoint, otherEndpoint)),
+				Mockito.eq(probes), Mockito.anyLong()))
+				.thenReturn(Arrays.asList(result(ProbeOutcome.UP), result(ProbeOutcome.UP)));
+
+		List<ServiceMonitorStatus> result = service.monitorStatuses(Arrays.asList(1l, 3l));
+		assertEquals(2, result.size());
+		assertEquals(ProbeOutcome.UP.name(), result.get(1).getLastOutcome());
+		Mockito.verify(serviceMonitorStrategy, Mockito.never()).monitorService(Mockito.any());
+		Mockito.verify(taskRepository).saveAll(tasks);
+	}
 
 	@Test(expected = Exception.class)
 	public void testMonitorStatus_Exception() throws Exception {
@@ -145,7 +367,7 @@ public class ServiceMonitorServiceImplTest {
 		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.empty());
 		Mockito.when(taskRepository.findByHostNameAndPort(status.getHostName(), status.getPort()))
 				.thenReturn(existingTasks);
-		Mockito.when(serviceMonitorStrategy.monitorService(status.getHostName(), status.getPort())).thenReturn(false);
+		Mockito.when(serviceMonitorStrategy.monitorService(endpoint)).thenReturn(result(ProbeOutcome.REFUSED));
 		Mockito.when(taskRepository.save(task)).thenReturn(task);
 		Mockito.doNothing().when(emailFacade).sendSimpleMessage(Mockito.anyString(), Mockito.anyString(),
 				Mockito.anyString());
@@ -155,4 +377,8 @@ public class ServiceMonitorServiceImplTest {
 		assertEquals(result.getPort(), status.getPort());
 
 	}
+
+	private ProbeResult result(ProbeOutcome outcome) {
+		return new ProbeResult(endpoint, outcome, 250000000l, null, System.currentTimeMillis());
+	}
 }
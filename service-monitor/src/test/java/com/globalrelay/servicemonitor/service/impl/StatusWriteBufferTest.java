@@ -0,0 +1,140 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.constant.ServiceMonitorStatusCode;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(StatusWriteBuffer.class)
+@TestPropertySource(properties = "servicemonitor.write-behind.flush-millis=600000")
+public class StatusWriteBufferTest {
+
+	@Autowired
+	private StatusWriteBuffer buffer;
+
+	@Autowired
+	private ServiceMonitorTaskRepository repository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	public void testFlush_LatestValuesWrittenOnce() {
+
+		ServiceMonitorStatus status = persistStatus();
+
+		status.setLastOutcome(ProbeOutcome.REFUSED.name());
+		buffer.write(status);
+		status.setStatusCd(ServiceMonitorStatusCode.INACTIVE.toString());
+		status.setLastFailedTime(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+		status.setLastOutcome(ProbeOutcome.TIMEOUT.name());
+		status.setLastLatency(1000l);
+		buffer.write(status);
+		assertEquals(1, buffer.getPendingCount());
+
+		long batches = buffer.getBatchCount();
+		assertEquals(1, buffer.flush());
+		assertEquals(0, buffer.getPendingCount());
+		assertEquals(batches + 1, buffer.getBatchCount());
+
+		entityManager.clear();
+		ServiceMonitorStatus stored = entityManager.find(ServiceMonitorStatus.class, status.getId());
+		assertEquals(ServiceMonitorStatusCode.INACTIVE.toString(), stored.getStatusCd());
+		assertEquals(ProbeOutcome.TIMEOUT.name(), stored.getLastOutcome());
+		assertEquals(Long.valueOf(1000l), stored.getLastLatency());
+		assertEquals(status.getLastFailedTime(), stored.getLastFailedTime());
+	}
+
+	@Test
+	public void testApplyPending() {
+
+		ServiceMonitorStatus status = persistStatus();
+		status.setStatusCd(ServiceMonitorStatusCode.INACTIVE.toString());
+		status.setLastFailedTime(LocalDateTime.now());
+		buffer.write(status);
+
+		entityManager.clear();
+		ServiceMonitorStatus loaded = entityManager.find(ServiceMonitorStatus.class, status.getId());
+		assertNull(loaded.getLastFailedTime());
+
+		buffer.applyPending(loaded);
+		assertEquals(ServiceMonitorStatusCode.INACTIVE.toString(), loaded.getStatusCd());
+		assertEquals(status.getLastFailedTime(), loaded.getLastFailedTime());
+		buffer.flush();
+	}
+
+	@Test
+	public void testRecordProbe_MemoryOnly() {
+
+		ServiceMonitorStatus status = persistStatus();
+		status.setLastOutcome(ProbeOutcome.UP.name());
+		status.setLastLatency(2000l);
+		buffer.recordProbe(status);
+		assertEquals(0, buffer.getPendingCount());
+
+		entityManager.clear();
+		ServiceMonitorStatus loaded = entityManager.find(ServiceMonitorStatus.class, status.getId());
+		assertNull(loaded.getLastOutcome());
+
+		buffer.applyPending(loaded);
+		assertEquals(ProbeOutcome.UP.name(), loaded.getLastOutcome());
+		assertEquals(Long.valueOf(2000l), loaded.getLastLatency());
+		assertNotNull(loaded.getLastProbeTime());
+	}
+
+	@Test
+	public void testForget() {
+
+		ServiceMonitorStatus status = persistStatus();
+		status.setLastOutcome(ProbeOutcome.UP.name());
+		buffer.recordProbe(status);
+		int probes = buffer.getProbeCount();
+
+		buffer.forget(status.getId());
+		assertEquals(probes - 1, buffer.getProbeCount());
+
+		entityManager.clear();
+		ServiceMonitorStatus loaded = entityManager.find(ServiceMonitorStatus.class, status.getId());
+		buffer.applyPending(loaded);
+		assertNull(loaded.getLastOutcome());
+	}
+
+	@Test
+	public void testFlush_Empty() {
+		assertEquals(0, buffer.flush());
+	}
+
+	private ServiceMonitorStatus persistStatus() {
+
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setHostName("localhost");
+		status.setPort(8080);
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setName("localhost");
+		task.setStatus(status);
+		task = repository.save(task);
+		entityManager.flush();
+		return task.getStatus();
+	}
+}
@@ -0,0 +1,128 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.constant.ServiceMonitorStatusCode;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorStatus;
+import com.globalrelay.servicemonitor.domain.ServiceMonitorTask;
+import com.globalrelay.servicemonitor.repository.ServiceMonitorTaskRepository;
+
+@RunWith(SpringRunner.class)
+public class TaskSnapshotCacheTest {
+
+	@Mock
+	private ServiceMonitorTaskRepository taskRepository;
+
+	@InjectMocks
+	TaskSnapshotCache cache;
+
+	ServiceMonitorTask task;
+
+	@Before
+	public void setUp() {
+
+		task = task(1l);
+		Mockito.when(taskRepository.findById(1l)).thenReturn(Optional.of(task));
+	}
+
+	@Test
+	public void testGet_ReadThrough() {
+
+		ServiceMonitorTask first = cache.get(1l).get();
+		ServiceMonitorTask second = cache.get(1l).get();
+
+		assertEquals(first, second);
+		assertNotSame(first, second);
+		assertNotSame(first.getStatus(), second.getStatus());
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		Mockito.verify(taskRepository, Mockito.times(1)).findById(1l);
+	}
+
+	@Test
+	public void testGet_NotFound() {
+
+		Mockito.when(taskRepository.findById(2l)).thenReturn(Optional.empty());
+		assertFalse(cache.get(2l).isPresent());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testPut_FollowsMonitorState() {
+
+		ServiceMonitorTask copy = cache.get(1l).get();
+		copy.getStatus().setStatusCd(ServiceMonitorStatusCode.INACTIVE.toString());
+		assertEquals(ServiceMonitorStatusCode.ACTIVE.toString(), cache.get(1l).get().getStatus().getStatusCd());
+
+		cache.put(copy);
+		assertEquals(ServiceMonitorStatusCode.INACTIVE.toString(), cache.get(1l).get().getStatus().getStatusCd());
+	}
+
+	@Test
+	public void testInvalidate() {
+
+		cache.get(1l);
+		cache.invalidate(1l);
+		cache.get(1l);
+
+		Mockito.verify(taskRepository, Mockito.times(2)).findById(1l);
+	}
+
+	@Test
+	public void testGet_Expired() {
+
+		ReflectionTestUtils.setField(cache, "ttlMillis", 0L);
+		cache.get(1l);
+		cache.get(1l);
+
+		Mockito.verify(taskRepository, Mockito.times(2)).findById(1l);
+	}
+
+	@Test
+	public void testGetAll_LoadsMissingOnly() {
+
+		cache.get(1l);
+		ServiceMonitorTask other = task(2l);
+		Mockito.when(taskRepository.findWithStatusByIdIn(Collections.singletonList(2l)))
+				.thenReturn(Collections.singletonList(other));
+
+		List<ServiceMonitorTask> tasks = cache.getAll(Arrays.asList(1l, 2l));
+		assertEquals(2, tasks.size());
+		assertTrue(tasks.contains(task));
+		assertTrue(tasks.contains(other));
+		assertEquals(2, cache.size());
+	}
+
+	private static ServiceMonitorTask task(Long id) {
+
+		ServiceMonitorStatus status = new ServiceMonitorStatus();
+		status.setId(id);
+		status.setHostName("localhost");
+		status.setPort(8080);
+		status.setStatusCd(ServiceMonitorStatusCode.ACTIVE.toString());
+
+		ServiceMonitorTask task = new ServiceMonitorTask();
+		task.setId(id);
+		task.setEmail("test@test.com");
+		task.setStatus(status);
+		return task;
+	}
+}
@@ -0,0 +1,84 @@
+package com.globalrelay.servicemonitor.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.Availability;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.domain.UptimeReport;
+import com.globalrelay.servicemonitor.exception.ServiceMonitorServiceException;
+
+public class UptimeServiceImplTest {
+
+	UptimeServiceImpl service = new UptimeServiceImpl();
+
+	ServiceEndpoint first = new ServiceEndpoint("localhost", 8080);
+	ServiceEndpoint second = new ServiceEndpoint("localhost", 8081);
+
+	@Test
+	public void testGetUptime() throws Exception {
+
+		service.recordOutcome(result(first, ProbeOutcome.UP));
+		service.recordOutcome(result(first, ProbeOutcome.UP));
+		service.recordOutcome(result(first, ProbeOutcome.UP));
+		service.recordOutcome(result(first, ProbeOutcome.TIMEOUT));
+
+		UptimeReport report = service.getUptime(new ServiceEndpoint("localhost", 8080));
+		assertEquals("localhost", report.getHostName());
+		assertEquals(4, report.getWindows().size());
+		for (Availability availability : report.getWindows()) {
+			assertEquals(4, availability.getTotal());
+			assertEquals(1, availability.getTimeout());
+			assertEquals(75.0d, availability.getAvailability(), 0.0001d);
+		}
+		assertEquals("1h", report.getWindows().get(0).getWindow());
+		assertEquals("30d", report.getWindows().get(3).getWindow());
+	}
+
+	@Test
+	public void testGetFleetUptime() {
+
+		assertNull(service.getFleetUptime().getWindows().get(0).getAvailability());
+
+		service.recordOutcome(result(first, ProbeOutcome.UP));
+		service.recordOutcome(result(second, ProbeOutcome.REFUSED));
+
+		UptimeReport report = service.getFleetUptime();
+		assertEquals(2, report.getEndpoints());
+		assertEquals(2, report.getWindows().get(1).getTotal());
+		assertEquals(1, report.getWindows().get(1).getRefused());
+		assertEquals(50.0d, report.getWindows().get(1).getAvailability(), 0.0001d);
+	}
+
+	@Test(expected = ServiceMonitorServiceException.class)
+	public void testGetUptime_NotRecorded() throws Exception {
+		service.getUptime(first);
+	}
+
+	@Test
+	public void testForget() throws Exception {
+
+		service.recordOutcome(result(first, ProbeOutcome.UP));
+		service.recordOutcome(result(second, ProbeOutcome.UP));
+		service.forget(new ServiceEndpoint("localhost", 8080));
+
+		UptimeReport report = service.getFleetUptime();
+		assertEquals(1, report.getEndpoints());
+		assertEquals(2, report.getWindows().get(0).getTotal());
+		try {
+			service.getUptime(first);
+			fail("counter of a forgotten endpoint must be dropped");
+		} catch (ServiceMonitorServiceException e) {
+			// expected
+		}
+	}
+
+	private static ProbeResult result(ServiceEndpoint endpoint, ProbeOutcome outcome) {
+		return new ProbeResult(endpoint, outcome, 1000l, null, System.currentTimeMillis());
+	}
+}
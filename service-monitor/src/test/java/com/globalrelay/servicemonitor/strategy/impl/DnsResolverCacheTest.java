@@ -0,0 +1,117 @@
+package com.globalrelay.servicemonitor.strategy.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(SpringRunner.class)
+public class DnsResolverCacheTest {
+
+	DnsResolverCache cache = new DnsResolverCache();
+
+	@After
+	public void tearDown() {
+		cache.stop();
+	}
+
+	@Test
+	public void testResolve_Hit() {
+
+		assertNotNull(cache.resolve("localhost"));
+		assertNotNull(cache.resolve("localhost"));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void testResolve_NegativeHit() {
+
+		assertNull(cache.resolve("host.invalid"));
+		assertNull(cache.resolve("host.invalid"));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void testResolve_Expired() throws Exception {
+
+		ReflectionTestUtils.setField(cache, "ttlMillis", 1L);
+		assertNotNull(cache.resolve("localhost"));
+		Thread.sleep(5);
+		assertNotNull(cache.resolve("localhost"));
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testResolve_RefreshAhead() throws Exception {
+
+		ReflectionTestUtils.setField(cache, "refreshAheadPercent", 0);
+		ReflectionTestUtils.setField(cache, "refreshMinHits", 1);
+		cache.resolve("localhost");
+		cache.resolve("localhost");
+
+		for (int i = 0; i < 100 && cache.getRefreshCount() == 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, cache.getRefreshCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testResolve_RefreshFailed() throws Exception {
+
+		AtomicBoolean failing = new AtomicBoolean();
+		DnsResolverCache cache = new DnsResolverCache() {
+			@Override
+			InetAddress lookup(String host) throws UnknownHostException {
+				if (failing.get()) {
+					throw new UnknownHostException(host);
+				}
+				return super.lookup(host);
+			}
+		};
+		ReflectionTestUtils.setField(cache, "refreshAheadPercent", 0);
+		ReflectionTestUtils.setField(cache, "refreshMinHits", 1);
+		try {
+			assertNotNull(cache.resolve("localhost"));
+			failing.set(true);
+			assertNotNull(cache.resolve("localhost"));
+			for (int i = 0; i < 100 && cache.getRefreshCount() == 0; i++) {
+				Thread.sleep(10);
+			}
+			Thread.sleep(50);
+
+			// the failed refresh is not retried before the negative TTL
+			for (int i = 0; i < 10; i++) {
+				assertNotNull(cache.resolve("localhost"));
+			}
+			Thread.sleep(50);
+			assertEquals(1, cache.getRefreshCount());
+		} finally {
+			cache.stop();
+		}
+	}
+
+	@Test
+	public void testResolve_MaxEntries() {
+
+		ReflectionTestUtils.setField(cache, "maxEntries", 2);
+		cache.resolve("localhost");
+		cache.resolve("127.0.0.1");
+		cache.resolve("host.invalid");
+		cache.resolve("host.invalid");
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHitCount());
+	}
+}
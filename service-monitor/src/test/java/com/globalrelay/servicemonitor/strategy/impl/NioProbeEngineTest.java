@@ -0,0 +1,84 @@
+package com.globalrelay.servicemonitor.strategy.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+
+@RunWith(SpringRunner.class)
+public class NioProbeEngineTest {
+
+	static final InetAddress LOCALHOST = InetAddress.getLoopbackAddress();
+
+	NioProbeEngine engine;
+
+	@Before
+	public void setUp() throws Exception {
+
+		engine = new NioProbeEngine();
+		ReflectionTestUtils.setField(engine, "ioThreads", 1);
+		engine.start();
+	}
+
+	@After
+	public void tearDown() {
+		engine.stop();
+	}
+
+	@Test
+	public void testProbe_Active() throws Exception {
+
+		try (ServerSocket server = new ServerSocket(0)) {
+			assertEquals(ProbeOutcome.UP, engine.probe(new ServiceEndpoint("localhost", server.getLocalPort()), LOCALHOST, 1000).get().getOutcome());
+		}
+	}
+
+	@Test
+	public void testProbe_Inactive() throws Exception {
+
+		int port;
+		try (ServerSocket server = new ServerSocket(0)) {
+			port = server.getLocalPort();
+		}
+		assertEquals(ProbeOutcome.REFUSED, engine.probe(new ServiceEndpoint("localhost", port), LOCALHOST, 1000).get().getOutcome());
+	}
+
+	@Test
+	public void testProbe_Timeout() throws Exception {
+
+		// fill the accept backlog so further connects are left unanswered
+		List<Socket> clients = new ArrayList<Socket>();
+		try (ServerSocket server = new ServerSocket(0, 1)) {
+			for (int i = 0; i < 8; i++) {
+				Socket client = new Socket();
+				clients.add(client);
+				try {
+					client.connect(new InetSocketAddress("localhost", server.getLocalPort()), 100);
+				} catch (Exception e) {
+					break;
+				}
+			}
+			assertEquals(ProbeOutcome.TIMEOUT, engine.probe(new ServiceEndpoint("localhost", server.getLocalPort()), LOCALHOST, 200).get()
+					.getOutcome());
+		} finally {
+			for (Socket client : clients) {
+				client.close();
+			}
+		}
+	}
+
+}
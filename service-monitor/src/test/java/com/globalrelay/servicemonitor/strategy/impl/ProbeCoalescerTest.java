@@ -0,0 +1,107 @@
+package com.globalrelay.servicemonitor.strategy.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+
+@RunWith(SpringRunner.class)
+public class ProbeCoalescerTest {
+
+	ProbeCoalescer coalescer = new ProbeCoalescer();
+
+	ServiceEndpoint endpoint = new ServiceEndpoint("localhost", 8080);
+
+	AtomicInteger probes = new AtomicInteger();
+
+	CompletableFuture<ProbeResult> pending = new CompletableFuture<ProbeResult>();
+
+	private CompletableFuture<ProbeResult> startProbe(ServiceEndpoint endpoint) {
+		probes.incrementAndGet();
+		return pending;
+	}
+
+	private ProbeResult result() {
+		return new ProbeResult(endpoint, ProbeOutcome.UP, 1000L, null, System.currentTimeMillis());
+	}
+
+	@Test
+	public void testProbe_SharesInFlight() throws Exception {
+
+		CompletableFuture<ProbeResult> first = coalescer.probe(endpoint, this::startProbe);
+		CompletableFuture<ProbeResult> second = coalescer.probe(new ServiceEndpoint("localhost", 8080, 500),
+				this::startProbe);
+
+		ProbeResult result = result();
+		pending.complete(result);
+
+		assertSame(result, first.get());
+		assertSame(result, second.get());
+		assertEquals(1, probes.get());
+		assertEquals(1, coalescer.getCoalescedCount());
+	}
+
+	@Test
+	public void testProbe_ReusesRecentResult() throws Exception {
+
+		ProbeResult result = result();
+		pending.complete(result);
+		coalescer.probe(endpoint, this::startProbe).get();
+
+		assertSame(result, coalescer.probe(endpoint, this::startProbe).get());
+		assertSame(result, coalescer.getLastResult(endpoint));
+		assertEquals(1, probes.get());
+	}
+
+	@Test
+	public void testProbe_ExpiredResult() throws Exception {
+
+		ReflectionTestUtils.setField(coalescer, "minIntervalMillis", 0L);
+		pending.complete(result());
+		coalescer.probe(endpoint, this::startProbe).get();
+		coalescer.probe(endpoint, this::startProbe).get();
+
+		assertEquals(2, probes.get());
+		assertEquals(2, coalescer.getStartedCount());
+	}
+
+	@Test
+	public void testProbe_SweepsExpiredResults() throws Exception {
+
+		ReflectionTestUtils.setField(coalescer, "minIntervalMillis", 1L);
+		ServiceEndpoint other = new ServiceEndpoint("example.com", 443);
+		coalescer.probe(other, e -> CompletableFuture
+				.completedFuture(new ProbeResult(e, ProbeOutcome.UP, 1000L, null, System.currentTimeMillis() - 10000L)))
+				.get();
+		assertNotNull(coalescer.getLastResult(other));
+
+		Thread.sleep(5L);
+		pending.complete(result());
+		coalescer.probe(endpoint, this::startProbe).get();
+
+		assertNull(coalescer.getLastResult(other));
+		assertNotNull(coalescer.getLastResult(endpoint));
+	}
+
+	@Test
+	public void testProbe_DistinctEndpoints() throws Exception {
+
+		pending.complete(result());
+		coalescer.probe(endpoint, this::startProbe).get();
+		coalescer.probe(new ServiceEndpoint("localhost", 8081), this::startProbe).get();
+
+		assertEquals(2, probes.get());
+	}
+}
@@ -0,0 +1,125 @@
+package com.globalrelay.servicemonitor.strategy.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+import com.globalrelay.servicemonitor.domain.ProbeResult;
+import com.globalrelay.servicemonitor.domain.ServiceEndpoint;
+import com.globalrelay.servicemonitor.strategy.ProbeListener;
+
+@RunWith(SpringRunner.class)
+public class ServiceMonitorStrategyImplTest {
+
+	NioProbeEngine engine;
+
+	ServiceMonitorStrategyImpl strategy;
+
+	@Before
+	public void setUp() throws Exception {
+
+		engine = new NioProbeEngine();
+		ReflectionTestUtils.setField(engine, "ioThreads", 1);
+		engine.start();
+
+		strategy = new ServiceMonitorStrategyImpl();
+		ReflectionTestUtils.setField(strategy, "probeEngine", engine);
+		ReflectionTestUtils.setField(strategy, "resolverCache", new DnsResolverCache());
+		ReflectionTestUtils.setField(strategy, "probeCoalescer", new ProbeCoalescer());
+		ReflectionTestUtils.setField(strategy, "defaultConnectTimeout", 1000);
+	}
+
+	@After
+	public void tearDown() {
+		engine.stop();
+	}
+
+	@Test
+	public void testMonitorService() throws Exception {
+
+		try (ServerSocket server = new ServerSocket(0)) {
+			ProbeResult result = strategy.monitorService(new ServiceEndpoint("localhost", server.getLocalPort()));
+			assertTrue(result.isUp());
+			assertTrue(result.getLatencyNanos() > 0);
+			assertNotNull(result.getAddress());
+		}
+	}
+
+	@Test
+	public void testMonitorService_UnresolvedHost() throws Exception {
+
+		ProbeResult result = strategy.monitorService(new ServiceEndpoint("host.invalid", 80));
+		assertEquals(ProbeOutcome.DNS_FAILURE, result.getOutcome());
+	}
+
+	@Test
+	public void testMonitorServices() throws Exception {
+
+		int closedPort;
+		try (ServerSocket server = new ServerSocket(0)) {
+			closedPort = server.getLocalPort();
+		}
+
+		try (ServerSocket server = new ServerSocket(0)) {
+			ServiceEndpoint open = new ServiceEndpoint("localhost", server.getLocalPort());
+			ServiceEndpoint closed = new ServiceEndpoint("localhost", closedPort);
+
+			List<ServiceEndpoint> endpoints = Arrays.asList(open, closed);
+			long startedAt = System.currentTimeMillis();
+			List<ProbeResult> results = strategy.awaitServices(endpoints, strategy.startServices(endpoints), startedAt);
+
+			assertEquals(2, results.size());
+			assertEquals(open, results.get(0).getEndpoint());
+			assertEquals(ProbeOutcome.UP, results.get(0).getOutcome());
+			assertEquals(closed, results.get(1).getEndpoint());
+			assertEquals(ProbeOutcome.REFUSED, results.get(1).getOutcome());
+		}
+	}
+
+	@Test
+	public void testMonitorService_NotifiesListenersOnce() throws Exception {
+
+		List<ProbeResult> notified = new CopyOnWriteArrayList<ProbeResult>();
+		ProbeListener listener = notified::add;
+		ReflectionTestUtils.setField(strategy, "probeListeners", Arrays.asList(listener));
+
+		try (ServerSocket server = new ServerSocket(0)) {
+			ServiceEndpoint endpoint = new ServiceEndpoint("localhost", server.getLocalPort());
+			ProbeResult first = strategy.monitorService(endpoint);
+			ProbeResult shared = strategy.monitorService(endpoint);
+
+			assertSame(first, shared);
+			assertEquals(1, notified.size());
+			assertSame(first, notified.get(0));
+		}
+	}
+
+	@Test
+	public void testAwaitServices_Timeout() throws Exception {
+
+		ServiceEndpoint endpoint = new ServiceEndpoint("localhost", 80, 100);
+
+		long startedAt = System.currentTimeMillis();
+		List<ProbeResult> results = strategy.awaitServices(Arrays.asList(endpoint),
+				Arrays.asList(new CompletableFuture<ProbeResult>()), startedAt);
+
+		assertEquals(ProbeOutcome.TIMEOUT, results.get(0).getOutcome());
+		assertTrue(System.currentTimeMillis() - startedAt < 5000);
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.globalrelay.servicemonitor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ConsistentHashRingTest {
+
+	private static final int KEYS = 10000;
+
+	@Test
+	public void testGetOwner_Empty() {
+		assertNull(new ConsistentHashRing(Collections.<String>emptyList(), 10).getOwner("localhost:80"));
+	}
+
+	@Test
+	public void testGetOwner_Balanced() {
+
+		ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("a", "b", "c", "d"), 128);
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (int i = 0; i < KEYS; i++) {
+			counts.merge(ring.getOwner(key(i)), 1, Integer::sum);
+		}
+
+		assertEquals(4, counts.size());
+		for (int count : counts.values()) {
+			// within 30% of an even share
+			assertTrue(Math.abs(count - KEYS / 4) < KEYS / 4 * 0.3);
+		}
+	}
+
+	@Test
+	public void testGetOwner_NodeJoins() {
+
+		ConsistentHashRing before = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 128);
+		ConsistentHashRing after = new ConsistentHashRing(Arrays.asList("a", "b", "c", "d"), 128);
+
+		int moved = 0;
+		for (int i = 0; i < KEYS; i++) {
+			String owner = after.getOwner(key(i));
+			if (!owner.equals(before.getOwner(key(i)))) {
+				// only the new node takes keys over
+				assertEquals("d", owner);
+				moved++;
+			}
+		}
+		assertTrue(moved > KEYS / 4 * 0.7 && moved < KEYS / 4 * 1.3);
+	}
+
+	@Test
+	public void testGetOwner_NodeLeaves() {
+
+		ConsistentHashRing before = new ConsistentHashRing(Arrays.asList("a", "b", "c", "d"), 128);
+		ConsistentHashRing after = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 128);
+
+		for (int i = 0; i < KEYS; i++) {
+			String owner = before.getOwner(key(i));
+			if (!"d".equals(owner)) {
+				// keys of the remaining nodes keep their owner
+				assertEquals(owner, after.getOwner(key(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testGetOwner_SameOnEveryMember() {
+
+		ConsistentHashRing one = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 64);
+		ConsistentHashRing other = new ConsistentHashRing(Arrays.asList("c", "b", "a"), 64);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(one.getOwner(key(i)), other.getOwner(key(i)));
+		}
+	}
+
+	private static String key(int i) {
+		return "host-" + i + ".example.com:" + (8000 + i % 100);
+	}
+}
@@ -0,0 +1,49 @@
+package com.globalrelay.servicemonitor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+
+public class CronCacheTest {
+
+	CronCache cache = new CronCache(2);
+
+	@Test
+	public void testGet_ParsesOnce() {
+
+		CronCache.CronEntry entry = cache.get("0 0/1 * 1/1 * ? *");
+		assertSame(entry, cache.get("0 0/1 * 1/1 * ? *"));
+
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertNotNull(entry.getCron());
+		assertTrue(entry.getDescription().length() > 0);
+		assertTrue(entry.getExecutionTime().nextExecution(ZonedDateTime.now()).isPresent());
+	}
+
+	@Test
+	public void testGet_Bounded() {
+
+		cache.get("0/1 * * * * ?");
+		cache.get("0/2 * * * * ?");
+		cache.get("0/3 * * * * ?");
+
+		assertEquals(2, cache.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGet_Invalid() {
+
+		try {
+			cache.get("invalid");
+		} finally {
+			assertEquals(0, cache.size());
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.globalrelay.servicemonitor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class HashedTimingWheelTest {
+
+	HashedTimingWheel wheel = new HashedTimingWheel("test-wheel", 10, 8, Runnable::run);
+
+	@After
+	public void tearDown() {
+		wheel.stop();
+	}
+
+	@Test
+	public void testWheelSize() {
+		assertEquals(8, wheel.getWheelSize());
+		assertEquals(16, new HashedTimingWheel("test-wheel", 10, 9, Runnable::run).getWheelSize());
+	}
+
+	@Test
+	public void testNewTimeout_Expires() throws Exception {
+
+		CountDownLatch latch = new CountDownLatch(1);
+		wheel.start();
+		long start = System.nanoTime();
+		HashedTimingWheel.Timeout timeout = wheel.newTimeout(latch::countDown, 50, TimeUnit.MILLISECONDS);
+
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+		assertTrue(timeout.isExpired());
+	}
+
+	@Test
+	public void testNewTimeout_SeveralRounds() throws Exception {
+
+		// 8 buckets of 10ms, so 200ms needs more than two rotations
+		CountDownLatch latch = new CountDownLatch(1);
+		wheel.start();
+		long start = System.nanoTime();
+		wheel.newTimeout(latch::countDown, 200, TimeUnit.MILLISECONDS);
+
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+
+		AtomicInteger fired = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		wheel.start();
+		HashedTimingWheel.Timeout timeout = wheel.newTimeout(fired::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+		wheel.newTimeout(latch::countDown, 100, TimeUnit.MILLISECONDS);
+
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertEquals(0, fired.get());
+		assertTrue(timeout.isCancelled());
+	}
+}
@@ -0,0 +1,56 @@
+package com.globalrelay.servicemonitor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testEmptyHistogram() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getTotalCount());
+		assertEquals(0, histogram.getValueAtPercentile(99.0d));
+	}
+
+	@Test
+	public void testPercentiles() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i = 1; i <= 10000; i++) {
+			histogram.recordValue(i);
+		}
+
+		assertEquals(10000, histogram.getTotalCount());
+		assertEquals(10000, histogram.getMaxValue());
+		assertWithinPrecision(5000, histogram.getValueAtPercentile(50.0d));
+		assertWithinPrecision(9500, histogram.getValueAtPercentile(95.0d));
+		assertWithinPrecision(9900, histogram.getValueAtPercentile(99.0d));
+		assertEquals(10000, histogram.getValueAtPercentile(100.0d));
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.recordValue(3);
+		histogram.recordValue(7);
+		assertEquals(3, histogram.getValueAtPercentile(50.0d));
+		assertEquals(7, histogram.getValueAtPercentile(99.0d));
+	}
+
+	@Test
+	public void testValuesAboveRangeAreClamped() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.recordValue(Long.MAX_VALUE);
+		assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getMaxValue());
+		assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_VALUE));
+	}
+
+	private void assertWithinPrecision(long expected, long actual) {
+		assertTrue("expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+	}
+}
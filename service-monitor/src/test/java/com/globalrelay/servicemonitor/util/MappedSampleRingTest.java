@@ -0,0 +1,86 @@
+package com.globalrelay.servicemonitor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedSampleRingTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAppend_OverwritesOldest() throws Exception {
+
+		MappedSampleRing ring = new MappedSampleRing(folder.newFile(), 4, 3);
+		for (int i = 1; i <= 5; i++) {
+			ring.append(2, 42l, i, i % 2, i * 100);
+		}
+
+		List<long[]> samples = read(ring, 2, 42l, 10);
+		assertEquals(3, samples.size());
+		assertEquals(5, samples.get(0)[0]);
+		assertEquals(1, samples.get(0)[1]);
+		assertEquals(500, samples.get(0)[2]);
+		assertEquals(3, samples.get(2)[0]);
+		assertEquals(5, ring.count(2, 42l));
+
+		assertEquals(2, read(ring, 2, 42l, 2).size());
+		assertEquals(0, read(ring, 1, 42l, 10).size());
+		ring.close();
+	}
+
+	@Test
+	public void testRead_OtherKeyResetsSlot() throws Exception {
+
+		MappedSampleRing ring = new MappedSampleRing(folder.newFile(), 4, 3);
+		ring.append(0, 1l, 10, 0, 1);
+		assertEquals(0, read(ring, 0, 2l, 10).size());
+
+		ring.append(0, 2l, 20, 0, 2);
+		assertEquals(0, read(ring, 0, 1l, 10).size());
+		assertEquals(1, read(ring, 0, 2l, 10).size());
+		assertEquals(1, ring.count(0, 2l));
+		ring.close();
+	}
+
+	@Test
+	public void testReopen_KeepsSamples() throws Exception {
+
+		File file = folder.newFile();
+		MappedSampleRing ring = new MappedSampleRing(file, 4, 3);
+		ring.append(3, 7l, 1000, 4, MappedSampleRing.MAX_VALUE + 1);
+		ring.close();
+
+		ring = new MappedSampleRing(file, 4, 3);
+		List<long[]> samples = read(ring, 3, 7l, 10);
+		assertEquals(1, samples.size());
+		assertEquals(1000, samples.get(0)[0]);
+		assertEquals(4, samples.get(0)[1]);
+		assertEquals(MappedSampleRing.MAX_VALUE, samples.get(0)[2]);
+		ring.close();
+
+		// a different layout starts from an empty file
+		ring = new MappedSampleRing(file, 4, 5);
+		assertEquals(0, read(ring, 3, 7l, 10).size());
+		ring.close();
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAppend_InvalidSlot() throws Exception {
+		new MappedSampleRing(folder.newFile(), 4, 3).append(4, 1l, 1, 0, 1);
+	}
+
+	private static List<long[]> read(MappedSampleRing ring, int slot, long key, int limit) {
+
+		List<long[]> samples = new ArrayList<long[]>();
+		ring.read(slot, key, limit, (timestamp, type, value) -> samples.add(new long[] { timestamp, type, value }));
+		return samples;
+	}
+}
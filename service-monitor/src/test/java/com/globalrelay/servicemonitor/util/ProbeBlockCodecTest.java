@@ -0,0 +1,86 @@
+package com.globalrelay.servicemonitor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ProbeBlockCodecTest {
+
+	@Test
+	public void testRoundTrip() {
+
+		long[] timestamps = { 1551657600000l, 1551657610000l, 1551657620000l, 1551657619000l, 1551657700123l,
+				1551657700123l };
+		int[] outcomes = { 0, 0, 2, 2, 2, 0 };
+		long[] latencies = { 1200000l, 1200000l, 3000000000l, 0l, Long.MAX_VALUE, 1l };
+
+		ProbeBlockCodec.Encoder encoder = new ProbeBlockCodec.Encoder();
+		for (int i = 0; i < timestamps.length; i++) {
+			encoder.add(timestamps[i], outcomes[i], latencies[i]);
+		}
+		ProbeBlockCodec.Reader reader = new ProbeBlockCodec.Reader(encoder.toByteArray());
+
+		assertEquals(timestamps.length, reader.getCount());
+		for (int i = 0; i < timestamps.length; i++) {
+			assertTrue(reader.hasNext());
+			reader.next();
+			assertEquals(timestamps[i], reader.getTimestamp());
+			assertEquals(outcomes[i], reader.getOutcome());
+			assertEquals(latencies[i], reader.getLatency());
+		}
+		assertFalse(reader.hasNext());
+	}
+
+	@Test
+	public void testEmptyAndSingle() {
+
+		ProbeBlockCodec.Reader empty = new ProbeBlockCodec.Reader(new ProbeBlockCodec.Encoder().toByteArray());
+		assertEquals(0, empty.getCount());
+		assertFalse(empty.hasNext());
+
+		ProbeBlockCodec.Encoder encoder = new ProbeBlockCodec.Encoder();
+		encoder.add(-5l, 255, 7l);
+		ProbeBlockCodec.Reader single = new ProbeBlockCodec.Reader(encoder.toByteArray());
+		single.next();
+		assertEquals(-5l, single.getTimestamp());
+		assertEquals(255, single.getOutcome());
+		assertEquals(7l, single.getLatency());
+		assertFalse(single.hasNext());
+	}
+
+	@Test
+	public void testCompression() {
+
+		// a day of probes every 10 seconds, mostly up with a short outage
+		ProbeBlockCodec.Encoder encoder = new ProbeBlockCodec.Encoder();
+		long start = 1551657600000l;
+		for (int i = 0; i < 8640; i++) {
+			encoder.add(start + i * 10000l, i >= 4000 && i < 4010 ? 2 : 0, 1000000l + (i % 4) * 1024);
+		}
+		byte[] block = encoder.toByteArray();
+
+		// a row of the daily table takes about 40 bytes
+		assertTrue("block of " + block.length + " bytes", block.length * 10 < 8640 * 40);
+
+		ProbeBlockCodec.Reader reader = new ProbeBlockCodec.Reader(block);
+		int count = 0;
+		while (reader.hasNext()) {
+			reader.next();
+			assertEquals(start + count * 10000l, reader.getTimestamp());
+			count++;
+		}
+		assertEquals(8640, count);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdd_InvalidOutcome() {
+		new ProbeBlockCodec.Encoder().add(0l, 256, 0l);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReader_Corrupt() {
+		new ProbeBlockCodec.Reader(new byte[] { 5, 20, 1 });
+	}
+}
@@ -0,0 +1,67 @@
+package com.globalrelay.servicemonitor.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.globalrelay.servicemonitor.constant.ProbeOutcome;
+
+public class UptimeCounterTest {
+
+	private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+	// midnight of a UTC day, so that hour and day buckets start here
+	long now = 1000 * DAY;
+
+	UptimeCounter counter = new UptimeCounter();
+
+	@Test
+	public void testRecord_CountsByOutcome() {
+
+		counter.record(now, ProbeOutcome.UP);
+		counter.record(now, ProbeOutcome.UP);
+		counter.record(now, ProbeOutcome.TIMEOUT);
+		counter.record(now, ProbeOutcome.REFUSED);
+		counter.record(now, ProbeOutcome.DNS_FAILURE);
+
+		assertArrayEquals(new long[] { 2, 3, 1, 1 }, counter.getCounts(now, HOUR));
+		assertArrayEquals(new long[] { 2, 3, 1, 1 }, counter.getCounts(now, 30 * DAY));
+	}
+
+	@Test
+	public void testGetCounts_Windows() {
+
+		counter.record(now - 30 * MINUTE, ProbeOutcome.UP);
+		counter.record(now - 2 * HOUR, ProbeOutcome.REFUSED);
+		counter.record(now - 3 * DAY, ProbeOutcome.TIMEOUT);
+		counter.record(now - 10 * DAY, ProbeOutcome.UP);
+		counter.record(now - 40 * DAY, ProbeOutcome.UP);
+
+		assertArrayEquals(new long[] { 1, 0, 0, 0 }, counter.getCounts(now, HOUR));
+		assertArrayEquals(new long[] { 1, 1, 0, 1 }, counter.getCounts(now, 24 * HOUR));
+		assertArrayEquals(new long[] { 1, 2, 1, 1 }, counter.getCounts(now, 7 * DAY));
+		assertArrayEquals(new long[] { 2, 2, 1, 1 }, counter.getCounts(now, 30 * DAY));
+	}
+
+	@Test
+	public void testRecord_ReusesExpiredBuckets() {
+
+		counter.record(now - 2 * HOUR, ProbeOutcome.UP);
+		// same minute bucket two hours later
+		counter.record(now, ProbeOutcome.REFUSED);
+		// outcomes older than the bucket are ignored
+		counter.record(now - 2 * HOUR, ProbeOutcome.UP);
+
+		assertArrayEquals(new long[] { 0, 1, 0, 1 }, counter.getCounts(now, HOUR));
+		assertArrayEquals(new long[] { 2, 1, 0, 1 }, counter.getCounts(now, 24 * HOUR));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetCounts_WindowTooLong() {
+		counter.getCounts(now, 31 * DAY);
+	}
+}